@@ -0,0 +1,102 @@
+package app.messages;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Decodes the order and authorization responses polled during issuance, with an object mapper configured like
+ * the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AcmeResponseDecodingBenchmark {
+
+    private static final int ORDER_HOSTS = 10;
+
+    private ObjectReader orderReader;
+    private ObjectReader authzReader;
+    private byte[] orderJson;
+    private byte[] authzJson;
+
+    @Setup
+    public void setup() {
+        final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        orderReader = objectMapper.readerFor(OrderResponse.class);
+        authzReader = objectMapper.readerFor(AuthzResponse.class);
+
+        orderJson = """
+            {
+              "status": "pending",
+              "expires": "2026-01-08T15:04:05Z",
+              "identifiers": [%s],
+              "authorizations": [%s],
+              "finalize": "https://acme.example.com/acme/finalize/123456789/987654321"
+            }
+            """.formatted(
+            IntStream.range(0, ORDER_HOSTS)
+                .mapToObj(i -> "{\"type\": \"dns\", \"value\": \"host%d.example.com\"}".formatted(i))
+                .collect(Collectors.joining(",")),
+            IntStream.range(0, ORDER_HOSTS)
+                .mapToObj(i -> "\"https://acme.example.com/acme/authz/123456789/%d\"".formatted(i))
+                .collect(Collectors.joining(","))
+        ).getBytes(StandardCharsets.UTF_8);
+
+        authzJson = """
+            {
+              "status": "pending",
+              "expires": "2026-01-08T15:04:05Z",
+              "identifier": {"type": "dns", "value": "host0.example.com"},
+              "challenges": [
+                {
+                  "type": "http-01",
+                  "url": "https://acme.example.com/acme/chall/123456789/0/Rg5dV",
+                  "status": "pending",
+                  "token": "DGyRejmCefe7v4NfDGDKfA"
+                },
+                {
+                  "type": "dns-01",
+                  "url": "https://acme.example.com/acme/chall/123456789/0/jFaXj",
+                  "status": "pending",
+                  "token": "EGyRejmCefe7v4NfDGDKfB"
+                },
+                {
+                  "type": "tls-alpn-01",
+                  "url": "https://acme.example.com/acme/chall/123456789/0/k8WbX",
+                  "status": "pending",
+                  "token": "FGyRejmCefe7v4NfDGDKfC"
+                }
+              ]
+            }
+            """.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public OrderResponse decodeOrder() throws IOException {
+        return orderReader.readValue(orderJson);
+    }
+
+    @Benchmark
+    public AuthzResponse decodeAuthz() throws IOException {
+        return authzReader.readValue(authzJson);
+    }
+}
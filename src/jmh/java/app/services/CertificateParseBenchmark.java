@@ -0,0 +1,97 @@
+package app.services;
+
+import app.model.Identifier;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.security.auth.x500.X500Principal;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses the certificate of a TLS secret, which happens for every secret on startup and each watch event when
+ * checking whether it needs renewal, compared with reading the validity annotations recorded at issuance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CertificateParseBenchmark {
+
+    private Secret tlsSecret;
+    private Map<String, String> validityAnnotations;
+
+    @Setup
+    public void setup() throws Exception {
+        final KeyPair keyPair = CertificateProcessingService.generateCertKeyPair();
+        final Instant now = Instant.now();
+        final X509CertificateHolder certificate = new JcaX509v3CertificateBuilder(
+            new X500Principal("CN=example.com"),
+            BigInteger.valueOf(now.toEpochMilli()),
+            Date.from(now),
+            Date.from(now.plus(Duration.ofDays(90))),
+            new X500Principal("CN=example.com"),
+            keyPair.getPublic()
+        )
+            .addExtension(CertificateProcessingService.createExtensions(
+                List.of(Identifier.dns("example.com"), Identifier.dns("www.example.com"))
+            ).getExtension(Extension.subjectAlternativeName))
+            .build(CertificateProcessingService.createContentSigner(keyPair));
+
+        final StringWriter pem = new StringWriter();
+        try (PemWriter pemWriter = new PemWriter(pem)) {
+            pemWriter.writeObject(new PemObject("CERTIFICATE", certificate.getEncoded()));
+        }
+
+        tlsSecret = new SecretBuilder()
+            .withNewMetadata()
+            .withName("example-tls")
+            .endMetadata()
+            .withType("kubernetes.io/tls")
+            .withData(Map.of(
+                "tls.crt", Base64.getEncoder().encodeToString(pem.toString().getBytes(StandardCharsets.UTF_8))
+            ))
+            .build();
+
+        validityAnnotations = CertificateValidity.of(
+            ApplicationIngressesService.parseCertificate(tlsSecret),
+            CertificateProcessingService.contentHash(pem.toString())
+        ).toAnnotations();
+    }
+
+    @Benchmark
+    public X509Certificate parseCertificate() {
+        return ApplicationIngressesService.parseCertificate(tlsSecret);
+    }
+
+    @Benchmark
+    public Instant readValidityAnnotations() {
+        return CertificateValidity.fromAnnotations(validityAnnotations, null).notAfter();
+    }
+}
@@ -0,0 +1,64 @@
+package app.services;
+
+import app.model.Identifier;
+import java.security.KeyPair;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.operator.ContentSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the CSR submitted when finalizing an order, excluding the key generation measured by
+ * {@link KeyGenerationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsrBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int hosts;
+
+    private List<Identifier> identifiers;
+    private KeyPair keyPair;
+
+    @Setup
+    public void setup() {
+        identifiers = IntStream.range(0, hosts)
+            .mapToObj(i -> Identifier.dns("host" + i + ".example.com"))
+            .toList();
+        keyPair = CertificateProcessingService.generateCertKeyPair();
+    }
+
+    @Benchmark
+    public Extensions createExtensions() {
+        return CertificateProcessingService.createExtensions(identifiers);
+    }
+
+    @Benchmark
+    public ContentSigner createContentSigner() {
+        return CertificateProcessingService.createContentSigner(keyPair);
+    }
+
+    @Benchmark
+    public String buildAndEncodeCsr() {
+        return CertificateProcessingService.encodeCsr(
+            CertificateProcessingService.buildCsr(identifiers, keyPair)
+        );
+    }
+}
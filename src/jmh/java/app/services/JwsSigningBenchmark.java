@@ -0,0 +1,81 @@
+package app.services;
+
+import app.messages.OrderRequest;
+import app.model.Identifier;
+import app.model.SignableValue;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import reactor.core.publisher.Mono;
+
+/**
+ * Signs and serializes an ACME request body the way every request to the issuer is written, with either the
+ * account's JWK embedded, as for new accounts, or its key ID.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwsSigningBenchmark {
+
+    private static final URI REQUEST_URL = URI.create("https://acme.example.com/acme/new-order");
+    private static final ResolvableType SIGNABLE_VALUE_TYPE = ResolvableType.forClass(SignableValue.class);
+
+    @Param({"kid", "jwk"})
+    public String keyReference;
+
+    private JwsMessageWriter writer;
+    private SignableValue signableValue;
+
+    @Setup
+    public void setup() throws JOSEException {
+        writer = new JwsMessageWriter(Jackson2ObjectMapperBuilder.json().build());
+
+        final RSAKey jwk = new RSAKeyGenerator(2048)
+            .algorithm(JWSAlgorithm.RS256)
+            .generate();
+        signableValue = SignableValue.builder()
+            .jwk(jwk)
+            .kid(keyReference.equals("kid") ? "https://acme.example.com/acme/acct/123456789" : null)
+            .nonce("oFvnlFP1wIhRlYS2jTaXbA")
+            .requestUrl(REQUEST_URL)
+            .value(OrderRequest.builder()
+                .identifiers(List.of(
+                    Identifier.dns("example.com"),
+                    Identifier.dns("www.example.com")
+                ))
+                .build()
+            )
+            .build();
+    }
+
+    @Benchmark
+    public MockClientHttpRequest signAndWrite() {
+        final MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, REQUEST_URL);
+        writer.write(Mono.just(signableValue), SIGNABLE_VALUE_TYPE, JwsMessageWriter.JOSE_JSON, request, Map.of())
+            .block();
+        return request;
+    }
+}
@@ -0,0 +1,61 @@
+package app.services;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares generating the certificate's key pair with the RSA key currently used against the EC alternatives.
+ * RSA generation time varies a lot between runs since it searches for primes, so it needs more iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(1)
+public class KeyGenerationBenchmark {
+
+    @Param({"RSA-2048", "RSA-3072", "EC-secp256r1", "EC-secp384r1"})
+    public String keyType;
+
+    private KeyPairGenerator keyPairGenerator;
+
+    @Setup
+    public void setup() throws NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+        final String[] parts = keyType.split("-", 2);
+        keyPairGenerator = KeyPairGenerator.getInstance(parts[0]);
+        if (parts[0].equals("EC")) {
+            keyPairGenerator.initialize(new ECGenParameterSpec(parts[1]));
+        } else {
+            keyPairGenerator.initialize(Integer.parseInt(parts[1]));
+        }
+    }
+
+    @Benchmark
+    public KeyPair generateKeyPair() {
+        return keyPairGenerator.generateKeyPair();
+    }
+
+    /**
+     * The path currently used by {@link CertificateProcessingService}, which includes the generator lookup
+     */
+    @Benchmark
+    public KeyPair generateCertKeyPair() {
+        return CertificateProcessingService.generateCertKeyPair();
+    }
+}
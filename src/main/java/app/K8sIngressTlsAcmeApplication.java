@@ -1,6 +1,6 @@
 package app;
 
-import java.security.Security;
+import app.services.JcaWarmup;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
@@ -12,7 +12,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class K8sIngressTlsAcmeApplication {
 
     public static void main(String[] args) {
-        Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
+        // registers the BouncyCastle provider while the application context starts
+        JcaWarmup.startInBackground();
 
         SpringApplication.run(K8sIngressTlsAcmeApplication.class, args);
     }
@@ -1,6 +1,7 @@
 package app.config;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
@@ -21,6 +22,24 @@ import org.springframework.validation.annotation.Validated;
  *                                 service that can solve (respond to) challenges
  * @param overrideIssuer           overrides the {@value app.services.Metadata#ISSUER_LABEL} ingress label with the issuer ID to
  *                                 use for all ingresses
+ * @param renewalInfo              configuration of the use of
+ *                                 <a href="https://datatracker.ietf.org/doc/html/rfc9773">ACME Renewal Information</a>
+ *                                 when the issuer supports it
+ * @param preAuthorization         configuration of authorizing hosts ahead of their renewal
+ * @param solverMode               how solver ingresses are created for challenges
+ * @param selfCheck                configuration of the HTTP-01 self-check performed before asking the issuer to validate
+ * @param persistentSolver         configuration of the {@link SolverMode#PERSISTENT} solver ingresses
+ * @param challengeStore           configuration of where pending challenges are held for responding to the issuer
+ * @param challengeResponder       configuration of the HTTP-01 challenge responder
+ * @param solverGc                 configuration of the removal of solver ingresses left behind by an interrupted
+ *                                 challenge
+ * @param certificateMetrics       configuration of the expiry and renewal gauges of TLS secrets
+ * @param secretWatchMode          how TLS secrets are watched for changes
+ * @param issuanceConcurrency      limits of the issuances in progress, beyond which they wait in order of urgency
+ * @param issuerResilience         configuration of the circuit breaker and bulkhead of each issuer
+ * @param issuanceBackoff          delay of the next issuance of a TLS secret after its issuances failed
+ * @param clusters                 the clusters, by name, whose ingresses are served instead of kita's own cluster
+ * @param kubernetesHttpClient     the HTTP client of the Kubernetes clients
  */
 @ConfigurationProperties("kita")
 @Validated
@@ -39,9 +58,94 @@ public record AppProperties(
     @DefaultValue("solver") @NotBlank
     String solverRole,
 
-    String overrideIssuer
+    String overrideIssuer,
+
+    @DefaultValue
+    RenewalInfo renewalInfo,
+
+    @DefaultValue
+    PreAuthorization preAuthorization,
+
+    @DefaultValue("per-authorization") @NotNull
+    SolverMode solverMode,
+
+    @DefaultValue
+    SelfCheck selfCheck,
+
+    @DefaultValue
+    PersistentSolver persistentSolver,
+
+    @DefaultValue
+    ChallengeStore challengeStore,
+
+    @DefaultValue
+    ChallengeResponder challengeResponder,
+
+    @DefaultValue
+    SolverGc solverGc,
+
+    @DefaultValue
+    CertificateMetrics certificateMetrics,
+
+    @DefaultValue("full") @NotNull
+    SecretWatchMode secretWatchMode,
+
+    @DefaultValue
+    IssuanceConcurrency issuanceConcurrency,
+
+    @DefaultValue
+    IssuerResilience issuerResilience,
+
+    @DefaultValue
+    IssuanceBackoff issuanceBackoff,
+
+    Map<String, @Valid Cluster> clusters,
+
+    @DefaultValue
+    KubernetesHttpClient kubernetesHttpClient
 ) {
 
+    public AppProperties {
+        clusters = clusters != null ? clusters : Map.of();
+    }
+
+    @AssertTrue(message = "fallback-issuer must be the ID of another configured issuer")
+    public boolean isFallbackIssuersConfigured() {
+        return issuers == null || issuers.entrySet().stream()
+            .allMatch(entry -> entry.getValue() == null
+                || entry.getValue().fallbackIssuer() == null
+                || (!entry.getValue().fallbackIssuer().equals(entry.getKey())
+                && issuers.containsKey(entry.getValue().fallbackIssuer())));
+    }
+
+    public enum SolverMode {
+        /**
+         * A solver ingress is created, awaited, and removed for each authorization
+         */
+        PER_AUTHORIZATION,
+        /**
+         * One solver ingress per order and ingress class carries a rule per host and a path per challenge token
+         */
+        PER_ORDER,
+        /**
+         * A long-lived solver ingress per ingress class routes the challenge path prefix of every host, so that
+         * challenges don't require any ingress changes
+         */
+        PERSISTENT
+    }
+
+    public enum SecretWatchMode {
+        /**
+         * The watch delivers entire secrets, including their certificate chains and keys
+         */
+        FULL,
+        /**
+         * The watch delivers only the metadata of secrets of type {@code kubernetes.io/tls}, and a secret's data is
+         * fetched when its certificate has to be parsed
+         */
+        METADATA_ONLY
+    }
+
     /**
      * @param maxAttempts
      * @param pollDelay amount of delay between polls of the server's status
@@ -55,4 +159,285 @@ public record AppProperties(
     ) {
 
     }
+
+    /**
+     * @param enabled             when false, renewal is always scheduled at a fixed fraction of the certificate lifetime
+     * @param defaultPollInterval how often to re-check the suggested window when the issuer doesn't provide Retry-After
+     * @param minPollInterval     lower bound applied to the issuer's Retry-After
+     * @param maxPollInterval     upper bound applied to the issuer's Retry-After
+     */
+    public record RenewalInfo(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("6h") @NotNull
+        Duration defaultPollInterval,
+
+        @DefaultValue("1m") @NotNull
+        Duration minPollInterval,
+
+        @DefaultValue("1d") @NotNull
+        Duration maxPollInterval
+    ) {
+
+    }
+
+    /**
+     * @param enabled  when true, hosts are authorized ahead of their renewal so that the renewal order's
+     *                 authorizations are already valid
+     * @param leadTime how long before a renewal is due to authorize its hosts
+     */
+    public record PreAuthorization(
+        boolean enabled,
+
+        @DefaultValue("1d") @NotNull
+        Duration leadTime
+    ) {
+
+    }
+
+    /**
+     * @param enabled        when true, each challenge is fetched through its host's ingress and must serve the expected
+     *                       key authorization before the issuer is asked to validate it. Since that check confirms
+     *                       routing, waiting for the solver ingress load balancer status is skipped.
+     * @param maxAttempts    number of retries before giving up on the challenge
+     * @param initialBackoff delay before the first retry, which grows exponentially
+     * @param maxBackoff     upper bound of the delay between retries
+     * @param requestTimeout allowed response time of each self-check request
+     */
+    public record SelfCheck(
+        boolean enabled,
+
+        @DefaultValue("20") @Min(0)
+        long maxAttempts,
+
+        @DefaultValue("500ms") @NotNull
+        Duration initialBackoff,
+
+        @DefaultValue("10s") @NotNull
+        Duration maxBackoff,
+
+        @DefaultValue("5s") @NotNull
+        Duration requestTimeout
+    ) {
+
+    }
+
+    /**
+     * @param applyDelay how long to coalesce host changes before applying them to the persistent solver ingress,
+     *                   which avoids an ingress controller reload per application ingress during startup
+     */
+    public record PersistentSolver(
+        @DefaultValue("2s") @NotNull
+        Duration applyDelay
+    ) {
+
+    }
+
+    /**
+     * @param type      use {@link ChallengeStoreType#KUBERNETES} when running more than one replica behind the solver service
+     * @param replicaId identifies this replica when sharing challenges and as the owner of its solver ingresses,
+     *                  defaults to the HOSTNAME environment variable, which is the pod name
+     */
+    public record ChallengeStore(
+        @DefaultValue("in-memory") @NotNull
+        ChallengeStoreType type,
+
+        String replicaId
+    ) {
+
+    }
+
+    public enum ChallengeStoreType {
+        IN_MEMORY,
+        /**
+         * Shares challenges via ConfigMaps watched by every replica
+         */
+        KUBERNETES
+    }
+
+    /**
+     * @param ttl              how long a pending challenge is served before it is evicted, even if its issuance
+     *                         pipeline never removed it
+     * @param maxEntries       upper bound of pending challenges, beyond which the soonest to expire are evicted
+     * @param port             when set, challenges are served by a dedicated server on this port, which the solver
+     *                         service's target port must then reference, and are no longer served on the main port
+     * @param eventLoopThreads number of event loop threads of the dedicated server
+     */
+    public record ChallengeResponder(
+        @DefaultValue("30m") @NotNull
+        Duration ttl,
+
+        @DefaultValue("10000") @Min(1)
+        int maxEntries,
+
+        Integer port,
+
+        @DefaultValue("2") @Min(1)
+        int eventLoopThreads
+    ) {
+
+    }
+
+    /**
+     * @param enabled       when true, orphaned solver ingresses are swept at startup and then periodically
+     * @param interval      delay between sweeps
+     * @param minAge        solver ingresses younger than this are left alone, which covers those whose owning
+     *                      replica isn't recorded or whose challenges other replicas haven't observed yet
+     * @param batchSize     number of solver ingresses deleted at a time
+     * @param batchInterval delay between batches of deletes, which limits the load on the API server and the reloads
+     *                      of the ingress controller
+     */
+    public record SolverGc(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("15m") @NotNull
+        Duration interval,
+
+        @DefaultValue("15m") @NotNull
+        Duration minAge,
+
+        @DefaultValue("10") @Min(1)
+        int batchSize,
+
+        @DefaultValue("5s") @NotNull
+        Duration batchInterval
+    ) {
+
+    }
+
+    /**
+     * @param secretTags tag the gauges with the TLS secret name in addition to the issuer, which creates a time series
+     *                   per secret rather than per issuer
+     */
+    public record CertificateMetrics(
+        boolean secretTags
+    ) {
+
+    }
+
+    /**
+     * @param global    issuances in progress across all issuers
+     * @param perIssuer issuances in progress with any one issuer
+     */
+    public record IssuanceConcurrency(
+        @DefaultValue("10") @Min(1)
+        int global,
+
+        @DefaultValue("5") @Min(1)
+        int perIssuer
+    ) {
+
+    }
+
+    /**
+     * @param failureRateThreshold percentage of failed requests to an issuer, such as connection failures, timeouts,
+     *                             and server errors, at which its circuit opens and further requests fail fast
+     * @param slidingWindowSize    number of recent requests from which the failure rate is computed
+     * @param minimumCalls         number of requests needed before the failure rate is evaluated
+     * @param openDuration         how long the circuit stays open before letting trial requests through
+     * @param halfOpenCalls        number of trial requests that decide whether the circuit closes again
+     * @param maxConcurrentCalls   requests in progress to an issuer, beyond which further requests wait
+     * @param maxWait              how long a request waits for one of the issuer's requests in progress to complete
+     *                             before it fails
+     * @param fallbackWithin       while an issuer's circuit is open, certificates that are missing or expire within
+     *                             this are issued by its {@link Issuer#fallbackIssuer()}, if configured
+     */
+    public record IssuerResilience(
+        @DefaultValue("50") @Min(1)
+        int failureRateThreshold,
+
+        @DefaultValue("20") @Min(1)
+        int slidingWindowSize,
+
+        @DefaultValue("10") @Min(1)
+        int minimumCalls,
+
+        @DefaultValue("5m") @NotNull
+        Duration openDuration,
+
+        @DefaultValue("3") @Min(1)
+        int halfOpenCalls,
+
+        @DefaultValue("50") @Min(1)
+        int maxConcurrentCalls,
+
+        @DefaultValue("30s") @NotNull
+        Duration maxWait,
+
+        @DefaultValue("7d") @NotNull
+        Duration fallbackWithin
+    ) {
+
+    }
+
+    /**
+     * @param initialDelay delay after the first failed issuance of a TLS secret, which doubles with each consecutive
+     *                     failure
+     * @param maxDelay     upper bound of the delay, unless the issuer's Retry-After of a rateLimited problem is longer
+     * @param busyDelay    delay after an issuance was rejected since too many requests were in progress with the
+     *                     issuer, which doesn't count as a failure of the TLS secret
+     */
+    public record IssuanceBackoff(
+        @DefaultValue("10m") @NotNull
+        Duration initialDelay,
+
+        @DefaultValue("24h") @NotNull
+        Duration maxDelay,
+
+        @DefaultValue("1m") @NotNull
+        Duration busyDelay
+    ) {
+
+    }
+
+    public enum KubernetesHttpClientType {
+        /**
+         * fabric8's default Vert.x client, which runs its own Netty event loop next to the one of Reactor Netty
+         */
+        VERTX,
+        /**
+         * The JDK's HTTP client, which runs a selector thread per Kubernetes client and starts worker threads as
+         * needed, and leaves Netty to Reactor Netty alone
+         */
+        JDK
+    }
+
+    /**
+     * @param type             which implementation of fabric8's HTTP client to use
+     * @param eventLoopThreads number of event loop threads of the {@link KubernetesHttpClientType#VERTX} client
+     */
+    public record KubernetesHttpClient(
+        @DefaultValue("vertx") @NotNull
+        KubernetesHttpClientType type,
+
+        @DefaultValue("1") @Min(1)
+        int eventLoopThreads
+    ) {
+
+    }
+
+    /**
+     * Locates the API server and credentials of a cluster from either a kubeconfig context or a kubeconfig held in a
+     * secret of kita's own cluster.
+     *
+     * @param context             a context of the kubeconfig located as kubectl does, such as from KUBECONFIG
+     * @param kubeconfigSecret    name of a secret in kita's namespace whose kubeconfig's current context is used
+     * @param kubeconfigSecretKey the key of the kubeconfig in that secret's data
+     */
+    public record Cluster(
+        String context,
+
+        String kubeconfigSecret,
+
+        @DefaultValue("kubeconfig") @NotBlank
+        String kubeconfigSecretKey
+    ) {
+
+        @AssertTrue(message = "exactly one of context or kubeconfig-secret must be set")
+        public boolean isSourceConfigured() {
+            return (context != null) != (kubeconfigSecret != null);
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package app.config;
+
+import app.controllers.AcmeChallengeController;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Serves the challenge responder either on the main port, next to actuator, or on a dedicated port with its own
+ * event loop when {@code kita.challenge-responder.port} is set. Both beans are always registered and decide from
+ * the property when created, since conditions are evaluated at build time when the application is AOT processed.
+ */
+@Configuration
+@Slf4j
+public class ChallengeResponderConfig {
+
+    @Bean
+    public RouterFunction<ServerResponse> challengeRoutes(AcmeChallengeController acmeChallengeController,
+        AppProperties appProperties
+    ) {
+        return appProperties.challengeResponder().port() == null ?
+            acmeChallengeController.routes()
+            // matches nothing, since the dedicated server serves the challenges
+            : request -> Mono.empty();
+    }
+
+    @Bean
+    public DedicatedChallengeServer dedicatedChallengeServer(AcmeChallengeController acmeChallengeController,
+        AppProperties appProperties,
+        ObservationRegistry observationRegistry
+    ) {
+        return new DedicatedChallengeServer(acmeChallengeController.routes(), appProperties.challengeResponder(),
+            observationRegistry
+        );
+    }
+
+    public static class DedicatedChallengeServer implements SmartLifecycle {
+
+        private final RouterFunction<ServerResponse> routes;
+        private final AppProperties.ChallengeResponder config;
+        private final ObservationRegistry observationRegistry;
+        private volatile LoopResources loopResources;
+        private volatile DisposableServer server;
+
+        DedicatedChallengeServer(RouterFunction<ServerResponse> routes, AppProperties.ChallengeResponder config,
+            ObservationRegistry observationRegistry
+        ) {
+            this.routes = routes;
+            this.config = config;
+            this.observationRegistry = observationRegistry;
+        }
+
+        @Override
+        public void start() {
+            if (config.port() == null) {
+                // served on the main port instead
+                return;
+            }
+            loopResources = LoopResources.create("kita-challenge", config.eventLoopThreads(), true);
+            server = HttpServer.create()
+                .port(config.port())
+                .runOn(loopResources)
+                .handle(new ReactorHttpHandlerAdapter(
+                    WebHttpHandlerBuilder.webHandler(RouterFunctions.toWebHandler(routes))
+                        .observationRegistry(observationRegistry)
+                        .build()
+                ))
+                .bindNow();
+            log.info("Serving challenges on dedicated port={} with eventLoopThreads={}",
+                server.port(), config.eventLoopThreads()
+            );
+        }
+
+        @Override
+        public void stop() {
+            if (server != null) {
+                server.disposeNow();
+                server = null;
+            }
+            if (loopResources != null) {
+                loopResources.disposeLater().block();
+                loopResources = null;
+            }
+        }
+
+        @Override
+        public boolean isRunning() {
+            return server != null;
+        }
+
+        /**
+         * @return the bound port, which differs from the configured one when that is 0
+         */
+        public int port() {
+            return server.port();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package app.config;
+
+import app.services.ChallengeStore;
+import app.services.InMemoryChallengeStore;
+import app.services.KubernetesChallengeStore;
+import app.services.KubernetesMetrics;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import java.util.Objects;
+import java.util.UUID;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the challenge store from {@code kita.challenge-store.type} when the bean is created rather than with a
+ * condition, since conditions are evaluated at build time when the application is AOT processed.
+ */
+@Configuration
+public class ChallengeStoreConfig {
+
+    @Bean
+    public ChallengeStore challengeStore(AppProperties appProperties,
+        KubernetesClient k8s,
+        KubernetesMetrics kubernetesMetrics
+    ) {
+        final String replicaId = Objects.requireNonNullElseGet(appProperties.challengeStore().replicaId(),
+            () -> Objects.requireNonNullElseGet(System.getenv("HOSTNAME"), () -> UUID.randomUUID().toString())
+        );
+        return switch (appProperties.challengeStore().type()) {
+            case IN_MEMORY -> new InMemoryChallengeStore(appProperties, replicaId);
+            case KUBERNETES -> new KubernetesChallengeStore(k8s, replicaId, appProperties, kubernetesMetrics);
+        };
+    }
+}
@@ -1,12 +1,20 @@
 package app.config;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 
+/**
+ * @param challengeType  the type of challenge to complete for authorizations of this issuer
+ * @param dns01          configuration of the {@link ChallengeType#DNS_01} challenges, required when that type is used
+ * @param fallbackIssuer ID of another issuer that issues urgent certificates while this issuer's circuit is open
+ */
 public record Issuer(
     @NotNull
     URI directoryUrl,
@@ -15,7 +23,86 @@ public record Issuer(
     List<@NotBlank String> emails,
 
     @AssertTrue
-    boolean termsOfServiceAgreed
+    boolean termsOfServiceAgreed,
+
+    @DefaultValue("http-01") @NotNull
+    ChallengeType challengeType,
+
+    @Valid
+    Dns01 dns01,
+
+    String fallbackIssuer
 ) {
 
+    @AssertTrue(message = "dns01 must be configured when challenge-type is dns-01")
+    public boolean isDns01ConfiguredWhenNeeded() {
+        return challengeType != ChallengeType.DNS_01 || dns01 != null;
+    }
+
+    public enum ChallengeType {
+        /**
+         * Solved by serving the key authorization via a solver ingress
+         */
+        HTTP_01,
+        /**
+         * Solved by publishing a TXT record via a DNS provider, which also allows for wildcard hosts
+         */
+        DNS_01
+    }
+
+    /**
+     * @param provider                the name of the DNS provider that publishes TXT records, such as "rfc2136"
+     * @param recordTtl               TTL of the published TXT records
+     * @param propagationTimeout      how long to wait for every authoritative nameserver to serve the TXT records
+     * @param propagationPollInterval delay between checks of the authoritative nameservers
+     * @param rfc2136                 configuration of the "rfc2136" provider
+     */
+    public record Dns01(
+        @NotBlank
+        String provider,
+
+        @DefaultValue("60s") @NotNull
+        Duration recordTtl,
+
+        @DefaultValue("5m") @NotNull
+        Duration propagationTimeout,
+
+        @DefaultValue("5s") @NotNull
+        Duration propagationPollInterval,
+
+        @Valid
+        Rfc2136 rfc2136
+    ) {
+
+    }
+
+    /**
+     * Dynamic updates as described in
+     * <a href="https://datatracker.ietf.org/doc/html/rfc2136">RFC 2136</a>
+     *
+     * @param server        the primary nameserver accepting updates as host or host:port
+     * @param zone          the zone to update, otherwise located from the SOA of each record name
+     * @param tsigKeyName   name of the TSIG key that signs updates, if any
+     * @param tsigAlgorithm algorithm of the TSIG key, such as hmac-sha256
+     * @param tsigSecret    base64 encoded secret of the TSIG key
+     * @param timeout       allowed response time of each update
+     */
+    public record Rfc2136(
+        @NotBlank
+        String server,
+
+        String zone,
+
+        String tsigKeyName,
+
+        @DefaultValue("hmac-sha256") @NotBlank
+        String tsigAlgorithm,
+
+        String tsigSecret,
+
+        @DefaultValue("10s") @NotNull
+        Duration timeout
+    ) {
+
+    }
 }
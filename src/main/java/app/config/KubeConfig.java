@@ -1,15 +1,201 @@
 package app.config;
 
+import app.config.AppProperties.Cluster;
+import app.services.ApplicationIngressesService;
+import app.services.AuthorizationService;
+import app.services.CertificateMetrics;
+import app.services.CertificateProcessingService;
+import app.services.KubernetesCluster;
+import app.services.KubernetesMetrics;
+import app.services.PersistentIssuanceFailures;
+import app.services.PersistentSolverIngresses;
+import app.services.PreAuthorizationService;
+import app.services.SolverInformers;
+import app.services.SolverIngressSweeper;
+import app.services.SolverService;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class KubeConfig {
 
+    /**
+     * The services that watch, solve, and store certificates within a cluster, which are created in a child context
+     * per cluster. Everything else, such as the ACME accounts, nonces, and issuance scheduling, is shared by all of
+     * them from the application context.
+     */
+    static final List<Class<?>> CLUSTER_SERVICES = List.of(
+        SolverInformers.class,
+        PersistentSolverIngresses.class,
+        SolverService.class,
+        SolverIngressSweeper.class,
+        AuthorizationService.class,
+        CertificateProcessingService.class,
+        PreAuthorizationService.class,
+        CertificateMetrics.class,
+        PersistentIssuanceFailures.class,
+        ApplicationIngressesService.class
+    );
+
+    /**
+     * The client of kita's own cluster, which also holds the {@link AppProperties.ChallengeStoreType#KUBERNETES}
+     * challenge store and the kubeconfig secrets of other clusters
+     */
     @Bean
-    public KubernetesClient kubernetesClient() {
-        return new KubernetesClientBuilder().build();
+    public KubernetesClient kubernetesClient(HttpClient.Factory kubernetesHttpClientFactory) {
+        return new KubernetesClientBuilder()
+            .withHttpClientFactory(kubernetesHttpClientFactory)
+            .build();
+    }
+
+    @Bean
+    public KubernetesClusters kubernetesClusters(ConfigurableApplicationContext applicationContext,
+        KubernetesClient k8s,
+        HttpClient.Factory kubernetesHttpClientFactory,
+        KubernetesMetrics kubernetesMetrics,
+        AppProperties appProperties
+    ) {
+        return new KubernetesClusters(applicationContext, k8s, kubernetesHttpClientFactory, kubernetesMetrics,
+            appProperties.clusters()
+        );
+    }
+
+    /**
+     * Starts the services of each configured cluster, or of kita's own cluster when none are configured, once the
+     * issuers' directories and the challenge store have started.
+     */
+    @Slf4j
+    public static class KubernetesClusters implements SmartLifecycle, Closeable {
+
+        private final ConfigurableApplicationContext applicationContext;
+        private final KubernetesClient k8s;
+        private final HttpClient.Factory httpClientFactory;
+        private final KubernetesMetrics kubernetesMetrics;
+        private final Map<String, Cluster> config;
+        private final List<ClusterContext> started = new ArrayList<>();
+
+        KubernetesClusters(ConfigurableApplicationContext applicationContext,
+            KubernetesClient k8s,
+            HttpClient.Factory httpClientFactory,
+            KubernetesMetrics kubernetesMetrics,
+            Map<String, Cluster> config
+        ) {
+            this.applicationContext = applicationContext;
+            this.k8s = k8s;
+            this.httpClientFactory = httpClientFactory;
+            this.kubernetesMetrics = kubernetesMetrics;
+            this.config = config;
+        }
+
+        @Override
+        public synchronized void start() {
+            if (config.isEmpty()) {
+                started.add(startCluster(KubernetesCluster.local(k8s)));
+                return;
+            }
+            config.forEach((name, cluster) ->
+                started.add(startCluster(KubernetesCluster.named(name, buildClient(name, cluster))))
+            );
+        }
+
+        @Override
+        public synchronized void stop() {
+            for (ClusterContext clusterContext : started.reversed()) {
+                log.debug("Stopping services of cluster={}", clusterContext.cluster().name());
+                clusterContext.context().close();
+                if (clusterContext.cluster().client() != k8s) {
+                    clusterContext.cluster().client().close();
+                }
+            }
+            started.clear();
+        }
+
+        @Override
+        public synchronized boolean isRunning() {
+            return !started.isEmpty();
+        }
+
+        /**
+         * Stops the clusters that already started when a later one fails to, since the application context isn't
+         * stopped when its start fails
+         */
+        @Override
+        public void close() {
+            stop();
+        }
+
+        /**
+         * @return the services of the given type in each started cluster
+         */
+        public synchronized <T> Map<KubernetesCluster, T> servicesOf(Class<T> serviceType) {
+            final Map<KubernetesCluster, T> services = new LinkedHashMap<>();
+            started.forEach(clusterContext ->
+                services.put(clusterContext.cluster(), clusterContext.context().getBean(serviceType))
+            );
+            return services;
+        }
+
+        private ClusterContext startCluster(KubernetesCluster cluster) {
+            log.info("Starting services of cluster={} at {}", cluster.name(), cluster.client().getMasterUrl());
+            final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+            context.setParent(applicationContext);
+            context.setId(applicationContext.getId() + ":" + cluster.name());
+            context.registerBean(KubernetesCluster.class, () -> cluster);
+            context.register(CLUSTER_SERVICES.toArray(Class<?>[]::new));
+            // starts the watches and informers of the cluster
+            context.refresh();
+            return new ClusterContext(cluster, context);
+        }
+
+        private KubernetesClient buildClient(String name, Cluster cluster) {
+            final Config clientConfig;
+            if (cluster.context() != null) {
+                clientConfig = Config.autoConfigure(cluster.context());
+            } else {
+                final Secret secret = kubernetesMetrics.record(KubernetesMetrics.VERB_GET,
+                    KubernetesMetrics.RESOURCE_SECRETS, () -> k8s.secrets()
+                        .withName(cluster.kubeconfigSecret())
+                        .get()
+                );
+                final String encoded = secret != null && secret.getData() != null ?
+                    secret.getData().get(cluster.kubeconfigSecretKey()) : null;
+                if (encoded == null) {
+                    throw new IllegalStateException(
+                        "Secret %s with key %s holding the kubeconfig of cluster %s is missing".formatted(
+                            cluster.kubeconfigSecret(), cluster.kubeconfigSecretKey(), name
+                        ));
+                }
+                clientConfig = Config.fromKubeconfig(
+                    new String(Base64.getDecoder().decode(encoded), StandardCharsets.UTF_8)
+                );
+            }
+            return new KubernetesClientBuilder()
+                .withConfig(clientConfig)
+                .withHttpClientFactory(httpClientFactory)
+                .build();
+        }
+
+        private record ClusterContext(
+            KubernetesCluster cluster,
+            AnnotationConfigApplicationContext context
+        ) {
+
+        }
     }
 }
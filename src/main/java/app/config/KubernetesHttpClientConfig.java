@@ -0,0 +1,69 @@
+package app.config;
+
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.jdkhttp.JdkHttpClientFactory;
+import io.fabric8.kubernetes.client.vertx.VertxHttpClientFactory;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.file.FileSystemOptions;
+import java.io.Closeable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the HTTP client of the Kubernetes clients from {@code kita.kubernetes-http-client.type} when the bean is
+ * created rather than with a condition, since conditions are evaluated at build time when the application is AOT
+ * processed. The one factory is shared by the clients of every cluster.
+ */
+@Configuration
+@Slf4j
+public class KubernetesHttpClientConfig {
+
+    @Bean
+    public HttpClient.Factory kubernetesHttpClientFactory(AppProperties appProperties) {
+        final AppProperties.KubernetesHttpClient config = appProperties.kubernetesHttpClient();
+        log.debug("Using {} HTTP client for Kubernetes with eventLoopThreads={}", config.type(),
+            config.eventLoopThreads()
+        );
+        return switch (config.type()) {
+            case VERTX -> new SizedVertxHttpClientFactory(config.eventLoopThreads());
+            case JDK -> new JdkHttpClientFactory();
+        };
+    }
+
+    /**
+     * fabric8's default factory sizes its Vert.x event loop like Vert.x does, at twice the number of cores, on top
+     * of the Reactor Netty event loop of the server and the ACME client. Watches and the occasional request need
+     * far fewer.
+     */
+    static class SizedVertxHttpClientFactory extends VertxHttpClientFactory implements Closeable {
+
+        private final Vertx vertx;
+
+        SizedVertxHttpClientFactory(int eventLoopThreads) {
+            this(Vertx.vertx(new VertxOptions()
+                .setEventLoopPoolSize(eventLoopThreads)
+                // the same as fabric8's own instance, which has no use for file caching or classpath resolving
+                .setFileSystemOptions(new FileSystemOptions()
+                    .setFileCachingEnabled(false)
+                    .setClassPathResolvingEnabled(false)
+                )
+                .setUseDaemonThread(true)
+            ));
+        }
+
+        private SizedVertxHttpClientFactory(Vertx vertx) {
+            super(vertx);
+            this.vertx = vertx;
+        }
+
+        /**
+         * Called once the Kubernetes clients, which depend on this factory, have been closed
+         */
+        @Override
+        public void close() {
+            vertx.close();
+        }
+    }
+}
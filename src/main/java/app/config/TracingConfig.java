@@ -0,0 +1,57 @@
+package app.config;
+
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporterBuilder;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporterBuilder;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.List;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.autoconfigure.tracing.otlp.OtlpTracingProperties;
+import org.springframework.boot.actuate.autoconfigure.tracing.otlp.Transport;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the OTLP span exporter from {@code management.otlp.tracing.*} when the bean is created. Spring Boot's own
+ * OTLP tracing auto-configuration, which is excluded in application.yml, only creates its exporter when the endpoint
+ * is set at build time, since conditions are evaluated then when the application is AOT processed.
+ */
+@Configuration
+@EnableConfigurationProperties(OtlpTracingProperties.class)
+@Slf4j
+public class TracingConfig {
+
+    /**
+     * @return exports nothing when no endpoint is configured
+     */
+    @Bean
+    public SpanExporter otlpSpanExporter(OtlpTracingProperties properties) {
+        final String endpoint = properties.getEndpoint();
+        if (endpoint == null) {
+            log.debug("Not exporting traces since management.otlp.tracing.endpoint is not set");
+            return SpanExporter.composite(List.of());
+        }
+
+        log.info("Exporting traces via OTLP {} to endpoint={}", properties.getTransport(), endpoint);
+        final String compression = properties.getCompression().name().toLowerCase(Locale.ROOT);
+        if (properties.getTransport() == Transport.GRPC) {
+            final OtlpGrpcSpanExporterBuilder builder = OtlpGrpcSpanExporter.builder()
+                .setEndpoint(endpoint)
+                .setTimeout(properties.getTimeout())
+                .setConnectTimeout(properties.getConnectTimeout())
+                .setCompression(compression);
+            properties.getHeaders().forEach(builder::addHeader);
+            return builder.build();
+        }
+        final OtlpHttpSpanExporterBuilder builder = OtlpHttpSpanExporter.builder()
+            .setEndpoint(endpoint)
+            .setTimeout(properties.getTimeout())
+            .setConnectTimeout(properties.getConnectTimeout())
+            .setCompression(compression);
+        properties.getHeaders().forEach(builder::addHeader);
+        return builder.build();
+    }
+}
@@ -1,72 +1,90 @@
 package app.controllers;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import app.services.ChallengeStore;
+import io.micrometer.common.KeyValue;
 import java.util.concurrent.CompletableFuture;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseBody;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
 
-@RestController
-@RequestMapping(AcmeChallengeController.BASE_CHALLENGE_PATH)
+/**
+ * Responds to HTTP-01 challenge requests from the store's encoded key authorizations, which keeps the response
+ * path free of blocking, locking, and per-request encoding.
+ */
+@Component
 @Slf4j
 public class AcmeChallengeController {
 
     public static final String BASE_CHALLENGE_PATH = "/.well-known/acme-challenge";
+    /**
+     * Marks our own self-check requests so that they don't count as the issuer's validation request
+     */
+    public static final String SELF_CHECK_HEADER = "X-Kita-Self-Check";
 
-    private final Map<String/*token*/, PendingChallenge> pendingChallenges = Collections.synchronizedMap(new HashMap<>());
+    private static final Mono<ServerResponse> NOT_FOUND = ServerResponse.notFound().build();
+
+    private final ChallengeStore challengeStore;
+
+    public AcmeChallengeController(ChallengeStore challengeStore) {
+        this.challengeStore = challengeStore;
+    }
 
     public PreparedChallenge prepareForChallenge(String token, String keyAuthorization) {
         log.debug("Preparing for challenge of token={}", token);
-        final PendingChallenge pendingChallenge = PendingChallenge.builder()
-            .challengeCompleted(new CompletableFuture<>())
-            .keyAuthorization(keyAuthorization)
-            .build();
-        pendingChallenges.put(token, pendingChallenge);
+        final CompletableFuture<String> challengeCompleted = challengeStore.put(token, keyAuthorization);
         return PreparedChallenge.builder()
-            .challengeCompleted(pendingChallenge.challengeCompleted())
+            .challengeCompleted(challengeCompleted)
             .challengePath(challengePathForToken(token))
             .build();
     }
 
     public void removeChallenge(String token) {
         log.debug("Removing challenge for token={}", token);
-        pendingChallenges.remove(token);
+        challengeStore.remove(token);
     }
 
     protected String challengePathForToken(String token) {
         return BASE_CHALLENGE_PATH + "/" + token;
     }
 
-    @GetMapping(value = "{token}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    @ResponseBody
-    public String handleChallenge(@PathVariable String token) {
-        log.debug("Processing challenge request for token={}", token);
-        final PendingChallenge pendingChallenge = pendingChallenges.get(token);
-        if (pendingChallenge != null) {
-
-            pendingChallenge.challengeCompleted().complete(token);
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+            .GET(BASE_CHALLENGE_PATH + "/{token}", this::handleChallenge)
+            .build();
+    }
 
-            log.debug("Responding with key authorization for token={}", token);
-            return pendingChallenge.keyAuthorization();
+    public Mono<ServerResponse> handleChallenge(ServerRequest request) {
+        final String token = request.pathVariable("token");
+        final byte[] responseBody = challengeStore.responseBody(token);
+        // the issuer's request carries no trace context, so the token correlates it with the validation phase
+        ServerRequestObservationContext.findCurrent(request.exchange().getAttributes())
+            .ifPresent(context -> context
+                .addLowCardinalityKeyValue(KeyValue.of("kita.challenge", responseBody != null ? "known" : "unknown"))
+                .addHighCardinalityKeyValue(KeyValue.of("token", token))
+            );
+        if (responseBody == null) {
+            // probes of the well-known path are common, so keep this quiet
+            log.trace("Challenge for token={} did not exist", token);
+            return NOT_FOUND;
         }
-        else {
-            log.warn("Challenge for token={} did not exist", token);
-            throw new ChallengeNotPresent(token);
+
+        final boolean selfCheck = request.headers().firstHeader(SELF_CHECK_HEADER) != null;
+        log.debug("Responding with key authorization for token={} selfCheck={}", token, selfCheck);
+        if (!selfCheck) {
+            challengeStore.markServed(token);
         }
-    }
 
-    @Builder
-    private record PendingChallenge(
-        String keyAuthorization,
-        CompletableFuture<String> challengeCompleted
-    ) {}
+        return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .bodyValue(responseBody);
+    }
 
     @Builder
     public record PreparedChallenge(
@@ -0,0 +1,153 @@
+package app.controllers;
+
+import app.config.KubeConfig.KubernetesClusters;
+import app.services.ApplicationIngressesService;
+import app.services.CertificateMetrics;
+import app.services.IssuanceTracker;
+import app.services.KubernetesCluster;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the TLS secrets, the issuances in progress, the recent issuances, and the failing secrets from what is
+ * held in memory, so reads make no requests to the API server. Each section is paginated, such as
+ * {@code GET /actuator/certificates/history?page=1&size=20}.
+ * <p>
+ * Renewal of a secret can be requested with {@code POST /actuator/certificates} and a body such as
+ * {@code {"secret": "app-tls"}}, which reconciles its ingresses as usual, so the issuance waits its turn in the
+ * issuance scheduler.
+ */
+@Component
+@Endpoint(id = "certificates")
+public class CertificateStatusEndpoint {
+
+    public static final String SECRETS = "secrets";
+    public static final String IN_FLIGHT = "in-flight";
+    public static final String HISTORY = "history";
+    public static final String FAILURES = "failures";
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
+    private final KubernetesClusters kubernetesClusters;
+    private final IssuanceTracker issuanceTracker;
+
+    public CertificateStatusEndpoint(KubernetesClusters kubernetesClusters, IssuanceTracker issuanceTracker) {
+        this.kubernetesClusters = kubernetesClusters;
+        this.issuanceTracker = issuanceTracker;
+    }
+
+    /**
+     * @return the number of entries in each section
+     */
+    @ReadOperation
+    public Map<String, Integer> summary() {
+        return Map.of(
+            SECRETS, secrets().size(),
+            IN_FLIGHT, issuanceTracker.inFlight().size(),
+            HISTORY, issuanceTracker.history().size(),
+            FAILURES, issuanceTracker.failures().size()
+        );
+    }
+
+    /**
+     * @param page zero-based, defaults to the first
+     * @param size defaults to {@value #DEFAULT_PAGE_SIZE} and is at most {@value #MAX_PAGE_SIZE}
+     */
+    @ReadOperation
+    public Page<?> section(@Selector String section, @Nullable Integer page, @Nullable Integer size) {
+        final List<?> items = switch (section) {
+            case SECRETS -> secrets();
+            case IN_FLIGHT -> issuanceTracker.inFlight();
+            case HISTORY -> issuanceTracker.history();
+            case FAILURES -> issuanceTracker.failures();
+            default -> throw new InvalidEndpointRequestException("Unknown section " + section,
+                "Section must be one of " + List.of(SECRETS, IN_FLIGHT, HISTORY, FAILURES)
+            );
+        };
+        return Page.of(items, page != null ? page : 0, size != null ? size : DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @param cluster required when several clusters are served
+     */
+    @WriteOperation
+    public RenewalRequested renew(String secret, @Nullable String cluster) {
+        final List<Map.Entry<KubernetesCluster, ApplicationIngressesService>> matching =
+            kubernetesClusters.servicesOf(ApplicationIngressesService.class).entrySet().stream()
+                .filter(entry -> cluster == null || entry.getKey().name().equals(cluster))
+                .toList();
+        if (matching.size() != 1) {
+            throw new InvalidEndpointRequestException(
+                cluster != null ? "Unknown cluster " + cluster : "The cluster of the secret is required",
+                "Invalid cluster"
+            );
+        }
+
+        if (!matching.getFirst().getValue().requestRenewal(secret)) {
+            throw new InvalidEndpointRequestException("No ingress uses secret " + secret, "Unknown secret");
+        }
+        return new RenewalRequested(matching.getFirst().getKey().name(), secret);
+    }
+
+    private List<SecretStatus> secrets() {
+        return kubernetesClusters.servicesOf(CertificateMetrics.class).entrySet().stream()
+            .flatMap(entry -> entry.getValue().trackedSecrets().stream()
+                .map(tracked -> new SecretStatus(entry.getKey().name(), tracked.secret(), tracked.issuer(),
+                    tracked.notAfter(), tracked.renewAt()
+                ))
+            )
+            .sorted(Comparator.comparing(SecretStatus::renewAt))
+            .toList();
+    }
+
+    /**
+     * @param renewAt when the certificate is due for renewal, from the issuer's renewal information if provided
+     */
+    public record SecretStatus(
+        String cluster,
+        String secret,
+        String issuer,
+        Instant notAfter,
+        Instant renewAt
+    ) {
+
+    }
+
+    /**
+     * @param total the number of entries across all pages
+     */
+    public record Page<T>(
+        int page,
+        int size,
+        int total,
+        List<T> items
+    ) {
+
+        static <T> Page<T> of(List<T> all, int page, int size) {
+            if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+                throw new InvalidEndpointRequestException("Invalid page=%d size=%d".formatted(page, size),
+                    "Page must be at least 0 and size between 1 and " + MAX_PAGE_SIZE
+                );
+            }
+            final int from = (int) Math.min((long) page * size, all.size());
+            return new Page<>(page, size, all.size(), all.subList(from, Math.min(from + size, all.size())));
+        }
+    }
+
+    public record RenewalRequested(
+        String cluster,
+        String secret
+    ) {
+
+    }
+}
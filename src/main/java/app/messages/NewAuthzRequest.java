@@ -0,0 +1,14 @@
+package app.messages;
+
+import app.model.Identifier;
+import lombok.Builder;
+
+/**
+ * @see <a href="https://datatracker.ietf.org/doc/html/rfc8555#section-7.4.1">RFC 8555 Sec 7.4.1 Pre-authorization</a>
+ */
+@Builder
+public record NewAuthzRequest(
+    Identifier identifier
+) {
+
+}
@@ -7,12 +7,20 @@ import java.time.Instant;
 import java.util.List;
 import lombok.Builder;
 
+/**
+ * @param identifiers
+ * @param notBefore
+ * @param notAfter
+ * @param replaces the ARI certificate identifier of the certificate this order replaces as described in
+ *                 <a href="https://datatracker.ietf.org/doc/html/rfc9773#section-5">RFC 9773 Sec 5</a>
+ */
 @Builder
 @JsonInclude(Include.NON_NULL)
 public record OrderRequest(
     List<Identifier> identifiers,
     Instant notBefore,
-    Instant notAfter
+    Instant notAfter,
+    String replaces
 ) {
 
 }
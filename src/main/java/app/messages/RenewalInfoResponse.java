@@ -0,0 +1,22 @@
+package app.messages;
+
+import java.net.URI;
+import java.time.Instant;
+
+/**
+ * @param suggestedWindow the window within which the server suggests the certificate is renewed
+ * @param explanationURL  optional page explaining why the suggested window is unusual, such as a pending revocation
+ * @see <a href="https://datatracker.ietf.org/doc/html/rfc9773#section-4.2">RFC 9773 Sec 4.2</a>
+ */
+public record RenewalInfoResponse(
+    SuggestedWindow suggestedWindow,
+    URI explanationURL
+) {
+
+    public record SuggestedWindow(
+        Instant start,
+        Instant end
+    ) {
+
+    }
+}
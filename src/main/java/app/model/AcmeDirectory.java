@@ -1,6 +1,7 @@
 package app.model;
 
 import java.net.URI;
+import org.springframework.lang.Nullable;
 
 /**
  *
@@ -8,12 +9,17 @@ import java.net.URI;
  * @param newAccount
  * @param newOrder
  * @param newAuthz used for pre-authorization
+ * @param renewalInfo base URL of the
+ *                    <a href="https://datatracker.ietf.org/doc/html/rfc9773">ACME Renewal Information (ARI)</a>
+ *                    resource, if the server supports it
  */
 public record AcmeDirectory(
     URI newNonce,
     URI newAccount,
     URI newOrder,
-    URI newAuthz
+    URI newAuthz,
+    @Nullable
+    URI renewalInfo
 ) {
 
 }
@@ -22,4 +22,5 @@ public record Challenge(
 ) {
 
     public static final String TYPE_HTTP_01 = "http-01";
+    public static final String TYPE_DNS_01 = "dns-01";
 }
@@ -20,8 +20,12 @@ public class AcmeBaseRequestService {
 
     private final AcmeDirectoryService directoryService;
     private final WebClient webClient;
+    private final IssuanceObservations issuanceObservations;
+    private final IssuerResilience issuerResilience;
 
-    public AcmeBaseRequestService(WebClient.Builder webClientBuilder, AcmeDirectoryService directoryService) {
+    public AcmeBaseRequestService(WebClient.Builder webClientBuilder, AcmeDirectoryService directoryService,
+        IssuanceObservations issuanceObservations, IssuerResilience issuerResilience
+    ) {
         webClient = webClientBuilder
             .filter((request, next) -> {
                 log.debug("Starting {} {}", request.method(), request.url());
@@ -29,6 +33,8 @@ public class AcmeBaseRequestService {
             })
             .build();
         this.directoryService = directoryService;
+        this.issuanceObservations = issuanceObservations;
+        this.issuerResilience = issuerResilience;
     }
 
     public <T> Mono<ResponseEntity<T>> request(String issuerId, RSAKey jwk, @Nullable String kid, URI requestUrl,
@@ -36,8 +42,12 @@ public class AcmeBaseRequestService {
     ) {
         log.debug("Creating POST for issuerId={} to url={} payload={}", issuerId, requestUrl, payload);
 
-        return preEntityRequest(issuerId, jwk, kid, requestUrl, payload)
-            .toEntity(responseClass)
+        return issuanceObservations.observeAcmeRequest(issuerId, responseClass,
+                issuerResilience.decorate(issuerId,
+                    preEntityRequest(issuerId, jwk, kid, requestUrl, payload)
+                        .toEntity(responseClass)
+                )
+            )
             .doOnNext(directoryService.latchNonce(issuerId))
             .doOnNext(entity -> log.debug("Response status={} from url={} for issuerId={} body={}",
                 entity.getStatusCode(), requestUrl, issuerId, entity.getBody()
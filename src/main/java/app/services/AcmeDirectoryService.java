@@ -11,6 +11,7 @@ import java.util.Map.Entry;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -18,22 +19,51 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+/**
+ * Loads the issuers' directories when the application context starts rather than when it is created, so that a
+ * context refresh, such as the training run of the CDS archive, doesn't contact the issuers.
+ */
 @Service
 @Slf4j
-public class AcmeDirectoryService {
+public class AcmeDirectoryService implements SmartLifecycle {
     public static final String NONCE_HEADER = "Replay-Nonce";
+    /**
+     * Before the watches that initiate issuance, which start in the default phase
+     */
+    public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
 
     private final AppProperties appProperties;
-    private final Map<String /*issuer id*/, AcmeDirectory> directories;
+    private volatile Map<String /*issuer id*/, AcmeDirectory> directories = Map.of();
     private final Map<String/*issuerId*/, String> latchedNonces = Collections.synchronizedMap(new HashMap<>());
     private final WebClient webClient;
+    private volatile boolean running;
 
     public AcmeDirectoryService(WebClient.Builder webClientBuilder, AppProperties appProperties) {
         this.appProperties = appProperties;
         webClient = webClientBuilder.build();
+    }
+
+    @Override
+    public void start() {
         // NOTE pre-emptively load directories to perform basic issuer validation during startup
         directories = loadDirectories(appProperties.issuers());
         log.debug("Loaded directories: {}", directories);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
     }
 
     private Map<String, AcmeDirectory> loadDirectories(Map<String, Issuer> issuers) {
@@ -1,13 +1,18 @@
 package app.services;
 
 import app.model.Problem;
+import java.time.Duration;
 import lombok.ToString;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
 @ToString
 public class AcmeProblemException extends RuntimeException {
 
+    public static final String RATE_LIMITED = "urn:ietf:params:acme:error:rateLimited";
+
     private final Problem problem;
     private final WebClientResponseException clientException;
 
@@ -20,4 +25,26 @@ public class AcmeProblemException extends RuntimeException {
         this.clientException = clientException;
     }
 
+    public Problem getProblem() {
+        return problem;
+    }
+
+    public WebClientResponseException getClientException() {
+        return clientException;
+    }
+
+    public boolean isRateLimited() {
+        return problem != null && RATE_LIMITED.equals(problem.type());
+    }
+
+    /**
+     * @return the delay the issuer asked for before retrying, such as until a rate limit resets, if provided
+     */
+    @Nullable
+    public Duration getRetryAfter() {
+        return clientException != null ?
+            AcmeRenewalInfoService.parseRetryAfter(clientException.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))
+            : null;
+    }
+
 }
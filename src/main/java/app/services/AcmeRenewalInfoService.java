@@ -0,0 +1,253 @@
+package app.services;
+
+import app.config.AppProperties;
+import app.messages.RenewalInfoResponse;
+import app.messages.RenewalInfoResponse.SuggestedWindow;
+import java.net.URI;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Base64.Encoder;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Retrieves the CA's suggested renewal window for certificates as described in
+ * <a href="https://datatracker.ietf.org/doc/html/rfc9773">RFC 9773: ACME Renewal Information (ARI)</a>
+ */
+@Service
+@Slf4j
+public class AcmeRenewalInfoService {
+
+    private final AcmeDirectoryService directoryService;
+    private final AppProperties appProperties;
+    private final WebClient webClient;
+    private final Map<String/*issuerId + certId*/, CachedRenewalInfo> cache = new ConcurrentHashMap<>();
+
+    public AcmeRenewalInfoService(WebClient.Builder webClientBuilder,
+        AcmeDirectoryService directoryService,
+        AppProperties appProperties
+    ) {
+        this.directoryService = directoryService;
+        this.appProperties = appProperties;
+        webClient = webClientBuilder.build();
+    }
+
+    /**
+     * @return true if the issuer advertises the renewalInfo resource and its use is enabled
+     */
+    public boolean supports(String issuerId) {
+        if (!appProperties.renewalInfo().enabled()) {
+            return false;
+        }
+        try {
+            return directoryService.directoryFor(issuerId).renewalInfo() != null;
+        } catch (IllegalStateException e) {
+            // such as a secret issued by an issuer that is no longer configured
+            return false;
+        }
+    }
+
+    /**
+     * @return the certificate's ARI identifier, if the issuer supports ARI and the certificate carries an
+     * authority key identifier; otherwise null
+     */
+    @Nullable
+    String replacesIdentifier(String issuerId, CertificateValidity validity) {
+        return supports(issuerId) ? validity.renewalInfoId() : null;
+    }
+
+    /**
+     * Provides a renewal time randomly selected within the suggested window. The same time is reused until the
+     * window changes, and the window is only re-retrieved once the issuer's Retry-After has elapsed.
+     *
+     * @param certId the certificate's ARI identifier, such as recorded at issuance, if known
+     * @return the renewal time, or empty if the issuer doesn't support ARI, in which case the caller should fall
+     * back to its own renewal timing
+     */
+    public Mono<RenewalTime> renewalTime(String issuerId, @Nullable String certId) {
+        if (certId == null || !supports(issuerId)) {
+            return Mono.empty();
+        }
+
+        final String cacheKey = issuerId + "/" + certId;
+        final CachedRenewalInfo cached = cache.get(cacheKey);
+        if (cached != null && Instant.now().isBefore(cached.nextPoll())) {
+            return Mono.just(cached.renewalTime());
+        }
+
+        return retrieveRenewalInfo(issuerId, certId)
+            .map(entity -> {
+                final CachedRenewalInfo updated = evaluate(cached, entity);
+                cache.put(cacheKey, updated);
+                return updated.renewalTime();
+            })
+            .onErrorResume(throwable -> {
+                log.warn("Failed to retrieve renewal info for certId={} from issuer={}", certId, issuerId, throwable);
+                // keep using the previous suggestion, if any; otherwise fall back to the caller's timing
+                return cached != null ? Mono.just(cached.renewalTime()) : Mono.empty();
+            });
+    }
+
+    /**
+     * Drops cached renewal information for certificates that have been replaced.
+     */
+    public void forget(String issuerId, @Nullable String certId) {
+        if (certId != null) {
+            cache.remove(issuerId + "/" + certId);
+        }
+    }
+
+    private Mono<ResponseEntity<RenewalInfoResponse>> retrieveRenewalInfo(String issuerId, String certId) {
+        final URI renewalInfoBase = directoryService.directoryFor(issuerId).renewalInfo();
+        final URI renewalInfoUrl = URI.create(
+            Objects.requireNonNull(renewalInfoBase).toString().replaceAll("/+$", "") + "/" + certId
+        );
+        log.debug("Retrieving renewal info from url={} for issuer={}", renewalInfoUrl, issuerId);
+
+        return webClient.get()
+            .uri(renewalInfoUrl)
+            .accept(MediaType.APPLICATION_JSON)
+            .retrieve()
+            .toEntity(RenewalInfoResponse.class);
+    }
+
+    private CachedRenewalInfo evaluate(@Nullable CachedRenewalInfo previous, ResponseEntity<RenewalInfoResponse> entity) {
+        final RenewalInfoResponse body = entity.getBody();
+        if (body == null || body.suggestedWindow() == null
+            || body.suggestedWindow().start() == null || body.suggestedWindow().end() == null) {
+            throw new IllegalStateException("Renewal info response is missing suggestedWindow");
+        }
+        final SuggestedWindow window = body.suggestedWindow();
+        if (!window.end().isAfter(window.start())) {
+            throw new IllegalStateException("Renewal info suggested window is invalid: " + window);
+        }
+
+        final Instant now = Instant.now();
+        final Instant selected;
+        if (previous != null && previous.window().equals(window)) {
+            selected = previous.renewalTime().renewAt();
+        } else {
+            selected = selectWithin(window);
+            if (body.explanationURL() != null) {
+                log.info("Issuer suggested renewal window {} - {}, see {}", window.start(), window.end(),
+                    body.explanationURL()
+                );
+            }
+        }
+
+        final Instant nextPoll = now.plus(pollInterval(entity.getHeaders()));
+
+        return CachedRenewalInfo.builder()
+            .window(window)
+            .nextPoll(nextPoll)
+            .renewalTime(new RenewalTime(selected, nextPoll))
+            .build();
+    }
+
+    private static Instant selectWithin(SuggestedWindow window) {
+        final long windowMillis = Duration.between(window.start(), window.end()).toMillis();
+        return window.start().plusMillis(ThreadLocalRandom.current().nextLong(Math.max(1, windowMillis)));
+    }
+
+    private Duration pollInterval(HttpHeaders headers) {
+        final AppProperties.RenewalInfo config = appProperties.renewalInfo();
+        final Duration retryAfter = parseRetryAfter(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        if (retryAfter == null) {
+            return config.defaultPollInterval();
+        }
+        if (retryAfter.compareTo(config.minPollInterval()) < 0) {
+            return config.minPollInterval();
+        }
+        if (retryAfter.compareTo(config.maxPollInterval()) > 0) {
+            return config.maxPollInterval();
+        }
+        return retryAfter;
+    }
+
+    /**
+     * @param value either delay-seconds or an HTTP-date as described in
+     *              <a href="https://datatracker.ietf.org/doc/html/rfc9110#section-10.2.3">RFC 9110 Sec 10.2.3</a>
+     */
+    @Nullable
+    static Duration parseRetryAfter(@Nullable String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                return Duration.between(Instant.now(),
+                    ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+                );
+            } catch (DateTimeParseException ex) {
+                log.warn("Unable to parse Retry-After value={}", value);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @see <a href="https://datatracker.ietf.org/doc/html/rfc9773#section-4.1">RFC 9773 Sec 4.1</a>
+     * @throws IllegalArgumentException if the certificate does not include an authority key identifier
+     */
+    static String certIdentifier(X509Certificate cert) {
+        final byte[] akiExtension = cert.getExtensionValue(Extension.authorityKeyIdentifier.getId());
+        if (akiExtension == null) {
+            throw new IllegalArgumentException("Certificate is missing the authority key identifier extension");
+        }
+        final AuthorityKeyIdentifier aki = AuthorityKeyIdentifier.getInstance(
+            ASN1OctetString.getInstance(akiExtension).getOctets()
+        );
+        if (aki.getKeyIdentifierOctets() == null) {
+            throw new IllegalArgumentException("Certificate's authority key identifier is missing keyIdentifier");
+        }
+
+        final Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(aki.getKeyIdentifierOctets())
+            + "."
+            // BigInteger's two's-complement encoding matches the DER encoding of the serial without tag and length
+            + encoder.encodeToString(cert.getSerialNumber().toByteArray());
+    }
+
+    /**
+     * @param renewAt  the selected time to renew the certificate
+     * @param nextPoll when the renewal info should be re-checked since the window may change before renewAt,
+     *                 null when the renewal time is fixed
+     */
+    public record RenewalTime(
+        Instant renewAt,
+        @Nullable
+        Instant nextPoll
+    ) {
+
+    }
+
+    @Builder
+    private record CachedRenewalInfo(
+        SuggestedWindow window,
+        RenewalTime renewalTime,
+        Instant nextPoll
+    ) {
+
+    }
+}
@@ -3,6 +3,7 @@ package app.services;
 import java.net.URI;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
@@ -33,4 +34,15 @@ public class AcmeRequestService {
                     .mapNotNull(HttpEntity::getBody));
     }
 
+    /**
+     * Same as {@link #request(String, URI, Object, Class)}, but provides the response headers, such as the
+     * Location of a newly created resource.
+     */
+    @NonNull
+    public <T> Mono<ResponseEntity<T>> requestEntity(String issuerId, URI requestUrl, Object payload, Class<T> responseClass) {
+        return accountService.accountForIssuer(issuerId)
+            .flatMap(acmeAccount ->
+                baseRequestService.request(issuerId, acmeAccount.jwk(), acmeAccount.accountUri().toString(), requestUrl, payload, responseClass));
+    }
+
 }
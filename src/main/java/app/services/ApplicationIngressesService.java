@@ -1,6 +1,11 @@
 package app.services;
 
 import app.config.AppProperties;
+import app.config.AppProperties.SecretWatchMode;
+import app.services.AcmeRenewalInfoService.RenewalTime;
+import app.services.IssuanceTracker.IssuanceFailure;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
 import io.fabric8.kubernetes.api.model.networking.v1.IngressList;
@@ -9,12 +14,15 @@ import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.WatcherException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.util.io.pem.PemObject;
 import org.bouncycastle.util.io.pem.PemReader;
 import org.springframework.lang.NonNull;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.Nullable;
 import org.springframework.scheduling.TaskScheduler;
-import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -26,38 +34,113 @@ import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.Base64.Decoder;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
-@Service
+/**
+ * Watches the labelled ingresses and their TLS secrets, starting when the application context starts so that
+ * the issuers' directories and the solver informers are ready beforehand.
+ */
 @Slf4j
-public class ApplicationIngressesService implements Closeable {
+public class ApplicationIngressesService implements SmartLifecycle, Closeable {
 
+    private final KubernetesCluster cluster;
     private final KubernetesClient k8s;
     private final TaskScheduler taskScheduler;
     private final CertificateProcessingService certificateProcessingService;
+    private final IssuanceScheduler issuanceScheduler;
+    private final IssuanceTracker issuanceTracker;
+    private final PersistentIssuanceFailures persistentIssuanceFailures;
+    private final IssuerResilience issuerResilience;
+    private final AcmeRenewalInfoService renewalInfoService;
+    private final PreAuthorizationService preAuthorizationService;
+    private final PersistentSolverIngresses persistentSolverIngresses;
     private final AppProperties appProperties;
+    private final KubernetesMetrics kubernetesMetrics;
+    private final IssuanceObservations issuanceObservations;
+    private final CertificateMetrics certificateMetrics;
+    private final ObjectMapper objectMapper;
     private final Set<String/*ingress name*/> activeIngressReconciles = Collections.synchronizedSet(new HashSet<>());
     private final Map<String/*secretName*/, ScheduledFuture<?>> scheduledRenewals = new ConcurrentHashMap<>();
-    private Watch ingressWatches;
-    private Watch tlsSecretWatches;
-
-    public ApplicationIngressesService(KubernetesClient k8s,
+    private final Map<String/*secretName*/, ScheduledFuture<?>> scheduledPreAuthorizations = new ConcurrentHashMap<>();
+    private final Map<String/*secretName*/, String/*content hash*/> checkedContentHashes = new ConcurrentHashMap<>();
+    private final Set<String/*secretName*/> requestedRenewals = ConcurrentHashMap.newKeySet();
+    @Nullable
+    private volatile Watch ingressWatches;
+    @Nullable
+    private volatile Watch tlsSecretWatches;
+
+    public ApplicationIngressesService(KubernetesCluster cluster,
         TaskScheduler taskScheduler,
         CertificateProcessingService certificateProcessingService,
-        AppProperties appProperties
+        IssuanceScheduler issuanceScheduler,
+        IssuanceTracker issuanceTracker,
+        PersistentIssuanceFailures persistentIssuanceFailures,
+        IssuerResilience issuerResilience,
+        AcmeRenewalInfoService renewalInfoService,
+        PreAuthorizationService preAuthorizationService,
+        PersistentSolverIngresses persistentSolverIngresses,
+        AppProperties appProperties,
+        KubernetesMetrics kubernetesMetrics,
+        IssuanceObservations issuanceObservations,
+        CertificateMetrics certificateMetrics,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry
     ) {
-        this.k8s = k8s;
+        this.cluster = cluster;
+        this.k8s = cluster.client();
         this.taskScheduler = taskScheduler;
         this.certificateProcessingService = certificateProcessingService;
+        this.issuanceScheduler = issuanceScheduler;
+        this.issuanceTracker = issuanceTracker;
+        this.persistentIssuanceFailures = persistentIssuanceFailures;
+        this.issuerResilience = issuerResilience;
+        this.renewalInfoService = renewalInfoService;
+        this.preAuthorizationService = preAuthorizationService;
+        this.persistentSolverIngresses = persistentSolverIngresses;
         this.appProperties = appProperties;
+        this.kubernetesMetrics = kubernetesMetrics;
+        this.issuanceObservations = issuanceObservations;
+        this.certificateMetrics = certificateMetrics;
+        this.objectMapper = objectMapper;
+
+        Gauge.builder("kita.reconcile.ingresses", activeIngressReconciles, Set::size)
+            .description("Ingresses currently being reconciled")
+            .tags(cluster.tags())
+            .register(meterRegistry);
+        Gauge.builder("kita.renewal.scheduled", scheduledRenewals, Map::size)
+            .description("TLS secrets with a scheduled renewal check")
+            .tags(cluster.tags())
+            .register(meterRegistry);
+        Gauge.builder("kita.renewal.overdue", scheduledRenewals, ApplicationIngressesService::countOverdue)
+            .description("Scheduled renewal checks that are past due, which indicates a backlog")
+            .tags(cluster.tags())
+            .register(meterRegistry);
+
+        // off the thread of the request that closed the circuit, since reconciling lists ingresses
+        issuerResilience.onRecovery(issuerId ->
+            taskScheduler.schedule(() -> reconcileIssuerIngresses(issuerId), Instant.now())
+        );
+    }
+
+    @Override
+    public void start() {
+        ingressWatches = setupIngressWatch();
+        tlsSecretWatches = setupTlsSecretWatch();
+    }
 
-        this.ingressWatches = setupIngressWatch();
-        this.tlsSecretWatches = setupTlsSecretWatch();
+    @Override
+    public void stop() {
+        close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return ingressWatches != null;
     }
 
     private Watch setupIngressWatch() {
@@ -73,12 +156,15 @@ public class ApplicationIngressesService implements Closeable {
                     log.debug("Observed event for ingress {}: {}", ingressName, action);
 
                     switch (action) {
-                        case ADDED, MODIFIED -> reconcileIngress(ingress)
-                            .subscribe(secret -> {
-                            }, throwable ->
-                                log.error("Issue while reconciling ingress={}", ingressName)
-                            )
-                        ;
+                        case ADDED, MODIFIED -> {
+                            persistentSolverIngresses.register(ingress);
+                            reconcileIngress(ingress)
+                                .subscribe(secret -> {
+                                }, throwable ->
+                                    log.error("Issue while reconciling ingress={}", ingressName, throwable)
+                                );
+                        }
+                        case DELETED -> persistentSolverIngresses.unregister(ingress);
                     }
                 }
 
@@ -91,6 +177,11 @@ public class ApplicationIngressesService implements Closeable {
     }
 
     private Watch setupTlsSecretWatch() {
+        if (appProperties.secretWatchMode() == SecretWatchMode.METADATA_ONLY) {
+            log.debug("Setting up TLS secret metadata watch");
+            return new TlsSecretMetadataWatch(k8s, objectMapper, Metadata.ISSUER_LABEL, this::onTlsSecretMetadata);
+        }
+
         log.debug("Setting up TLS secret watch");
         return k8s.secrets()
             .withLabel(Metadata.ISSUER_LABEL)
@@ -101,20 +192,16 @@ public class ApplicationIngressesService implements Closeable {
                     log.debug("Observed event for secret {}: {}", secretName, action);
 
                     switch (action) {
-                        case DELETED -> {
-                            scheduledRenewals.remove(secretName);
-                            checkCertRenewalsForSecret(secretName);
-                        }
+                        case DELETED -> onTlsSecretDeleted(secretName);
                         case ADDED, MODIFIED -> {
-                            // NOTE: this will also take of scheduling renewal of
-                            // TLS secrets we create/update
-
-                            if (needsRenewal(resource)) {
-                                // Would seem weird to get here if it's a new TLS secret;
-                                // however, maybe a secret was created externally with
-                                // an old cert.
-
-                                checkCertRenewalsForSecret(secretName);
+                            // hashed from the data rather than trusting the annotation, in case the
+                            // certificate was replaced by something else
+                            final String contentHash = certContentHash(resource);
+                            if (!isCheckedContent(secretName, contentHash)) {
+                                final CertificateValidity validity = certificateValidity(resource, contentHash);
+                                if (validity != null) {
+                                    checkTlsSecret(resource.getMetadata(), validity);
+                                }
                             }
                         }
                     }
@@ -128,15 +215,121 @@ public class ApplicationIngressesService implements Closeable {
             });
     }
 
+    /**
+     * Decides from the content hash annotation whether the certificate changed, which is the case for every
+     * secret on the first event. The renewal check then uses the validity annotations, and only fetches the
+     * secret's data when those are missing or inconsistent.
+     */
+    private void onTlsSecretMetadata(Watcher.Action action, ObjectMeta metadata) {
+        final String secretName = metadata.getName();
+        log.debug("Observed event for secret metadata {}: {}", secretName, action);
+
+        switch (action) {
+            case DELETED -> onTlsSecretDeleted(secretName);
+            case ADDED, MODIFIED -> {
+                final String contentHash = nullSafe(metadata.getAnnotations()).get(Metadata.CONTENT_HASH_ANNOTATION);
+                if (isCheckedContent(secretName, contentHash)) {
+                    return;
+                }
+                final CertificateValidity annotated = CertificateValidity.fromAnnotations(metadata.getAnnotations(), null);
+                if (annotated != null) {
+                    checkTlsSecret(metadata, annotated);
+                    return;
+                }
+                final Secret secret = kubernetesMetrics.record(KubernetesMetrics.VERB_GET,
+                    KubernetesMetrics.RESOURCE_SECRETS, () -> k8s.secrets()
+                        .withName(secretName)
+                        .get()
+                );
+                if (secret != null) {
+                    // the annotations may be missing or stale, such as on a secret written by something else
+                    final CertificateValidity validity = certificateValidity(secret, certContentHash(secret));
+                    if (validity != null) {
+                        checkTlsSecret(secret.getMetadata(), validity);
+                    }
+                }
+            }
+        }
+    }
+
+    private void onTlsSecretDeleted(String secretName) {
+        checkedContentHashes.remove(secretName);
+        certificateMetrics.forget(secretName);
+        cancelScheduled(scheduledRenewals, secretName);
+        cancelScheduled(scheduledPreAuthorizations, secretName);
+        checkCertRenewalsForSecret(secretName);
+    }
+
+    /**
+     * @return true if the certificate with the given hash was already checked and its renewal is scheduled, so
+     * the event only changed metadata, such as by another tool
+     */
+    private boolean isCheckedContent(String secretName, @Nullable String contentHash) {
+        if (contentHash != null && scheduledRenewals.containsKey(secretName)
+            && contentHash.equals(checkedContentHashes.get(secretName))) {
+            log.trace("Certificate of secret={} is unchanged", secretName);
+            return true;
+        }
+        return false;
+    }
+
+    private void checkTlsSecret(ObjectMeta metadata, CertificateValidity validity) {
+        final String secretName = metadata.getName();
+        // NOTE: this will also take of scheduling renewal of
+        // TLS secrets we create/update
+        needsRenewal(metadata, validity)
+            .subscribe(due -> {
+                if (due) {
+                    // Would seem weird to get here if it's a new TLS secret;
+                    // however, maybe a secret was created externally with
+                    // an old cert.
+
+                    checkCertRenewalsForSecret(secretName);
+                }
+                else {
+                    checkedContentHashes.put(secretName, validity.chainFingerprint());
+                }
+            }, throwable ->
+                log.error("Failed to check renewal of secret={}", secretName, throwable)
+            );
+    }
+
+    /**
+     * Renews the certificate of the secret whether or not it is due, by way of the usual reconcile of the
+     * ingresses that use it
+     *
+     * @return false if no ingress uses the secret
+     */
+    public boolean requestRenewal(String secretName) {
+        final List<Ingress> ingresses = ingressesUsingSecret(secretName);
+        if (ingresses.isEmpty()) {
+            return false;
+        }
+        log.info("Renewal of TLS secret {} was requested", secretName);
+        requestedRenewals.add(secretName);
+        reconcileIngressesUsingSecret(secretName, ingresses);
+        return true;
+    }
+
     public void checkCertRenewalsForSecret(@NonNull String secretName) {
-        final IngressList ingresses = k8s.network().v1().ingresses()
-            .withLabel(Metadata.ISSUER_LABEL)
-            .list();
+        reconcileIngressesUsingSecret(secretName, ingressesUsingSecret(secretName));
+    }
 
-        Flux.fromStream(ingresses.getItems().stream()
-                .filter(ingress -> ingress.getSpec().getTls().stream()
-                    .anyMatch(ingressTLS -> Objects.equals(ingressTLS.getSecretName(), secretName)))
-            )
+    private List<Ingress> ingressesUsingSecret(String secretName) {
+        final IngressList ingresses = kubernetesMetrics.record(KubernetesMetrics.VERB_LIST,
+            KubernetesMetrics.RESOURCE_INGRESSES, () ->
+                k8s.network().v1().ingresses()
+                    .withLabel(Metadata.ISSUER_LABEL)
+                    .list()
+        );
+        return ingresses.getItems().stream()
+            .filter(ingress -> ingress.getSpec().getTls().stream()
+                .anyMatch(ingressTLS -> Objects.equals(ingressTLS.getSecretName(), secretName)))
+            .toList();
+    }
+
+    private void reconcileIngressesUsingSecret(String secretName, List<Ingress> ingresses) {
+        Flux.fromIterable(ingresses)
             .flatMap(this::reconcileIngress)
             .switchIfEmpty(Mono.error(MissingResourceException::new))
             .subscribe(secret -> {
@@ -149,7 +342,29 @@ public class ApplicationIngressesService implements Closeable {
                     }
                 }
             );
+    }
 
+    /**
+     * Reconciles the ingresses that request the given issuer, which moves their certificates back from its fallback
+     * issuer once its circuit closed again
+     */
+    private void reconcileIssuerIngresses(String issuerId) {
+        final IngressList ingresses = kubernetesMetrics.record(KubernetesMetrics.VERB_LIST,
+            KubernetesMetrics.RESOURCE_INGRESSES, () ->
+                k8s.network().v1().ingresses()
+                    .withLabel(Metadata.ISSUER_LABEL)
+                    .withLabelNotIn(Metadata.ROLE_LABEL, appProperties.solverRole())
+                    .list()
+        );
+
+        log.info("Reconciling ingresses of issuer={} since its circuit closed", issuerId);
+        Flux.fromIterable(ingresses.getItems())
+            .filter(ingress -> issuerId.equals(requestedIssuerId(ingress)))
+            .flatMap(this::reconcileIngress)
+            .subscribe(secret -> {
+                }, throwable ->
+                    log.error("Failed to reconcile ingresses of issuer={}", issuerId, throwable)
+            );
     }
 
     private Flux<Secret> reconcileIngress(Ingress ingress) {
@@ -159,8 +374,9 @@ public class ApplicationIngressesService implements Closeable {
             return Flux.empty();
         }
 
-        return Flux.fromIterable(ingress.getSpec().getTls())
-            .flatMap(tls -> processTlsSecret(ingress, tls))
+        return issuanceObservations.observeReconcile(name, Flux.fromIterable(ingress.getSpec().getTls())
+                .flatMap(tls -> processTlsSecret(ingress, tls))
+            )
             .doFinally(signalType -> {
                 log.debug("Finished reconciling ingress={}", name);
                 activeIngressReconciles.remove(name);
@@ -168,36 +384,142 @@ public class ApplicationIngressesService implements Closeable {
     }
 
     private Mono<Secret> processTlsSecret(Ingress ingress, IngressTLS tls) {
-        final Secret tlsSecret = k8s.secrets()
-            .withName(tls.getSecretName())
-            .get();
-
-        final String requestedIssuerId =
-            appProperties.overrideIssuer() != null ?
-                appProperties.overrideIssuer()
-                : ingress.getMetadata().getLabels().get(Metadata.ISSUER_LABEL);
+        final Secret tlsSecret = kubernetesMetrics.record(KubernetesMetrics.VERB_GET, KubernetesMetrics.RESOURCE_SECRETS,
+            () -> k8s.secrets()
+                .withName(tls.getSecretName())
+                .get()
+        );
+
+        final String requestedIssuerId = requestedIssuerId(ingress);
+        final boolean renewalRequested = requestedRenewals.remove(tls.getSecretName());
+
+        final IssuanceFailure failure = persistentIssuanceFailures.failureOf(ingress, tls.getSecretName(), tlsSecret);
+        // a requested renewal is retried regardless
+        if (failure != null && !renewalRequested && failure.isBackingOff(Instant.now())) {
+            log.debug("Backing off issuance of secret={} after {} failed attempts with problem={}",
+                tls.getSecretName(), failure.attempts(), failure.problem()
+            );
+            scheduleRenewal(tls.getSecretName(), failure.retryAt());
+            return Mono.empty();
+        }
 
         if (tlsSecret == null) {
-            return initiateCertCreation(ingress, tls, requestedIssuerId);
+            return initiateCertCreation(ingress, tls, issuerResilience.selectIssuer(requestedIssuerId, null), null, null);
         } else {
+            final CertificateValidity validity = certificateValidity(tlsSecret, certContentHash(tlsSecret));
             final String tlsSecretIssuer = nullSafe(tlsSecret.getMetadata().getLabels()).get(Metadata.ISSUER_LABEL);
             if (!Objects.equals(tlsSecretIssuer, requestedIssuerId)
-                || needsRenewal(tlsSecret)) {
-                return initiateCertCreation(ingress, tls, requestedIssuerId);
-            } else {
+                // a certificate from the fallback issuer is kept until the requested issuer recovers
+                && !issuerResilience.isStandingIn(requestedIssuerId, tlsSecretIssuer)) {
+                final Instant notAfter = validity != null ? validity.notAfter() : null;
+                return initiateCertCreation(ingress, tls, issuerResilience.selectIssuer(requestedIssuerId, notAfter),
+                    null, notAfter
+                );
+            }
+
+            if (validity == null) {
                 return Mono.empty();
             }
+            final Mono<Boolean> due = renewalRequested ?
+                Mono.just(true) : needsRenewal(tlsSecret.getMetadata(), validity);
+            return due
+                .filter(isDue -> isDue)
+                .flatMap(isDue -> {
+                    final String issuerId = issuerResilience.selectIssuer(requestedIssuerId, validity.notAfter());
+                    // only the issuer of the certificate knows it by its renewal identifier
+                    final String replaces = issuerId.equals(tlsSecretIssuer) ?
+                        renewalInfoService.replacesIdentifier(tlsSecretIssuer, validity) : null;
+                    return initiateCertCreation(ingress, tls, issuerId, replaces, validity.notAfter())
+                        .doOnSuccess(secret -> renewalInfoService.forget(tlsSecretIssuer, validity.renewalInfoId()));
+                });
         }
     }
 
+    private String requestedIssuerId(Ingress ingress) {
+        return appProperties.overrideIssuer() != null ?
+            appProperties.overrideIssuer()
+            : nullSafe(ingress.getMetadata().getLabels()).get(Metadata.ISSUER_LABEL);
+    }
+
     /**
      * NOTE: if the secret is not due yet for renewal, a task will be scheduled to try at recommended renewal time.
      *
-     * @param tlsSecret the TLS secret to check
+     * @param metadata of the TLS secret to check
      * @return true if due for renewal and cert creation should be initiated, false if not and a task was scheduled by this method
      */
-    private boolean needsRenewal(Secret tlsSecret) {
-        final String certContentEncoded = tlsSecret.getData().get("tls.crt");
+    private Mono<Boolean> needsRenewal(ObjectMeta metadata, CertificateValidity validity) {
+        final String secretName = metadata.getName();
+        final String issuerId = nullSafe(metadata.getLabels()).get(Metadata.ISSUER_LABEL);
+        final Instant notAfter = validity.notAfter();
+
+        final Mono<RenewalTime> fixedFraction = Mono.fromSupplier(() -> new RenewalTime(validity.renewAt(), null));
+
+        final Mono<RenewalTime> renewalTime = issuerId != null ?
+            renewalInfoService.renewalTime(issuerId, validity.renewalInfoId())
+                .switchIfEmpty(fixedFraction)
+            : fixedFraction;
+
+        return renewalTime
+            .doOnNext(time -> certificateMetrics.track(secretName, issuerId, notAfter, time.renewAt()))
+            .map(time -> {
+                if (Instant.now().isAfter(time.renewAt())) {
+                    log.info("TLS secret {} is due to be renewed at {} since its lifetime is {} days and expires at {}",
+                        secretName, time.renewAt(), validity.lifetime().toDays(), notAfter
+                    );
+                    return true;
+                } else {
+                    // re-check sooner when the issuer's suggested window may change before then
+                    scheduleRenewal(secretName,
+                        time.nextPoll() != null && time.nextPoll().isBefore(time.renewAt()) ?
+                            time.nextPoll() : time.renewAt()
+                    );
+                    if (appProperties.preAuthorization().enabled() && !appProperties.dryRun()) {
+                        schedulePreAuthorization(metadata, time.renewAt());
+                    }
+                    return false;
+                }
+            });
+    }
+
+    /**
+     * Uses the validity annotations recorded at issuance, as long as they describe the secret's certificate chain,
+     * and otherwise parses the certificate.
+     *
+     * @param contentHash of the secret's certificate chain
+     * @return null if the secret has no parsable certificate
+     */
+    @Nullable
+    private static CertificateValidity certificateValidity(Secret tlsSecret, @Nullable String contentHash) {
+        final CertificateValidity annotated = CertificateValidity.fromAnnotations(
+            tlsSecret.getMetadata().getAnnotations(), contentHash
+        );
+        if (annotated != null) {
+            return annotated;
+        }
+
+        log.debug("Parsing certificate of secret={} since its validity annotations are missing or stale",
+            tlsSecret.getMetadata().getName()
+        );
+        final X509Certificate cert = parseCertificate(tlsSecret);
+        return cert != null && contentHash != null ? CertificateValidity.of(cert, contentHash) : null;
+    }
+
+    @Nullable
+    private static String certContentHash(Secret tlsSecret) {
+        final String certContentEncoded = nullSafe(tlsSecret.getData()).get("tls.crt");
+        return certContentEncoded != null ?
+            CertificateProcessingService.contentHash(
+                new String(Base64.getDecoder().decode(certContentEncoded), StandardCharsets.UTF_8)
+            )
+            : null;
+    }
+
+    /**
+     * Package-private so that the parse can be benchmarked
+     */
+    @Nullable
+    static X509Certificate parseCertificate(Secret tlsSecret) {
+        final String certContentEncoded = nullSafe(tlsSecret.getData()).get("tls.crt");
         final String secretName = tlsSecret.getMetadata().getName();
 
         if (certContentEncoded != null) {
@@ -209,26 +531,8 @@ public class ApplicationIngressesService implements Closeable {
                 final PemObject pemObject = pemReader.readPemObject();
 
                 CertificateFactory cf = CertificateFactory.getInstance("X.509");
-                final X509Certificate cert = (X509Certificate) cf.generateCertificate(
+                return (X509Certificate) cf.generateCertificate(
                     new ByteArrayInputStream(pemObject.getContent()));
-                final Instant notAfter = cert.getNotAfter().toInstant();
-                final Instant notBefore = cert.getNotBefore().toInstant();
-                final Duration lifetime = Duration.between(notBefore,
-                    // since it sets expiration just before and between's argument is exclusive
-                    notAfter.plusSeconds(1)
-                );
-
-                // LetsEncrypt recommends renewing when there is a 3rd of lifetime left
-                // https://letsencrypt.org/docs/integration-guide/#when-to-renew
-                final Instant dueForRenewal = notAfter.minus(lifetime.dividedBy(3));
-                if (Instant.now().isAfter(dueForRenewal)) {
-                    log.info("TLS secret {} is due to be renewed since its lifetime is {} days and expires at {}",
-                        secretName, lifetime.toDays(), notAfter
-                    );
-                    return true;
-                } else {
-                    scheduleRenewal(secretName, dueForRenewal);
-                }
             } catch (IOException e) {
                 log.error("Failed to read/close PEM reader", e);
             } catch (CertificateException e) {
@@ -237,7 +541,7 @@ public class ApplicationIngressesService implements Closeable {
         } else {
             log.error("TLS secret {} is missing tls.crt data", secretName);
         }
-        return false;
+        return null;
     }
 
     private void scheduleRenewal(String secretName, Instant dueForRenewal) {
@@ -245,7 +549,7 @@ public class ApplicationIngressesService implements Closeable {
             if (oldScheduled != null) {
                 oldScheduled.cancel(false);
             }
-            log.info("Scheduling renewal of TLS secret {} at {}", secretName, dueForRenewal);
+            log.info("Scheduling renewal check of TLS secret {} at {}", secretName, dueForRenewal);
             return taskScheduler.schedule(() ->
                     checkCertRenewalsForSecret(secretName),
                 dueForRenewal.plusSeconds(1)
@@ -253,7 +557,67 @@ public class ApplicationIngressesService implements Closeable {
         });
     }
 
-    private Mono<Secret> initiateCertCreation(Ingress ingress, IngressTLS tls, String requestedIssuerId) {
+    private void schedulePreAuthorization(ObjectMeta metadata, Instant renewAt) {
+        final String secretName = metadata.getName();
+        final Map<String, String> labels = nullSafe(metadata.getLabels());
+        final String issuerId = labels.get(Metadata.ISSUER_LABEL);
+        final String ingressName = labels.get(Metadata.FOR_INGRESS_LABEL);
+        final String hosts = nullSafe(metadata.getAnnotations()).get(Metadata.HOST_ANNOTATION);
+        if (issuerId == null || ingressName == null || hosts == null) {
+            log.debug("Skipping pre-authorization of TLS secret {} since it wasn't created by us", secretName);
+            return;
+        }
+
+        final Instant now = Instant.now();
+        final Instant preAuthorizeAt = renewAt.minus(appProperties.preAuthorization().leadTime());
+        scheduledPreAuthorizations.compute(secretName, (name, oldScheduled) -> {
+            if (oldScheduled != null) {
+                oldScheduled.cancel(false);
+            }
+            log.debug("Scheduling pre-authorization of hosts={} for TLS secret {} at {}", hosts, secretName, preAuthorizeAt);
+            return taskScheduler.schedule(() ->
+                    preAuthorize(ingressName, issuerId, List.of(hosts.split(",")), renewAt),
+                preAuthorizeAt.isAfter(now) ? preAuthorizeAt : now
+            );
+        });
+    }
+
+    private void preAuthorize(String ingressName, String issuerId, List<String> hosts, Instant renewAt) {
+        final Ingress ingress = kubernetesMetrics.record(KubernetesMetrics.VERB_GET, KubernetesMetrics.RESOURCE_INGRESSES,
+            () -> k8s.network().v1().ingresses()
+                .withName(ingressName)
+                .get()
+        );
+        if (ingress == null) {
+            log.warn("Skipping pre-authorization of hosts={} since ingress={} no longer exists", hosts, ingressName);
+            return;
+        }
+
+        preAuthorizationService.preAuthorize(issuerId, ingress, hosts, renewAt)
+            .subscribe(null, throwable ->
+                log.warn("Pre-authorization of hosts={} failed, so renewal will authorize them instead", hosts, throwable)
+            );
+    }
+
+    private static long countOverdue(Map<String, ScheduledFuture<?>> scheduled) {
+        return scheduled.values().stream()
+            .filter(future -> !future.isDone() && future.getDelay(TimeUnit.MILLISECONDS) < 0)
+            .count();
+    }
+
+    private static void cancelScheduled(Map<String, ScheduledFuture<?>> scheduled, String secretName) {
+        final ScheduledFuture<?> future = scheduled.remove(secretName);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * @param notAfter expiration of the current certificate, if any, which orders the issuance when it has to wait
+     */
+    private Mono<Secret> initiateCertCreation(Ingress ingress, IngressTLS tls, String issuerId,
+        @Nullable String replaces, @Nullable Instant notAfter
+    ) {
         final String ingressName = ingress.getMetadata().getName();
         if (appProperties.dryRun()) {
             log.info("Skipping cert creation of {} for ingress {} since dry-run is enabled",
@@ -262,26 +626,48 @@ public class ApplicationIngressesService implements Closeable {
             return Mono.empty();
         }
 
-        return certificateProcessingService.initiateCertCreation(ingress, tls, requestedIssuerId)
-            .doOnSuccess(secret ->
+        final boolean failedBefore = issuanceTracker.failureOf(cluster.name(), tls.getSecretName()) != null;
+        return issuanceTracker.track(cluster.name(), issuerId, tls.getSecretName(),
+                issuanceScheduler.schedule(issuerId, tls.getSecretName(), notAfter, () ->
+                    certificateProcessingService.initiateCertCreation(ingress, tls, issuerId, replaces)
+                )
+            )
+            .doOnSuccess(secret -> {
                 log.info("Cert creation complete for tls entry with secret={} hosts={} in ingress={}",
                     secret.getMetadata().getName(), tls.getHosts(), ingressName
-                ))
-            .doOnError(throwable ->
+                );
+                if (failedBefore) {
+                    persistentIssuanceFailures.clear(ingress, tls.getSecretName());
+                }
+            })
+            .doOnError(throwable -> {
                 log.warn("Problem while processing cert creation for ingress={} with tlsSecret={}",
                     ingressName, tls.getSecretName(), throwable
-                )
-            );
+                );
+                persistentIssuanceFailures.save(ingress, tls.getSecretName());
+                final IssuanceFailure failure = issuanceTracker.failureOf(cluster.name(), tls.getSecretName());
+                if (failure != null) {
+                    scheduleRenewal(tls.getSecretName(), failure.retryAt());
+                }
+            });
     }
 
     @NonNull
-    private Map<String, String> nullSafe(Map<String, String> value) {
+    private static Map<String, String> nullSafe(Map<String, String> value) {
         return value != null ? value : Map.of();
     }
 
     @Override
     public void close() {
-        ingressWatches.close();
-        tlsSecretWatches.close();
+        final Watch ingressWatch = ingressWatches;
+        if (ingressWatch != null) {
+            ingressWatch.close();
+            ingressWatches = null;
+        }
+        final Watch tlsSecretWatch = tlsSecretWatches;
+        if (tlsSecretWatch != null) {
+            tlsSecretWatch.close();
+            tlsSecretWatches = null;
+        }
     }
 }
@@ -0,0 +1,289 @@
+package app.services;
+
+import app.config.AppProperties;
+import app.config.AppProperties.SolverMode;
+import app.config.Issuer;
+import app.config.Issuer.ChallengeType;
+import app.messages.AuthzResponse;
+import app.model.Challenge;
+import app.services.SolverService.SolverChallenge;
+import io.micrometer.common.KeyValues;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import java.net.URI;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Completes the challenges of authorizations, whether they came from an order or pre-authorization.
+ */
+@Slf4j
+public class AuthorizationService {
+
+    public static final String STATUS_VALID = "valid";
+
+    private final AppProperties appProperties;
+    private final AcmeAccountService accountService;
+    private final AcmeRequestService requestService;
+    private final SolverService solverService;
+    private final SelfCheckService selfCheckService;
+    private final DnsSolverService dnsSolverService;
+    private final IssuanceObservations issuanceObservations;
+
+    public AuthorizationService(AppProperties appProperties,
+        AcmeAccountService accountService,
+        AcmeRequestService requestService,
+        SolverService solverService,
+        SelfCheckService selfCheckService,
+        DnsSolverService dnsSolverService,
+        IssuanceObservations issuanceObservations
+    ) {
+        this.appProperties = appProperties;
+        this.accountService = accountService;
+        this.requestService = requestService;
+        this.solverService = solverService;
+        this.selfCheckService = selfCheckService;
+        this.dnsSolverService = dnsSolverService;
+        this.issuanceObservations = issuanceObservations;
+    }
+
+    public Mono<AuthzResponse> loadAuthorization(String issuerId, URI authzUri) {
+        return requestService.request(issuerId, authzUri, "", AuthzResponse.class);
+    }
+
+    /**
+     * Loads and completes the given authorizations using the issuer's challenge type and, for HTTP-01, the
+     * configured {@link SolverMode}
+     */
+    public Flux<AuthzResponse> processAuthorizations(String issuerId, List<URI> authzUris, Ingress appIngress) {
+        return Flux.fromIterable(authzUris)
+            .flatMap(authzUri -> loadAuthorization(issuerId, authzUri)
+                .map(authz -> new Authorization(authzUri, authz))
+            )
+            .collectList()
+            .flatMapMany(authorizations -> processLoadedAuthorizations(issuerId, authorizations, appIngress));
+    }
+
+    /**
+     * Completes already loaded authorizations using the issuer's challenge type and, for HTTP-01, the
+     * configured {@link SolverMode}
+     */
+    public Flux<AuthzResponse> processLoadedAuthorizations(String issuerId, List<Authorization> authorizations,
+        Ingress appIngress
+    ) {
+        if (challengeType(issuerId) == ChallengeType.DNS_01) {
+            return processWithDnsSolver(issuerId, authorizations);
+        }
+        if (appProperties.solverMode() == SolverMode.PER_ORDER) {
+            return processWithOrderSolver(issuerId, authorizations, appIngress);
+        }
+        return Flux.fromIterable(authorizations)
+            .flatMap(authorization ->
+                processAuthorization(issuerId, authorization.uri(), authorization.response(), appIngress)
+            );
+    }
+
+    private Flux<AuthzResponse> processWithOrderSolver(String issuerId, List<Authorization> authorizations,
+        Ingress appIngress
+    ) {
+        final List<Authorization> pending = authorizations.stream()
+            .filter(authorization -> !Objects.equals(authorization.response().status(), STATUS_VALID))
+            .toList();
+        final Flux<AuthzResponse> alreadyValid = Flux.fromIterable(authorizations)
+            .filter(authorization -> Objects.equals(authorization.response().status(), STATUS_VALID))
+            .map(Authorization::response);
+        if (pending.isEmpty()) {
+            return alreadyValid;
+        }
+
+        return Flux.fromIterable(pending)
+            .flatMapSequential(authorization -> {
+                final Challenge httpChallenge = httpChallenge(authorization.response());
+                return accountService.buildKeyAuthorization(issuerId, httpChallenge.token())
+                    .map(keyAuthorization -> SolverChallenge.builder()
+                        .host(authorization.response().identifier().value())
+                        .token(httpChallenge.token())
+                        .keyAuthorization(keyAuthorization)
+                        .build());
+            })
+            .collectList()
+            .flatMapMany(solverChallenges ->
+                solverService.setupOrderSolverIngress(issuerId, appIngress.getSpec().getIngressClassName(), solverChallenges)
+                    .flatMapMany(ingressSetup ->
+                        Flux.fromIterable(pending)
+                            .zipWithIterable(solverChallenges)
+                            .flatMap(pendingAndSolver -> {
+                                final Authorization authorization = pendingAndSolver.getT1();
+                                final SolverChallenge solverChallenge = pendingAndSolver.getT2();
+                                return requestChallengeValidation(issuerId, authorization.uri(),
+                                    httpChallenge(authorization.response()), solverChallenge,
+                                    ingressSetup.challengesCompleted().get(solverChallenge.token())
+                                );
+                            })
+                            // wait for all authorizations before removing the shared ingress
+                            .doFinally(signalType -> solverService.removeSolverIngress(
+                                ingressSetup.ingress(), ingressSetup.challengesCompleted().keySet()
+                            ))
+                    )
+            )
+            .concatWith(alreadyValid);
+    }
+
+    /**
+     * Publishes the TXT records of all pending authorizations together, so that propagation is awaited once,
+     * and then requests validation of each.
+     */
+    private Flux<AuthzResponse> processWithDnsSolver(String issuerId, List<Authorization> authorizations) {
+        final List<Authorization> pending = authorizations.stream()
+            .filter(authorization -> !Objects.equals(authorization.response().status(), STATUS_VALID))
+            .toList();
+        final Flux<AuthzResponse> alreadyValid = Flux.fromIterable(authorizations)
+            .filter(authorization -> Objects.equals(authorization.response().status(), STATUS_VALID))
+            .map(Authorization::response);
+        if (pending.isEmpty()) {
+            return alreadyValid;
+        }
+
+        return Flux.fromIterable(pending)
+            .flatMapSequential(authorization -> {
+                final Challenge dnsChallenge = challengeOfType(authorization.response(), Challenge.TYPE_DNS_01);
+                return accountService.buildKeyAuthorization(issuerId, dnsChallenge.token())
+                    .map(keyAuthorization -> DnsSolverService.buildTxtRecord(
+                        authorization.response().identifier().value(), keyAuthorization
+                    ));
+            })
+            .collectList()
+            .flatMapMany(records -> Flux.usingWhen(
+                Mono.just(records),
+                presented -> issuanceObservations.observePhase(IssuanceObservations.PHASE_DNS_PROPAGATION, issuerId,
+                        dnsSolverService.present(issuerId, presented)
+                    )
+                    .thenMany(Flux.fromIterable(pending))
+                    .flatMap(authorization -> issuanceObservations.observePhase(IssuanceObservations.PHASE_VALIDATION, issuerId,
+                        KeyValues.of("host", authorization.response().identifier().value()),
+                        requestService.request(issuerId,
+                                challengeOfType(authorization.response(), Challenge.TYPE_DNS_01).url(), "{}",
+                                Challenge.class
+                            )
+                            .doOnNext(resp -> log.debug("Challenge validation requested, resp={}", resp))
+                            .then(pollUntilAuthFinalized(issuerId, authorization.uri()))
+                    )),
+                // the records may have been partially published even if presenting failed
+                presented -> dnsSolverService.cleanUp(issuerId, presented)
+            ))
+            .concatWith(alreadyValid);
+    }
+
+    /**
+     * @return the finalized authorization, which is returned as-is if it was already valid, such as from an
+     * earlier pre-authorization
+     */
+    public Mono<AuthzResponse> processAuthorization(String issuerId, URI authzUri, AuthzResponse auth,
+        Ingress appIngress
+    ) {
+        if (Objects.equals(auth.status(), STATUS_VALID)) {
+            log.debug("Authorization={} for identifier={} is already valid until {}",
+                authzUri, auth.identifier().value(), auth.expires()
+            );
+            return Mono.just(auth);
+        }
+        if (challengeType(issuerId) == ChallengeType.DNS_01) {
+            return processWithDnsSolver(issuerId, List.of(new Authorization(authzUri, auth))).next();
+        }
+
+        final Challenge httpChallenge = httpChallenge(auth);
+        final String token = httpChallenge.token();
+
+        return accountService.buildKeyAuthorization(issuerId, token)
+            .map(keyAuthorization -> SolverChallenge.builder()
+                .host(auth.identifier().value())
+                .token(token)
+                .keyAuthorization(keyAuthorization)
+                .build())
+            .flatMap(solverChallenge ->
+                solverService.setupSolverIngress(issuerId, appIngress.getSpec().getIngressClassName(), solverChallenge.host(),
+                        token, solverChallenge.keyAuthorization()
+                    )
+                    .flatMap(ingressSetup ->
+                        requestChallengeValidation(issuerId, authzUri, httpChallenge, solverChallenge,
+                            ingressSetup.challengeCompleted()
+                        )
+                            .doOnTerminate(() -> solverService.removeSolverIngress(ingressSetup.ingress(), token))
+                    )
+            );
+    }
+
+    private Mono<AuthzResponse> requestChallengeValidation(String issuerId, URI authzUri, Challenge challenge,
+        SolverChallenge solverChallenge, CompletableFuture<?> challengeCompleted
+    ) {
+        return issuanceObservations.observePhase(IssuanceObservations.PHASE_SELF_CHECK, issuerId,
+                selfCheckService.verify(solverChallenge)
+            )
+            // tell server we're ready for the challenge to be validated
+            .then(issuanceObservations.observePhase(IssuanceObservations.PHASE_VALIDATION, issuerId,
+                // the token correlates this with the inbound challenge request, which the issuer makes without trace context
+                KeyValues.of("host", solverChallenge.host(), "token", solverChallenge.token()),
+                requestService.request(issuerId, challenge.url(), "{}", Challenge.class)
+                    .flatMap(resp -> {
+                        log.debug("Challenge validation requested, resp={}", resp);
+                        return Mono.fromFuture(challengeCompleted);
+                    })
+                    .doOnNext(o -> log.debug("Challenge response completed"))
+                    .flatMap(o -> issuanceObservations.event(IssuanceObservations.CHALLENGE_SERVED)
+                        .then(pollUntilAuthFinalized(issuerId, authzUri))
+                    )
+            ));
+    }
+
+    private static Challenge httpChallenge(AuthzResponse auth) {
+        return challengeOfType(auth, Challenge.TYPE_HTTP_01);
+    }
+
+    private static Challenge challengeOfType(AuthzResponse auth, String type) {
+        return auth.challenges().stream()
+            .filter(challenge -> challenge.type().equals(type))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException(
+                "Unable to find " + type + " in challenges: " + auth.challenges()));
+    }
+
+    private ChallengeType challengeType(String issuerId) {
+        final Issuer issuer = appProperties.issuers().get(issuerId);
+        return issuer != null ? issuer.challengeType() : ChallengeType.HTTP_01;
+    }
+
+    private Mono<AuthzResponse> pollUntilAuthFinalized(String issuerId, URI authzUri) {
+        return loadAuthorization(issuerId, authzUri)
+            .flatMap(resp -> {
+                final String status = resp.status();
+                log.debug("Polling for auth={}, got status={}", authzUri, status);
+                if (Objects.equals(status, "pending")) {
+                    // not an actual error, but drives the retry cycle
+                    return Mono.error(AuthNotFinalized::new);
+                } else {
+                    return Mono.just(resp);
+                }
+            })
+            .retryWhen(Retry.fixedDelay(
+                        appProperties.authFinalize().maxAttempts(),
+                        appProperties.authFinalize().pollDelay()
+                    )
+                    .filter(AuthNotFinalized.class::isInstance)
+            );
+    }
+
+    /**
+     * @param uri      the authorization resource
+     * @param response the loaded state of the authorization
+     */
+    public record Authorization(
+        URI uri,
+        AuthzResponse response
+    ) {
+
+    }
+}
@@ -0,0 +1,196 @@
+package app.services;
+
+import app.config.AppProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.MultiGauge.Row;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+import org.springframework.lang.Nullable;
+
+/**
+ * Publishes the expiry and renewal timing of TLS secrets from what was recorded when their certificates were last
+ * parsed, so a scrape only does arithmetic on cached instants and never re-reads secrets.
+ * <p>
+ * By default, the gauges are tagged by issuer and report the soonest expiry and renewal and the largest renewal lag
+ * across that issuer's certificates. Tagging by secret is enabled with
+ * {@code kita.certificate-metrics.secret-tags}, which creates a time series per TLS secret.
+ */
+public class CertificateMetrics {
+
+    private static final ToDoubleFunction<DoubleStream> SOONEST = values -> values.min().orElse(Double.NaN);
+    private static final ToDoubleFunction<DoubleStream> LARGEST = values -> values.max().orElse(Double.NaN);
+
+    private final IssuanceObservations issuanceObservations;
+    private final Tags clusterTags;
+    private final boolean secretTags;
+    private final Map<String/*secretName*/, TrackedCertificate> tracked = new ConcurrentHashMap<>();
+    private final MultiGauge expiry;
+    private final MultiGauge renewal;
+    private final MultiGauge renewalLag;
+    private final MultiGauge count;
+
+    public CertificateMetrics(MeterRegistry meterRegistry,
+        KubernetesCluster cluster,
+        AppProperties appProperties,
+        IssuanceObservations issuanceObservations
+    ) {
+        this.issuanceObservations = issuanceObservations;
+        this.clusterTags = cluster.tags();
+        this.secretTags = appProperties.certificateMetrics().secretTags();
+
+        expiry = MultiGauge.builder("kita.certificate.expiry")
+            .description("Time until the certificate expires")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        renewal = MultiGauge.builder("kita.certificate.renewal")
+            .description("Time until the certificate is due for renewal, negative when overdue")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        renewalLag = MultiGauge.builder("kita.certificate.renewal.lag")
+            .description("Time since the certificate was due for renewal, zero when not yet due")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        count = MultiGauge.builder("kita.certificate.count")
+            .description("TLS secrets with a parsed certificate")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Records the timing of a certificate that was just parsed or issued
+     */
+    public void track(String secretName, @Nullable String issuerId, Instant notAfter, Instant renewAt) {
+        final TrackedCertificate certificate = new TrackedCertificate(
+            issuanceObservations.issuerTag(issuerId), notAfter, renewAt
+        );
+        final TrackedCertificate previous = tracked.put(secretName, certificate);
+        // values are looked up at scrape time, so rows only change along with the set of tags
+        if (previous == null || !Objects.equals(previous.issuer(), certificate.issuer())) {
+            registerRows();
+        }
+    }
+
+    /**
+     * @return the tracked certificates, the soonest to be due for renewal first
+     */
+    public List<TrackedSecret> trackedSecrets() {
+        return tracked.entrySet().stream()
+            .map(entry -> new TrackedSecret(entry.getKey(), entry.getValue().issuer(),
+                entry.getValue().notAfter(), entry.getValue().renewAt()
+            ))
+            .sorted(Comparator.comparing(TrackedSecret::renewAt))
+            .toList();
+    }
+
+    public void forget(String secretName) {
+        if (tracked.remove(secretName) != null) {
+            registerRows();
+        }
+    }
+
+    private synchronized void registerRows() {
+        final Set<String> issuers = tracked.values().stream()
+            .map(TrackedCertificate::issuer)
+            .collect(Collectors.toSet());
+
+        if (secretTags) {
+            final List<String> secretNames = List.copyOf(tracked.keySet());
+            expiry.register(secretRows(secretNames, TrackedCertificate::secondsUntilExpiry), true);
+            renewal.register(secretRows(secretNames, TrackedCertificate::secondsUntilRenewal), true);
+            renewalLag.register(secretRows(secretNames, TrackedCertificate::secondsPastRenewal), true);
+        } else {
+            expiry.register(issuerRows(issuers, TrackedCertificate::secondsUntilExpiry, SOONEST), true);
+            renewal.register(issuerRows(issuers, TrackedCertificate::secondsUntilRenewal, SOONEST), true);
+            renewalLag.register(issuerRows(issuers, TrackedCertificate::secondsPastRenewal, LARGEST), true);
+        }
+        count.register(
+            issuers.stream()
+                .<Row<?>>map(issuer -> Row.of(clusterTags.and("issuer", issuer), this,
+                    metrics -> metrics.certificatesOf(issuer).count()
+                ))
+                .toList(),
+            true
+        );
+    }
+
+    private List<Row<?>> secretRows(List<String> secretNames, ToDoubleFunction<TrackedCertificate> value) {
+        return secretNames.stream()
+            .<Row<?>>map(secretName -> {
+                final TrackedCertificate certificate = tracked.get(secretName);
+                return Row.of(
+                    clusterTags.and("issuer",
+                        certificate != null ? certificate.issuer() : IssuanceObservations.UNKNOWN_ISSUER,
+                        "secret", secretName
+                    ),
+                    this,
+                    metrics -> {
+                        final TrackedCertificate current = metrics.tracked.get(secretName);
+                        return current != null ? value.applyAsDouble(current) : Double.NaN;
+                    }
+                );
+            })
+            .toList();
+    }
+
+    /**
+     * @param aggregate reduces the values of the issuer's certificates to the one reported
+     */
+    private List<Row<?>> issuerRows(Set<String> issuers,
+        ToDoubleFunction<TrackedCertificate> value,
+        ToDoubleFunction<DoubleStream> aggregate
+    ) {
+        return issuers.stream()
+            .<Row<?>>map(issuer -> Row.of(clusterTags.and("issuer", issuer), this,
+                metrics -> aggregate.applyAsDouble(metrics.certificatesOf(issuer).mapToDouble(value))
+            ))
+            .toList();
+    }
+
+    private Stream<TrackedCertificate> certificatesOf(String issuer) {
+        return tracked.values().stream()
+            .filter(certificate -> certificate.issuer().equals(issuer));
+    }
+
+    /**
+     * @param issuer  the issuer tag, which is "unknown" for unconfigured issuers
+     * @param renewAt when the certificate is due for renewal
+     */
+    public record TrackedSecret(
+        String secret,
+        String issuer,
+        Instant notAfter,
+        Instant renewAt
+    ) {
+
+    }
+
+    private record TrackedCertificate(
+        String issuer,
+        Instant notAfter,
+        Instant renewAt
+    ) {
+
+        double secondsUntilExpiry() {
+            return Duration.between(Instant.now(), notAfter).toSeconds();
+        }
+
+        double secondsUntilRenewal() {
+            return Duration.between(Instant.now(), renewAt).toSeconds();
+        }
+
+        double secondsPastRenewal() {
+            return Math.max(0, -secondsUntilRenewal());
+        }
+    }
+}
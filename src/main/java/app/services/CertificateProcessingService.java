@@ -6,7 +6,6 @@ import app.messages.CsrRequest;
 import app.messages.FinalizeResponse;
 import app.messages.OrderRequest;
 import app.messages.OrderResponse;
-import app.model.Challenge;
 import app.model.Identifier;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.api.model.Secret;
@@ -14,16 +13,25 @@ import io.fabric8.kubernetes.api.model.SecretBuilder;
 import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
 import io.fabric8.kubernetes.api.model.networking.v1.IngressTLS;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
 import java.util.Base64;
 import java.util.Base64.Encoder;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -42,38 +50,42 @@ import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
 import org.bouncycastle.util.io.pem.PemObject;
 import org.bouncycastle.util.io.pem.PemWriter;
-import org.springframework.stereotype.Service;
+import org.springframework.lang.Nullable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
 
-@Service
 @Slf4j
 public class CertificateProcessingService {
 
     private final KubernetesClient k8s;
     private final AppProperties appProperties;
     private final AcmeDirectoryService directoryService;
-    private final AcmeAccountService accountService;
     private final AcmeRequestService requestService;
-    private final SolverService solverService;
+    private final AuthorizationService authorizationService;
+    private final IssuanceObservations issuanceObservations;
+    private final KubernetesMetrics kubernetesMetrics;
 
-    public CertificateProcessingService(KubernetesClient k8s,
+    public CertificateProcessingService(KubernetesCluster cluster,
         AppProperties appProperties,
         AcmeDirectoryService directoryService,
-        AcmeAccountService accountService,
         AcmeRequestService requestService,
-        SolverService solverService
+        AuthorizationService authorizationService,
+        IssuanceObservations issuanceObservations,
+        KubernetesMetrics kubernetesMetrics
     ) {
-        this.k8s = k8s;
+        this.k8s = cluster.client();
         this.appProperties = appProperties;
         this.directoryService = directoryService;
-        this.accountService = accountService;
         this.requestService = requestService;
-        this.solverService = solverService;
+        this.authorizationService = authorizationService;
+        this.issuanceObservations = issuanceObservations;
+        this.kubernetesMetrics = kubernetesMetrics;
     }
 
-    public Mono<Secret> initiateCertCreation(Ingress ingress, IngressTLS tls, String issuerId) {
+    /**
+     * @param replaces the ARI identifier of the certificate being renewed, if known
+     */
+    public Mono<Secret> initiateCertCreation(Ingress ingress, IngressTLS tls, String issuerId, @Nullable String replaces) {
         // https://datatracker.ietf.org/doc/html/rfc8555#section-4
         final List<String> hosts = tls.getHosts();
 
@@ -87,10 +99,8 @@ public class CertificateProcessingService {
             .map(Identifier::dns)
             .toList();
 
-        return requestService.request(issuerId, directoryService.directoryFor(issuerId).newOrder(),
-                OrderRequest.builder()
-                    .identifiers(identifiers)
-                    .build(), OrderResponse.class
+        return issuanceObservations.observeIssuance(issuerId, secretName, issuanceObservations.observePhase(
+                IssuanceObservations.PHASE_ORDER, issuerId, createOrder(issuerId, identifiers, replaces)
             )
             .flatMap(orderResponse -> {
 
@@ -100,28 +110,98 @@ public class CertificateProcessingService {
                 client must complete before the server will issue the certificate
                 (see Section 7.5)
                  */
-                return Flux.fromIterable(orderResponse.authorizations())
-                    .flatMap(authzUri -> loadAuthorization(issuerId, authzUri)
-                        .flatMap(authz -> processAuthorization(issuerId, authzUri, authz, ingress))
-                    )
+                return authorizeOrder(issuerId, orderResponse, ingress)
                     .then(
-                        submitCsr(issuerId, identifiers, orderResponse.finalizeUri())
+                        issuanceObservations.observePhase(IssuanceObservations.PHASE_FINALIZE, issuerId,
+                                Mono.defer(() -> submitCsr(issuerId, identifiers, orderResponse.finalizeUri()))
+                            )
                             .flatMap(csrResult ->
-                                downloadCertChain(issuerId, csrResult.certificateUri())
+                                issuanceObservations.observePhase(IssuanceObservations.PHASE_DOWNLOAD, issuerId,
+                                        downloadCertChain(issuerId, csrResult.certificateUri())
+                                    )
                                     .map(certChain -> buildCertAndKey(certChain, csrResult.privateKey()))
                             )
-                            .map(certAndKey -> storeSecret(issuerId, hosts, certAndKey.certChain(), certAndKey.privateKey(),
-                                secretName, ingressName
+                            .flatMap(certAndKey -> issuanceObservations.observePhase(IssuanceObservations.PHASE_STORE, issuerId,
+                                Mono.fromCallable(() -> storeSecret(issuerId, hosts, certAndKey.certChain(),
+                                    certAndKey.privateKey(), secretName, ingressName
+                                ))
                             ))
                     );
-            });
+            }));
+
+    }
 
+    /**
+     * Completes the authorizations of an order for the given hosts without finalizing it, which leaves valid
+     * authorizations that the issuer can reuse for a later order.
+     */
+    public Flux<AuthzResponse> authorizeHosts(String issuerId, Ingress ingress, List<String> hosts) {
+        log.debug("Authorizing hosts={} with issuer={} via order", hosts, issuerId);
+        return issuanceObservations.observePhase(IssuanceObservations.PHASE_ORDER, issuerId,
+                createOrder(issuerId, hosts.stream().map(Identifier::dns).toList(), null)
+            )
+            .flatMapMany(orderResponse -> authorizeOrder(issuerId, orderResponse, ingress));
+    }
+
+    private Flux<AuthzResponse> authorizeOrder(String issuerId, OrderResponse orderResponse, Ingress ingress) {
+        return issuanceObservations.observePhase(IssuanceObservations.PHASE_AUTHORIZE, issuerId,
+            authorizationService.processAuthorizations(issuerId, orderResponse.authorizations(), ingress)
+        );
+    }
+
+    /**
+     * @param replaces the ARI identifier of the certificate being renewed, if known, which is dropped and the order
+     *                 retried if the issuer rejects it for a reason other than a rate limit
+     */
+    Mono<OrderResponse> createOrder(String issuerId, List<Identifier> identifiers, @Nullable String replaces) {
+        return requestService.request(issuerId, directoryService.directoryFor(issuerId).newOrder(),
+                OrderRequest.builder()
+                    .identifiers(identifiers)
+                    .replaces(replaces)
+                    .build(), OrderResponse.class
+            )
+            .onErrorResume(
+                throwable -> replaces != null
+                    && throwable instanceof AcmeProblemException e
+                    && !Objects.equals(e.getProblem().type(), AcmeProblemException.RATE_LIMITED),
+                throwable -> {
+                    // such as alreadyReplaced, when a previous renewal of the same cert didn't get stored
+                    log.warn("Issuer={} rejected order replacing certId={}, retrying as a new order: {}",
+                        issuerId, replaces, throwable.getMessage()
+                    );
+                    return createOrder(issuerId, identifiers, null);
+                }
+            );
     }
 
     private Secret storeSecret(String issuerId, List<String> hosts, String certChain, String privateKey, String secretName,
         String ingressName
     ) {
+        final String contentHash = contentHash(certChain);
+        final Secret existing = kubernetesMetrics.record(KubernetesMetrics.VERB_GET, KubernetesMetrics.RESOURCE_SECRETS,
+            () -> k8s.secrets()
+                .withName(secretName)
+                .get()
+        );
+        if (existing != null && existing.getMetadata().getAnnotations() != null
+            && Objects.equals(existing.getMetadata().getAnnotations().get(Metadata.CONTENT_HASH_ANNOTATION), contentHash)
+            && existing.getMetadata().getLabels() != null
+            && Objects.equals(existing.getMetadata().getLabels().get(Metadata.ISSUER_LABEL), issuerId)) {
+            log.debug("Secret={} already holds the certificate chain, skipping write", secretName);
+            return existing;
+        }
+
+        final Map<String, String> annotations = new HashMap<>();
+        annotations.put(Metadata.HOST_ANNOTATION, String.join(",", hosts));
+        annotations.put(Metadata.CONTENT_HASH_ANNOTATION, contentHash);
+        final CertificateValidity validity = validityOf(certChain, contentHash);
+        if (validity != null) {
+            annotations.putAll(validity.toAnnotations());
+        }
+
         final Encoder b64Encoder = Base64.getEncoder();
+        // only the fields set here are owned by kita's field manager, so labels and annotations added by
+        // other tools are retained
         final Secret secret = new SecretBuilder()
             .withMetadata(new ObjectMetaBuilder()
                 .withName(secretName)
@@ -129,9 +209,7 @@ public class CertificateProcessingService {
                     Metadata.ISSUER_LABEL, issuerId,
                     Metadata.FOR_INGRESS_LABEL, ingressName
                 ))
-                .withAnnotations(Map.of(
-                    Metadata.HOST_ANNOTATION, String.join(",", hosts)
-                ))
+                .withAnnotations(annotations)
                 .build()
             )
             .withType("kubernetes.io/tls")
@@ -140,11 +218,67 @@ public class CertificateProcessingService {
                 "tls.key", b64Encoder.encodeToString(privateKey.getBytes(StandardCharsets.UTF_8))
             ))
             .build();
-        log.debug("Stored secret={}", secret.getMetadata().getName());
 
-        return k8s.secrets()
-            .resource(secret)
-            .createOrReplace();
+        final Secret stored = applySecret(secret);
+        log.debug("Stored secret={}", secretName);
+        return stored;
+    }
+
+    /**
+     * A conflict means another field manager owns some of the fields, such as secrets written by
+     * {@code createOrReplace} before kita used server-side apply. The data of the TLS secret belongs to kita, so
+     * the apply is retried taking ownership of those fields.
+     */
+    private Secret applySecret(Secret secret) {
+        try {
+            return kubernetesMetrics.record(KubernetesMetrics.VERB_APPLY, KubernetesMetrics.RESOURCE_SECRETS, () ->
+                k8s.secrets()
+                    .resource(secret)
+                    .fieldManager(Metadata.FIELD_MANAGER)
+                    .serverSideApply()
+            );
+        } catch (KubernetesClientException e) {
+            if (e.getCode() != HttpURLConnection.HTTP_CONFLICT) {
+                throw e;
+            }
+            log.info("Taking ownership of conflicting fields of secret={}: {}",
+                secret.getMetadata().getName(), e.getMessage()
+            );
+            return kubernetesMetrics.record(KubernetesMetrics.VERB_APPLY, KubernetesMetrics.RESOURCE_SECRETS, () ->
+                k8s.secrets()
+                    .resource(secret)
+                    .fieldManager(Metadata.FIELD_MANAGER)
+                    .forceConflicts()
+                    .serverSideApply()
+            );
+        }
+    }
+
+    /**
+     * @return the validity of the chain's leaf certificate, or null if it can't be parsed, in which case renewal
+     * checks will parse the stored certificate instead
+     */
+    @Nullable
+    private static CertificateValidity validityOf(String certChain, String contentHash) {
+        try {
+            // reads the first certificate of the PEM chain, which is the leaf
+            final X509Certificate leaf = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(certChain.getBytes(StandardCharsets.UTF_8)));
+            return CertificateValidity.of(leaf, contentHash);
+        } catch (CertificateException e) {
+            log.warn("Unable to parse issued certificate to record its validity", e);
+            return null;
+        }
+    }
+
+    static String contentHash(String certChain) {
+        try {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(certChain.getBytes(StandardCharsets.UTF_8))
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     private CertAndKey buildCertAndKey(String certChain, PrivateKey privateKey) {
@@ -178,16 +312,7 @@ public class CertificateProcessingService {
 
         final KeyPair keyPair = generateCertKeyPair();
 
-        final JcaPKCS10CertificationRequestBuilder csrBuilder = new JcaPKCS10CertificationRequestBuilder(
-            new X500Principal("CN=" + identifiers.get(0).value()), keyPair.getPublic());
-        final Extensions extensions = createExtensions(identifiers);
-        csrBuilder.addAttribute(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest, extensions);
-
-        final ContentSigner signer = createContentSigner(keyPair);
-
-        final PKCS10CertificationRequest csr = csrBuilder.build(signer);
-
-        final String encodedCsr = encodeCsr(csr);
+        final String encodedCsr = encodeCsr(buildCsr(identifiers, keyPair));
 
         return requestService.request(issuerId, finalizeUri,
                 CsrRequest.builder()
@@ -211,7 +336,22 @@ public class CertificateProcessingService {
 
     }
 
-    private String encodeCsr(PKCS10CertificationRequest csr) {
+    /*
+     * The CSR steps are static and package-private so that they can be benchmarked
+     */
+
+    static PKCS10CertificationRequest buildCsr(List<Identifier> identifiers, KeyPair keyPair) {
+        final JcaPKCS10CertificationRequestBuilder csrBuilder = new JcaPKCS10CertificationRequestBuilder(
+            new X500Principal("CN=" + identifiers.get(0).value()), keyPair.getPublic());
+        final Extensions extensions = createExtensions(identifiers);
+        csrBuilder.addAttribute(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest, extensions);
+
+        final ContentSigner signer = createContentSigner(keyPair);
+
+        return csrBuilder.build(signer);
+    }
+
+    static String encodeCsr(PKCS10CertificationRequest csr) {
         final Encoder b64encoder = Base64.getUrlEncoder();
         final String encodedCsr;
         try {
@@ -222,7 +362,7 @@ public class CertificateProcessingService {
         return encodedCsr;
     }
 
-    private ContentSigner createContentSigner(KeyPair keyPair) {
+    static ContentSigner createContentSigner(KeyPair keyPair) {
         final JcaContentSignerBuilder signerBuilder = new JcaContentSignerBuilder("SHA256withRSA");
         final ContentSigner signer;
         try {
@@ -233,7 +373,7 @@ public class CertificateProcessingService {
         return signer;
     }
 
-    private Extensions createExtensions(List<Identifier> identifiers) {
+    static Extensions createExtensions(List<Identifier> identifiers) {
         final ExtensionsGenerator extensionsGenerator;
         try {
             extensionsGenerator = new ExtensionsGenerator();
@@ -248,7 +388,7 @@ public class CertificateProcessingService {
         return extensionsGenerator.generate();
     }
 
-    private KeyPair generateCertKeyPair() {
+    static KeyPair generateCertKeyPair() {
         final KeyPairGenerator keyPairGenerator;
         try {
             keyPairGenerator = KeyPairGenerator.getInstance("RSA");
@@ -259,56 +399,4 @@ public class CertificateProcessingService {
         return keyPairGenerator.generateKeyPair();
     }
 
-    private Mono<AuthzResponse> loadAuthorization(String issuerId, URI authzUri) {
-        return requestService.request(issuerId, authzUri, "", AuthzResponse.class);
-    }
-
-    private Mono<AuthzResponse> processAuthorization(String issuerId, URI authzUri, AuthzResponse auth,
-        Ingress appIngress
-    ) {
-        final Challenge httpChallenge = auth.challenges().stream()
-            .filter(challenge -> challenge.type().equals(Challenge.TYPE_HTTP_01))
-            .findFirst()
-            .orElseThrow(() -> new IllegalStateException(
-                "Unable to find " + Challenge.TYPE_HTTP_01 + " in challenges: " + auth.challenges()));
-        final String token = httpChallenge.token();
-
-        return accountService.buildKeyAuthorization(issuerId, token)
-            .flatMap(keyAuthorization ->
-                solverService.setupSolverIngress(issuerId, appIngress.getSpec().getIngressClassName(), auth.identifier().value(),
-                    token, keyAuthorization
-                ))
-            .flatMap(ingressSetup ->
-                // tell server we're ready for the challenge to be validated
-                requestService.request(issuerId, httpChallenge.url(), "{}", Challenge.class)
-                    .flatMap(resp -> {
-                        log.debug("Challenge validation requested, resp={}", resp);
-                        return Mono.fromFuture(ingressSetup.challengeCompleted());
-                    })
-                    .doOnNext(o -> log.debug("Challenge response completed"))
-                    .flatMap(o -> pollUntilAuthFinalized(issuerId, authzUri))
-                    .doOnTerminate(() -> solverService.removeSolverIngress(ingressSetup.ingress(), token))
-            );
-    }
-
-    private Mono<AuthzResponse> pollUntilAuthFinalized(String issuerId, URI authzUri) {
-        return loadAuthorization(issuerId, authzUri)
-            .flatMap(resp -> {
-                final String status = resp.status();
-                log.debug("Polling for auth={}, got status={}", authzUri, status);
-                if (Objects.equals(status, "pending")) {
-                    // not an actual error, but drives the retry cycle
-                    return Mono.error(AuthNotFinalized::new);
-                } else {
-                    return Mono.just(resp);
-                }
-            })
-            .retryWhen(Retry.fixedDelay(
-                        appProperties.authFinalize().maxAttempts(),
-                        appProperties.authFinalize().pollDelay()
-                    )
-                    .filter(AuthNotFinalized.class::isInstance)
-            );
-    }
-
 }
@@ -0,0 +1,160 @@
+package app.services;
+
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+/**
+ * What renewal needs to know about the certificate held by a TLS secret. It is recorded as annotations when the
+ * secret is stored, so that later renewal checks can avoid decoding and parsing the certificate chain.
+ *
+ * @param notBefore        of the leaf certificate
+ * @param notAfter         of the leaf certificate
+ * @param renewAt          the fixed fraction renewal time, used when the issuer provides no renewal information
+ * @param keyAlgorithm     such as RSA-2048 or EC-256
+ * @param serial           of the leaf certificate in hex
+ * @param renewalInfoId    the ARI identifier of the leaf certificate, if it carries an authority key identifier
+ * @param chainFingerprint the content hash of the certificate chain
+ */
+@Builder
+@Slf4j
+record CertificateValidity(
+    Instant notBefore,
+    Instant notAfter,
+    Instant renewAt,
+    @Nullable String keyAlgorithm,
+    @Nullable String serial,
+    @Nullable String renewalInfoId,
+    String chainFingerprint
+) {
+
+    static CertificateValidity of(X509Certificate cert, String chainFingerprint) {
+        final Instant notBefore = cert.getNotBefore().toInstant();
+        final Instant notAfter = cert.getNotAfter().toInstant();
+
+        String renewalInfoId;
+        try {
+            renewalInfoId = AcmeRenewalInfoService.certIdentifier(cert);
+        } catch (IllegalArgumentException e) {
+            log.debug("Unable to compute ARI identifier of cert serial={}", cert.getSerialNumber(), e);
+            renewalInfoId = null;
+        }
+
+        return CertificateValidity.builder()
+            .notBefore(notBefore)
+            .notAfter(notAfter)
+            .renewAt(fixedFractionRenewal(notBefore, notAfter))
+            .keyAlgorithm(keyAlgorithm(cert.getPublicKey()))
+            .serial(cert.getSerialNumber().toString(16))
+            .renewalInfoId(renewalInfoId)
+            .chainFingerprint(chainFingerprint)
+            .build();
+    }
+
+    /**
+     * @param expectedFingerprint the content hash of the secret's certificate chain, when its data is at hand
+     * @return null if the annotations are missing, unparsable, inconsistent, or describe a different certificate
+     * chain, such as on secrets created or modified by something else
+     */
+    @Nullable
+    static CertificateValidity fromAnnotations(@Nullable Map<String, String> annotations,
+        @Nullable String expectedFingerprint
+    ) {
+        if (annotations == null) {
+            return null;
+        }
+        final String chainFingerprint = annotations.get(Metadata.CONTENT_HASH_ANNOTATION);
+        final String notBefore = annotations.get(Metadata.NOT_BEFORE_ANNOTATION);
+        final String notAfter = annotations.get(Metadata.NOT_AFTER_ANNOTATION);
+        final String renewAt = annotations.get(Metadata.RENEW_AT_ANNOTATION);
+        if (chainFingerprint == null || notBefore == null || notAfter == null || renewAt == null) {
+            return null;
+        }
+        if (expectedFingerprint != null && !expectedFingerprint.equals(chainFingerprint)) {
+            log.debug("Validity annotations describe a different certificate chain than fingerprint={}",
+                expectedFingerprint
+            );
+            return null;
+        }
+
+        final CertificateValidity validity;
+        try {
+            validity = CertificateValidity.builder()
+                .notBefore(Instant.parse(notBefore))
+                .notAfter(Instant.parse(notAfter))
+                .renewAt(Instant.parse(renewAt))
+                .keyAlgorithm(annotations.get(Metadata.KEY_ALGORITHM_ANNOTATION))
+                .serial(annotations.get(Metadata.SERIAL_ANNOTATION))
+                .renewalInfoId(annotations.get(Metadata.RENEWAL_INFO_ID_ANNOTATION))
+                .chainFingerprint(chainFingerprint)
+                .build();
+        } catch (DateTimeParseException e) {
+            log.debug("Unable to parse validity annotations", e);
+            return null;
+        }
+
+        if (!validity.notBefore().isBefore(validity.notAfter())
+            || validity.renewAt().isBefore(validity.notBefore())
+            || validity.renewAt().isAfter(validity.notAfter())) {
+            log.debug("Ignoring inconsistent validity annotations {}", validity);
+            return null;
+        }
+        return validity;
+    }
+
+    /**
+     * @return the annotations to store alongside the certificate chain, which include the content hash
+     */
+    Map<String, String> toAnnotations() {
+        final Map<String, String> annotations = new HashMap<>();
+        annotations.put(Metadata.CONTENT_HASH_ANNOTATION, chainFingerprint);
+        annotations.put(Metadata.NOT_BEFORE_ANNOTATION, notBefore.toString());
+        annotations.put(Metadata.NOT_AFTER_ANNOTATION, notAfter.toString());
+        annotations.put(Metadata.RENEW_AT_ANNOTATION, renewAt.toString());
+        if (keyAlgorithm != null) {
+            annotations.put(Metadata.KEY_ALGORITHM_ANNOTATION, keyAlgorithm);
+        }
+        if (serial != null) {
+            annotations.put(Metadata.SERIAL_ANNOTATION, serial);
+        }
+        if (renewalInfoId != null) {
+            annotations.put(Metadata.RENEWAL_INFO_ID_ANNOTATION, renewalInfoId);
+        }
+        return annotations;
+    }
+
+    Duration lifetime() {
+        return Duration.between(notBefore, notAfter.plusSeconds(1));
+    }
+
+    /**
+     * LetsEncrypt recommends renewing when there is a 3rd of lifetime left, which remains the
+     * fallback when the issuer doesn't provide renewal information
+     *
+     * @see <a href="https://letsencrypt.org/docs/integration-guide/#when-to-renew">When to renew</a>
+     */
+    private static Instant fixedFractionRenewal(Instant notBefore, Instant notAfter) {
+        // since it sets expiration just before and between's argument is exclusive
+        final Duration lifetime = Duration.between(notBefore, notAfter.plusSeconds(1));
+        return notAfter.minus(lifetime.dividedBy(3));
+    }
+
+    private static String keyAlgorithm(PublicKey publicKey) {
+        if (publicKey instanceof RSAPublicKey rsa) {
+            return "RSA-" + rsa.getModulus().bitLength();
+        } else if (publicKey instanceof ECPublicKey ec) {
+            return "EC-" + ec.getParams().getCurve().getField().getFieldSize();
+        } else {
+            return publicKey.getAlgorithm();
+        }
+    }
+}
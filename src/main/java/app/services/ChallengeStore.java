@@ -0,0 +1,47 @@
+package app.services;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.lang.Nullable;
+
+/**
+ * Holds the key authorizations of pending HTTP-01 challenges so that they can be served to the issuer.
+ */
+public interface ChallengeStore extends Closeable {
+
+    /**
+     * @return completes with the token once the issuer's validation request has been served, by this or any
+     * other replica sharing the store
+     */
+    CompletableFuture<String> put(String token, String keyAuthorization);
+
+    /**
+     * Looks up the key authorization to serve, which must not involve remote calls since it is on the response path.
+     *
+     * @return the encoded key authorization or null if the token is not known or has expired
+     */
+    @Nullable
+    byte[] responseBody(String token);
+
+    /**
+     * Notifies the replica that owns the challenge that the issuer requested it
+     */
+    void markServed(String token);
+
+    void remove(String token);
+
+    /**
+     * @return identifies this replica among those sharing the store, which is also recorded as the owner of its
+     * solver ingresses
+     */
+    String replicaId();
+
+    /**
+     * @return true if the replica has challenges in progress, as far as this store knows, which for a store that
+     * isn't shared only applies to this replica
+     */
+    boolean isReplicaActive(String replicaId);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,96 @@
+package app.services;
+
+import app.config.AppProperties;
+import app.config.Issuer;
+import app.services.dns.DnsPropagationChecker;
+import app.services.dns.DnsProvider;
+import app.services.dns.TxtRecord;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Publishes the TXT records of DNS-01 challenges through the issuer's {@link DnsProvider} and waits for them to
+ * propagate, as described in <a href="https://datatracker.ietf.org/doc/html/rfc8555#section-8.4">RFC 8555 Sec 8.4</a>
+ */
+@Service
+@Slf4j
+public class DnsSolverService {
+
+    static final String RECORD_PREFIX = "_acme-challenge.";
+
+    private final AppProperties appProperties;
+    private final DnsPropagationChecker propagationChecker;
+    private final Map<String/*name*/, DnsProvider> providers;
+
+    public DnsSolverService(AppProperties appProperties,
+        DnsPropagationChecker propagationChecker,
+        List<DnsProvider> providers
+    ) {
+        this.appProperties = appProperties;
+        this.propagationChecker = propagationChecker;
+        this.providers = providers.stream()
+            .collect(Collectors.toMap(DnsProvider::name, Function.identity()));
+    }
+
+    /**
+     * @param domain the authorization's identifier, which excludes the "*." of a wildcard
+     */
+    public static TxtRecord buildTxtRecord(String domain, String keyAuthorization) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(keyAuthorization.getBytes(StandardCharsets.US_ASCII));
+            return new TxtRecord(
+                RECORD_PREFIX + domain,
+                Base64.getUrlEncoder().withoutPadding().encodeToString(digest)
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to find SHA-256 digest", e);
+        }
+    }
+
+    /**
+     * Publishes all the records together and completes once every authoritative nameserver serves them
+     */
+    public Mono<Void> present(String issuerId, List<TxtRecord> records) {
+        final Issuer.Dns01 config = dns01Config(issuerId);
+        final DnsProvider provider = provider(config);
+        log.debug("Presenting {} TXT records via provider={} for issuer={}", records.size(), provider.name(), issuerId);
+        return provider.present(config, records)
+            .then(propagationChecker.awaitPropagation(config, records));
+    }
+
+    public Mono<Void> cleanUp(String issuerId, List<TxtRecord> records) {
+        final Issuer.Dns01 config = dns01Config(issuerId);
+        return provider(config).cleanUp(config, records)
+            .doOnError(throwable -> log.warn("Failed to clean up TXT records={} for issuer={}", records, issuerId,
+                throwable
+            ))
+            .onErrorComplete();
+    }
+
+    private Issuer.Dns01 dns01Config(String issuerId) {
+        final Issuer issuer = appProperties.issuers().get(issuerId);
+        if (issuer == null || issuer.dns01() == null) {
+            throw new IllegalStateException("Issuer " + issuerId + " is not configured for DNS-01");
+        }
+        return issuer.dns01();
+    }
+
+    private DnsProvider provider(Issuer.Dns01 config) {
+        final DnsProvider provider = providers.get(config.provider());
+        if (provider == null) {
+            throw new IllegalStateException("Unknown DNS provider " + config.provider()
+                + ", available providers are " + providers.keySet());
+        }
+        return provider;
+    }
+}
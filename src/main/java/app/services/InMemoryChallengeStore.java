@@ -0,0 +1,60 @@
+package app.services;
+
+import app.config.AppProperties;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.lang.Nullable;
+
+/**
+ * Challenge store for a single replica, which is the default
+ */
+public class InMemoryChallengeStore implements ChallengeStore {
+
+    private final PendingChallenges pendingChallenges;
+    private final String replicaId;
+
+    public InMemoryChallengeStore(AppProperties appProperties, String replicaId) {
+        this(appProperties.challengeResponder().ttl(), appProperties.challengeResponder().maxEntries(), replicaId);
+    }
+
+    public InMemoryChallengeStore(Duration ttl, int maxEntries, String replicaId) {
+        pendingChallenges = new PendingChallenges(ttl, maxEntries);
+        this.replicaId = replicaId;
+    }
+
+    @Override
+    public CompletableFuture<String> put(String token, String keyAuthorization) {
+        return pendingChallenges.put(token, keyAuthorization).challengeCompleted();
+    }
+
+    @Nullable
+    @Override
+    public byte[] responseBody(String token) {
+        return pendingChallenges.responseBody(token);
+    }
+
+    @Override
+    public void markServed(String token) {
+        pendingChallenges.complete(token);
+    }
+
+    @Override
+    public void remove(String token) {
+        pendingChallenges.remove(token);
+    }
+
+    @Override
+    public String replicaId() {
+        return replicaId;
+    }
+
+    @Override
+    public boolean isReplicaActive(String replicaId) {
+        return this.replicaId.equals(replicaId);
+    }
+
+    @Override
+    public void close() {
+        pendingChallenges.close();
+    }
+}
@@ -0,0 +1,202 @@
+package app.services;
+
+import app.config.AppProperties;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Observes reconciles, the phases of certificate issuance, and the ACME requests within them. Each observation
+ * produces a timer and a span, and is passed to nested observations through the Reactor context so that an
+ * entire issuance forms a single trace starting at its reconcile.
+ * <p>
+ * Low cardinality key values, which become metric tags, are limited to bounded values such as configured issuer
+ * IDs and ACME problem types. Names of hosts and resources are only attached as high cardinality key values,
+ * which are only included in spans.
+ */
+@Component
+public class IssuanceObservations {
+
+    public static final String PHASE_ORDER = "order";
+    public static final String PHASE_AUTHORIZE = "authorize";
+    public static final String PHASE_SOLVER_READY = "solver-ready";
+    public static final String PHASE_SELF_CHECK = "self-check";
+    public static final String PHASE_DNS_PROPAGATION = "dns-propagation";
+    public static final String PHASE_VALIDATION = "validation";
+    public static final String PHASE_FINALIZE = "finalize";
+    public static final String PHASE_DOWNLOAD = "download";
+    public static final String PHASE_STORE = "store";
+
+    /**
+     * Recorded on the validation phase once the issuer fetched the challenge from any replica
+     */
+    public static final Observation.Event CHALLENGE_SERVED = Observation.Event.of("kita.challenge.served");
+
+    static final String OUTCOME_SUCCESS = "success";
+    static final String OUTCOME_FAILURE = "failure";
+    static final String OUTCOME_CANCELLED = "cancelled";
+    static final String NONE = "none";
+    static final String UNKNOWN_ISSUER = "unknown";
+
+    private static final String ACME_ERROR_PREFIX = "urn:ietf:params:acme:error:";
+
+    private final ObservationRegistry observationRegistry;
+    private final AppProperties appProperties;
+    private final IssuanceTracker issuanceTracker;
+    private final AtomicInteger inFlightOrders = new AtomicInteger();
+
+    public IssuanceObservations(ObservationRegistry observationRegistry,
+        MeterRegistry meterRegistry,
+        AppProperties appProperties,
+        IssuanceTracker issuanceTracker
+    ) {
+        this.observationRegistry = observationRegistry;
+        this.appProperties = appProperties;
+        this.issuanceTracker = issuanceTracker;
+
+        meterRegistry.gauge("kita.issuance.in.flight", inFlightOrders);
+    }
+
+    /**
+     * Starts the trace of reconciling an ingress, which covers the issuance of each of its TLS entries
+     */
+    public <T> Flux<T> observeReconcile(String ingressName, Flux<T> reconcile) {
+        return observed(() ->
+            Observation.createNotStarted("kita.reconcile", observationRegistry)
+                .contextualName("reconcile " + ingressName)
+                .highCardinalityKeyValue("ingress", ingressName),
+            reconcile
+        );
+    }
+
+    /**
+     * Observes an entire issuance, from order creation through storing the secret, and counts it as in-flight
+     * while subscribed.
+     */
+    public <T> Mono<T> observeIssuance(String issuerId, String secretName, Mono<T> issuance) {
+        return observed(() ->
+            Observation.createNotStarted("kita.issuance", observationRegistry)
+                .contextualName("issue " + secretName)
+                .lowCardinalityKeyValue("issuer", issuerTag(issuerId))
+                .highCardinalityKeyValue("secret", secretName),
+            issuance
+                .doOnSubscribe(subscription -> inFlightOrders.incrementAndGet())
+                .doFinally(signalType -> inFlightOrders.decrementAndGet())
+        );
+    }
+
+    public <T> Mono<T> observePhase(String phase, String issuerId, Mono<T> mono) {
+        return observePhase(phase, issuerId, KeyValues.empty(), mono);
+    }
+
+    /**
+     * @param details high cardinality key values that are only attached to the span, such as the host
+     */
+    public <T> Mono<T> observePhase(String phase, String issuerId, KeyValues details, Mono<T> mono) {
+        return observed(() -> phaseObservation(phase, issuerId).highCardinalityKeyValues(details),
+            issuanceTracker.inPhase(phase, mono)
+        );
+    }
+
+    public <T> Flux<T> observePhase(String phase, String issuerId, Flux<T> flux) {
+        return observed(() -> phaseObservation(phase, issuerId), issuanceTracker.inPhase(phase, flux));
+    }
+
+    /**
+     * @param resourceType the type of the response, which stands in for the ACME resource since request URLs
+     *                     contain identifiers
+     */
+    public <T> Mono<T> observeAcmeRequest(String issuerId, Class<?> resourceType, Mono<T> request) {
+        return observed(() ->
+            Observation.createNotStarted("kita.acme.requests", observationRegistry)
+                .contextualName("acme " + resourceType.getSimpleName())
+                .lowCardinalityKeyValue("issuer", issuerTag(issuerId))
+                .lowCardinalityKeyValue("type", resourceType.getSimpleName()),
+            request
+        );
+    }
+
+    /**
+     * Records the event on the observation carried by the Reactor context of the returned Mono
+     */
+    public Mono<Void> event(Observation.Event event) {
+        return Mono.deferContextual(contextView -> {
+            final Observation current = contextView.getOrDefault(ObservationThreadLocalAccessor.KEY, null);
+            if (current != null) {
+                current.event(event);
+            }
+            return Mono.empty();
+        });
+    }
+
+    private Observation phaseObservation(String phase, String issuerId) {
+        return Observation.createNotStarted("kita.issuance.phase", observationRegistry)
+            .contextualName(phase)
+            .lowCardinalityKeyValue("phase", phase)
+            .lowCardinalityKeyValue("issuer", issuerTag(issuerId));
+    }
+
+    /**
+     * @param observationSupplier creates the observation per subscription, such as each retry
+     */
+    private <T> Mono<T> observed(Supplier<Observation> observationSupplier, Mono<T> mono) {
+        return Mono.deferContextual(contextView -> {
+            final Observation observation = observationSupplier.get();
+            observation.parentObservation(contextView.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
+                .start();
+            return mono
+                .doOnSuccess(value -> stop(observation, OUTCOME_SUCCESS, null))
+                .doOnError(throwable -> stop(observation, OUTCOME_FAILURE, throwable))
+                .doOnCancel(() -> stop(observation, OUTCOME_CANCELLED, null))
+                .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    private <T> Flux<T> observed(Supplier<Observation> observationSupplier, Flux<T> flux) {
+        return Flux.deferContextual(contextView -> {
+            final Observation observation = observationSupplier.get();
+            observation.parentObservation(contextView.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
+                .start();
+            return flux
+                .doOnComplete(() -> stop(observation, OUTCOME_SUCCESS, null))
+                .doOnError(throwable -> stop(observation, OUTCOME_FAILURE, throwable))
+                .doOnCancel(() -> stop(observation, OUTCOME_CANCELLED, null))
+                .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    private static void stop(Observation observation, String outcome, @Nullable Throwable throwable) {
+        observation.lowCardinalityKeyValue("outcome", outcome)
+            .lowCardinalityKeyValue("problem", problemTag(throwable));
+        if (throwable != null) {
+            observation.error(throwable);
+        }
+        observation.stop();
+    }
+
+    /**
+     * Issuer IDs come from ingress labels, so only configured ones are used as tag values
+     */
+    String issuerTag(@Nullable String issuerId) {
+        return issuerId != null && appProperties.issuers().containsKey(issuerId) ? issuerId : UNKNOWN_ISSUER;
+    }
+
+    /**
+     * @return the short form of an ACME problem type, such as "rateLimited"
+     */
+    static String problemTag(@Nullable Throwable throwable) {
+        if (throwable instanceof AcmeProblemException e && e.getProblem() != null && e.getProblem().type() != null) {
+            final String type = e.getProblem().type();
+            return type.startsWith(ACME_ERROR_PREFIX) ? type.substring(ACME_ERROR_PREFIX.length()) : "other";
+        }
+        return NONE;
+    }
+}
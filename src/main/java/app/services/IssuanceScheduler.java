@@ -0,0 +1,185 @@
+package app.services;
+
+import app.config.AppProperties;
+import app.config.AppProperties.IssuanceConcurrency;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Limits the issuances in progress, globally and per issuer, so that a burst of due certificates doesn't start
+ * every order at once and have them compete for nonces, key generation, and solver ingresses. Waiting issuances
+ * start in order of urgency: missing certificates first, then the soonest to expire. Pre-authorizations share the
+ * same slots but start after every waiting issuance, so that they don't delay renewals.
+ */
+@Service
+@Slf4j
+public class IssuanceScheduler {
+
+    private static final Comparator<Pending> URGENCY = Comparator
+        // missing certificates sort first
+        .comparing((Pending pending) -> pending.notAfter() != null ? pending.notAfter() : Instant.MIN)
+        .thenComparingLong(Pending::sequence);
+
+    private final IssuanceConcurrency limits;
+    private final IssuanceObservations issuanceObservations;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong sequence = new AtomicLong();
+    private final TreeSet<Pending> queue = new TreeSet<>(URGENCY);
+    private final Map<String/*issuerId*/, Integer> activePerIssuer = new HashMap<>();
+    private int active;
+
+    public IssuanceScheduler(AppProperties appProperties,
+        IssuanceObservations issuanceObservations,
+        MeterRegistry meterRegistry
+    ) {
+        this.limits = appProperties.issuanceConcurrency();
+        this.issuanceObservations = issuanceObservations;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("kita.issuance.queued", this, IssuanceScheduler::queued)
+            .description("Issuances and pre-authorizations waiting for one of the concurrent slots")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @param notAfter  expiration of the certificate being replaced, or null if the secret is missing, which is the
+     *                  most urgent
+     * @param issuance  subscribed to once a slot is available
+     * @return the result of the issuance, which is removed from the queue if cancelled while waiting
+     */
+    public Mono<Secret> schedule(String issuerId, String secretName, @Nullable Instant notAfter,
+        Supplier<Mono<Secret>> issuance
+    ) {
+        return enqueue(issuerId, "issuance of secret=" + secretName, notAfter, issuance);
+    }
+
+    /**
+     * @param preAuthorization subscribed to once a slot is available and no issuance is waiting for one
+     * @return completes when the pre-authorization does, which is removed from the queue if cancelled while waiting
+     */
+    public Mono<Void> schedulePreAuthorization(String issuerId, List<String> hosts,
+        Supplier<Mono<Void>> preAuthorization
+    ) {
+        // sorts after every issuance, which always expires sooner
+        return enqueue(issuerId, "pre-authorization of hosts=" + hosts, Instant.MAX,
+            () -> preAuthorization.get().then(Mono.<Secret>empty())
+        )
+            .then();
+    }
+
+    private Mono<Secret> enqueue(String issuerId, String description, @Nullable Instant notAfter,
+        Supplier<Mono<Secret>> work
+    ) {
+        return Mono.create(sink -> {
+            final Pending pending = new Pending(sequence.getAndIncrement(), issuerId, description, notAfter,
+                work, sink, System.nanoTime(), new AtomicReference<>()
+            );
+            sink.onCancel(() -> cancel(pending));
+            synchronized (this) {
+                queue.add(pending);
+            }
+            log.debug("Queued {} with issuer={} expiring at {}", description, issuerId, notAfter);
+            dispatch();
+        });
+    }
+
+    private void dispatch() {
+        final List<Pending> ready = new ArrayList<>();
+        synchronized (this) {
+            final Iterator<Pending> iterator = queue.iterator();
+            while (active < limits.global() && iterator.hasNext()) {
+                final Pending pending = iterator.next();
+                if (activePerIssuer.getOrDefault(pending.issuerId(), 0) < limits.perIssuer()) {
+                    iterator.remove();
+                    active++;
+                    activePerIssuer.merge(pending.issuerId(), 1, Integer::sum);
+                    ready.add(pending);
+                }
+            }
+        }
+        // started outside the lock since an issuance may complete, and release its slot, immediately
+        ready.forEach(this::start);
+    }
+
+    private void start(Pending pending) {
+        final Duration waited = Duration.ofNanos(System.nanoTime() - pending.queuedAt());
+        Timer.builder("kita.issuance.queue.wait")
+            .description("Time that issuances and pre-authorizations waited for a concurrent slot")
+            .tag("issuer", issuanceObservations.issuerTag(pending.issuerId()))
+            .register(meterRegistry)
+            .record(waited);
+        log.debug("Starting {} with issuer={} after waiting {}",
+            pending.description(), pending.issuerId(), waited
+        );
+
+        final MonoSink<Secret> sink = pending.sink();
+        pending.running().set(Mono.defer(pending.work())
+            .doFinally(signalType -> release(pending))
+            // keeps the trace and progress tracking of the caller
+            .contextWrite(sink.contextView())
+            .subscribe(sink::success, sink::error, sink::success)
+        );
+    }
+
+    private void cancel(Pending pending) {
+        final boolean wasQueued;
+        synchronized (this) {
+            wasQueued = queue.remove(pending);
+        }
+        if (!wasQueued) {
+            final Disposable running = pending.running().get();
+            if (running != null) {
+                running.dispose();
+            }
+        }
+    }
+
+    private void release(Pending pending) {
+        synchronized (this) {
+            active--;
+            activePerIssuer.computeIfPresent(pending.issuerId(), (issuerId, count) -> count > 1 ? count - 1 : null);
+        }
+        dispatch();
+    }
+
+    private synchronized int queued() {
+        return queue.size();
+    }
+
+    /**
+     * @param description what is waiting, for logging
+     * @param running     the subscription of the work once started
+     */
+    private record Pending(
+        long sequence,
+        String issuerId,
+        String description,
+        @Nullable Instant notAfter,
+        Supplier<Mono<Secret>> work,
+        MonoSink<Secret> sink,
+        long queuedAt,
+        AtomicReference<Disposable> running
+    ) {
+
+    }
+}
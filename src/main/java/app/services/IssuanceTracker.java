@@ -0,0 +1,283 @@
+package app.services;
+
+import app.config.AppProperties;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the issuances in progress along with their current phase, the most recent completed issuances, and the
+ * consecutive failures of each TLS secret in memory, so that their status can be reported without any requests to
+ * the API server.
+ * <p>
+ * Each failure delays the next issuance of the secret exponentially, or until the issuer's Retry-After of a
+ * rateLimited problem if that is later. Issuances rejected by an issuer's bulkhead are retried after a short delay
+ * without counting as an attempt, since those say nothing about the secret. Issuances rejected by an issuer's open
+ * circuit aren't recorded at all, since its recovery reconciles the secret anyway.
+ */
+@Component
+public class IssuanceTracker {
+
+    /**
+     * The phase of an issuance waiting for a concurrent slot
+     */
+    public static final String PHASE_QUEUED = "queued";
+
+    static final int HISTORY_SIZE = 200;
+
+    private static final String CONTEXT_KEY = IssuanceTracker.class.getName();
+
+    private final Set<Progress> inFlight = ConcurrentHashMap.newKeySet();
+    private final Deque<CompletedIssuance> history = new ArrayDeque<>();
+    private final Map<SecretKey, IssuanceFailure> failures = new ConcurrentHashMap<>();
+    private final AppProperties.IssuanceBackoff backoff;
+
+    public IssuanceTracker(AppProperties appProperties) {
+        this.backoff = appProperties.issuanceBackoff();
+    }
+
+    /**
+     * Tracks the issuance while subscribed, starting in the {@value #PHASE_QUEUED} phase
+     */
+    public <T> Mono<T> track(String cluster, String issuerId, String secretName, Mono<T> issuance) {
+        return Mono.defer(() -> {
+            final Progress progress = new Progress(new SecretKey(cluster, secretName), issuerId, Instant.now());
+            return issuance
+                .doOnSubscribe(subscription -> inFlight.add(progress))
+                .doOnSuccess(value -> complete(progress, IssuanceObservations.OUTCOME_SUCCESS, null))
+                .doOnError(throwable -> complete(progress, IssuanceObservations.OUTCOME_FAILURE, throwable))
+                .doOnCancel(() -> complete(progress, IssuanceObservations.OUTCOME_CANCELLED, null))
+                .contextWrite(context -> context.put(CONTEXT_KEY, progress));
+        });
+    }
+
+    /**
+     * Marks the tracked issuance, if any, as being in the given phase when the returned Mono is subscribed
+     */
+    public <T> Mono<T> inPhase(String phase, Mono<T> mono) {
+        return Mono.deferContextual(contextView -> {
+            final Progress progress = contextView.getOrDefault(CONTEXT_KEY, null);
+            return progress != null ? mono.doOnSubscribe(subscription -> progress.enter(phase)) : mono;
+        });
+    }
+
+    public <T> Flux<T> inPhase(String phase, Flux<T> flux) {
+        return Flux.deferContextual(contextView -> {
+            final Progress progress = contextView.getOrDefault(CONTEXT_KEY, null);
+            return progress != null ? flux.doOnSubscribe(subscription -> progress.enter(phase)) : flux;
+        });
+    }
+
+    /**
+     * @return the issuances in progress, the longest running first
+     */
+    public List<InFlightIssuance> inFlight() {
+        return inFlight.stream()
+            .map(Progress::snapshot)
+            .sorted(Comparator.comparing(InFlightIssuance::startedAt))
+            .toList();
+    }
+
+    /**
+     * @return up to {@value #HISTORY_SIZE} completed issuances, the most recent first
+     */
+    public synchronized List<CompletedIssuance> history() {
+        return List.copyOf(history);
+    }
+
+    /**
+     * @return the TLS secrets whose latest issuances failed, the most recent failure first
+     */
+    public List<IssuanceFailure> failures() {
+        return failures.values().stream()
+            .sorted(Comparator.comparing(IssuanceFailure::lastFailedAt).reversed())
+            .toList();
+    }
+
+    @Nullable
+    public IssuanceFailure failureOf(String cluster, String secretName) {
+        return failures.get(new SecretKey(cluster, secretName));
+    }
+
+    /**
+     * Restores the failure state persisted before a restart, unless a more recent one is already held
+     *
+     * @return the failure state now held for the secret
+     */
+    public IssuanceFailure restore(IssuanceFailure failure) {
+        final IssuanceFailure held = failures.putIfAbsent(new SecretKey(failure.cluster(), failure.secret()), failure);
+        return held != null ? held : failure;
+    }
+
+    /**
+     * @param attempts   consecutive failed issuances
+     * @param retryAfter the issuer's Retry-After of a rateLimited problem
+     * @return the delay of the next issuance
+     */
+    Duration delayAfter(int attempts, @Nullable Duration retryAfter) {
+        // doubled up to the maximum, which avoids overflow of large attempt counts
+        Duration delay = backoff.initialDelay();
+        for (int i = 1; i < attempts && delay.compareTo(backoff.maxDelay()) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        if (delay.compareTo(backoff.maxDelay()) > 0) {
+            delay = backoff.maxDelay();
+        }
+        return retryAfter != null && retryAfter.compareTo(delay) > 0 ? retryAfter : delay;
+    }
+
+    private void complete(Progress progress, String outcome, @Nullable Throwable throwable) {
+        if (!inFlight.remove(progress)) {
+            return;
+        }
+        final Instant now = Instant.now();
+        final String problem = IssuanceObservations.problemTag(throwable);
+        final CompletedIssuance completed = new CompletedIssuance(progress.secret.cluster(),
+            progress.secret.secretName(), progress.issuerId, outcome, progress.phase, problem,
+            throwable != null ? String.valueOf(throwable.getMessage()) : null,
+            progress.startedAt, Duration.between(progress.startedAt, now)
+        );
+        synchronized (this) {
+            history.addFirst(completed);
+            while (history.size() > HISTORY_SIZE) {
+                history.removeLast();
+            }
+        }
+
+        switch (outcome) {
+            case IssuanceObservations.OUTCOME_SUCCESS -> failures.remove(progress.secret);
+            case IssuanceObservations.OUTCOME_FAILURE -> {
+                if (throwable instanceof CallNotPermittedException) {
+                    return;
+                }
+                if (throwable instanceof BulkheadFullException) {
+                    failures.compute(progress.secret, (key, previous) ->
+                        new IssuanceFailure(key.cluster(), key.secretName(), progress.issuerId,
+                            previous != null ? previous.attempts() : 0, progress.phase, problem, completed.error(),
+                            null, now, now.plus(backoff.busyDelay())
+                        )
+                    );
+                    return;
+                }
+                final Duration retryAfter = throwable instanceof AcmeProblemException e && e.isRateLimited() ?
+                    e.getRetryAfter() : null;
+                failures.compute(progress.secret, (key, previous) -> {
+                    final int attempts = previous != null ? previous.attempts() + 1 : 1;
+                    return new IssuanceFailure(key.cluster(), key.secretName(), progress.issuerId, attempts,
+                        progress.phase, problem, completed.error(), retryAfter, now,
+                        now.plus(delayAfter(attempts, retryAfter))
+                    );
+                });
+            }
+            default -> {
+                // a cancelled issuance neither succeeded nor failed
+            }
+        }
+    }
+
+    /**
+     * @param phase      the phase most recently entered
+     * @param phaseSince when that phase was entered
+     * @param inPhase    how long the issuance has been in that phase
+     */
+    public record InFlightIssuance(
+        String cluster,
+        String secret,
+        String issuer,
+        String phase,
+        Instant startedAt,
+        Instant phaseSince,
+        Duration inPhase
+    ) {
+
+    }
+
+    /**
+     * @param phase   the phase the issuance was in when it completed, which is where a failure occurred
+     * @param problem the ACME problem type without its URN prefix, or "none"
+     */
+    public record CompletedIssuance(
+        String cluster,
+        String secret,
+        String issuer,
+        String outcome,
+        String phase,
+        String problem,
+        @Nullable String error,
+        Instant startedAt,
+        Duration latency
+    ) {
+
+    }
+
+    /**
+     * @param attempts   consecutive failed issuances since the last successful one, not counting those rejected by
+     *                   the issuer's bulkhead
+     * @param retryAfter the issuer's Retry-After of a rateLimited problem
+     * @param retryAt    when the secret may be issued again
+     */
+    public record IssuanceFailure(
+        String cluster,
+        String secret,
+        String issuer,
+        int attempts,
+        String phase,
+        String problem,
+        @Nullable String error,
+        @Nullable Duration retryAfter,
+        Instant lastFailedAt,
+        Instant retryAt
+    ) {
+
+        public boolean isBackingOff(Instant now) {
+            return now.isBefore(retryAt);
+        }
+    }
+
+    private record SecretKey(String cluster, String secretName) {
+
+    }
+
+    /**
+     * Identity based, since the same secret may be issued again while a cancelled issuance is winding down
+     */
+    private static class Progress {
+
+        private final SecretKey secret;
+        private final String issuerId;
+        private final Instant startedAt;
+        private volatile String phase = PHASE_QUEUED;
+        private volatile Instant phaseSince;
+
+        Progress(SecretKey secret, String issuerId, Instant startedAt) {
+            this.secret = secret;
+            this.issuerId = issuerId;
+            this.startedAt = startedAt;
+            this.phaseSince = startedAt;
+        }
+
+        void enter(String phase) {
+            this.phase = phase;
+            this.phaseSince = Instant.now();
+        }
+
+        InFlightIssuance snapshot() {
+            final Instant since = phaseSince;
+            return new InFlightIssuance(secret.cluster(), secret.secretName(), issuerId, phase, startedAt, since,
+                Duration.between(since, Instant.now())
+            );
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package app.services;
+
+import app.config.AppProperties;
+import app.config.Issuer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker.State;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Guards the ACME requests to each issuer with a circuit breaker and a bulkhead. Once enough of the recent requests
+ * to an issuer failed with connection failures, timeouts, or server errors, its circuit opens and further requests
+ * fail fast rather than tying up issuances and their solvers. Problems the issuer reports about a request, such as
+ * rate limits or a bad nonce, aren't a sign of an outage and don't count as failures.
+ * <p>
+ * While an issuer's circuit is open, urgent issuances are redirected to its {@link Issuer#fallbackIssuer()}. Once it
+ * closes again, the recovery listeners are notified so that certificates can move back.
+ */
+@Component
+@Slf4j
+public class IssuerResilience {
+
+    private static final List<State> REPORTED_STATES = List.of(State.CLOSED, State.OPEN, State.HALF_OPEN);
+    private static final Duration BULKHEAD_POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final AppProperties appProperties;
+    private final IssuanceObservations issuanceObservations;
+    private final MeterRegistry meterRegistry;
+    private final Map<String/*issuerId*/, CircuitBreaker> circuitBreakers = new HashMap<>();
+    private final Map<String/*issuerId*/, Bulkhead> bulkheads = new HashMap<>();
+    private final List<Consumer<String/*issuerId*/>> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    public IssuerResilience(AppProperties appProperties,
+        IssuanceObservations issuanceObservations,
+        MeterRegistry meterRegistry
+    ) {
+        this.appProperties = appProperties;
+        this.issuanceObservations = issuanceObservations;
+        this.meterRegistry = meterRegistry;
+
+        final AppProperties.IssuerResilience config = appProperties.issuerResilience();
+        final CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+            .failureRateThreshold(config.failureRateThreshold())
+            .slidingWindowSize(config.slidingWindowSize())
+            .minimumNumberOfCalls(config.minimumCalls())
+            .waitDurationInOpenState(config.openDuration())
+            .permittedNumberOfCallsInHalfOpenState(config.halfOpenCalls())
+            .automaticTransitionFromOpenToHalfOpenEnabled(true)
+            .recordException(IssuerResilience::isOutage)
+            .ignoreExceptions(BulkheadFullException.class)
+            .build();
+        // the bulkhead's own wait would block the subscribing thread, which may be an event loop, so requests
+        // wait for it in decorate instead
+        final BulkheadConfig bulkheadConfig = BulkheadConfig.custom()
+            .maxConcurrentCalls(config.maxConcurrentCalls())
+            .maxWaitDuration(Duration.ZERO)
+            .build();
+
+        for (String issuerId : appProperties.issuers().keySet()) {
+            final CircuitBreaker circuitBreaker = CircuitBreaker.of(issuerId, circuitBreakerConfig);
+            circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> onTransition(issuerId, event.getStateTransition()));
+            circuitBreakers.put(issuerId, circuitBreaker);
+
+            final Bulkhead bulkhead = Bulkhead.of(issuerId, bulkheadConfig);
+            bulkheads.put(issuerId, bulkhead);
+
+            final String issuerTag = issuanceObservations.issuerTag(issuerId);
+            for (State state : REPORTED_STATES) {
+                Gauge.builder("kita.issuer.circuit.state", circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+                    .description("1 for the current state of the issuer's circuit breaker, otherwise 0")
+                    .tag("issuer", issuerTag)
+                    .tag("state", stateTag(state))
+                    .register(meterRegistry);
+            }
+            Gauge.builder("kita.issuer.bulkhead.available", bulkhead,
+                    bh -> bh.getMetrics().getAvailableConcurrentCalls()
+                )
+                .description("Requests that can still be started concurrently with the issuer")
+                .tag("issuer", issuerTag)
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return the request, failing fast with a {@link io.github.resilience4j.circuitbreaker.CallNotPermittedException}
+     * while the issuer's circuit is open. When too many are in progress, the request waits without blocking for up to
+     * the configured {@link AppProperties.IssuerResilience#maxWait()} and then fails with a
+     * {@link BulkheadFullException}.
+     */
+    public <T> Mono<T> decorate(String issuerId, Mono<T> request) {
+        final CircuitBreaker circuitBreaker = circuitBreakers.get(issuerId);
+        if (circuitBreaker == null) {
+            // an unknown issuer fails on its own when its directory is looked up
+            return request;
+        }
+        final Bulkhead bulkhead = bulkheads.get(issuerId);
+        return Mono.defer(() -> {
+                final Instant waitUntil = Instant.now().plus(appProperties.issuerResilience().maxWait());
+                // a rejected request wasn't subscribed, so it can be resubscribed once a call may have completed
+                return request
+                    .transformDeferred(BulkheadOperator.of(bulkhead))
+                    .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, BULKHEAD_POLL_INTERVAL)
+                        .filter(throwable -> throwable instanceof BulkheadFullException
+                            && Instant.now().isBefore(waitUntil)
+                        )
+                    );
+            })
+            .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    /**
+     * @return true if requests to the issuer currently fail fast
+     */
+    public boolean isOpen(String issuerId) {
+        final CircuitBreaker circuitBreaker = circuitBreakers.get(issuerId);
+        return circuitBreaker != null
+            && (circuitBreaker.getState() == State.OPEN || circuitBreaker.getState() == State.FORCED_OPEN);
+    }
+
+    /**
+     * @param notAfter expiration of the certificate being replaced, or null if the secret is missing
+     * @return the fallback of the requested issuer if its circuit is open and the certificate is missing or expires
+     * soon, otherwise the requested issuer
+     */
+    public String selectIssuer(String requestedIssuerId, @Nullable Instant notAfter) {
+        final String fallbackIssuerId = fallbackOf(requestedIssuerId);
+        if (fallbackIssuerId == null || !isOpen(requestedIssuerId) || isOpen(fallbackIssuerId)) {
+            return requestedIssuerId;
+        }
+        if (notAfter != null && notAfter.isAfter(Instant.now().plus(appProperties.issuerResilience().fallbackWithin()))) {
+            log.debug("Leaving issuance with issuer={} to wait out its open circuit since the certificate expires at {}",
+                requestedIssuerId, notAfter
+            );
+            return requestedIssuerId;
+        }
+
+        log.info("Issuing with fallbackIssuer={} since the circuit of issuer={} is open and the certificate {}",
+            fallbackIssuerId, requestedIssuerId, notAfter != null ? "expires at " + notAfter : "is missing"
+        );
+        Counter.builder("kita.issuance.fallback")
+            .description("Issuances redirected to a fallback issuer while the requested issuer's circuit was open")
+            .tag("issuer", issuanceObservations.issuerTag(requestedIssuerId))
+            .tag("fallback", issuanceObservations.issuerTag(fallbackIssuerId))
+            .register(meterRegistry)
+            .increment();
+        return fallbackIssuerId;
+    }
+
+    /**
+     * @return true if the certificate of the given issuer stands in for one of the requested issuer, which is the
+     * case until the requested issuer's circuit has closed again
+     */
+    public boolean isStandingIn(String requestedIssuerId, @Nullable String issuerId) {
+        final CircuitBreaker circuitBreaker = circuitBreakers.get(requestedIssuerId);
+        return issuerId != null && issuerId.equals(fallbackOf(requestedIssuerId))
+            && circuitBreaker != null && circuitBreaker.getState() != State.CLOSED;
+    }
+
+    /**
+     * @param listener given the ID of an issuer whose circuit closed again after being open
+     */
+    public void onRecovery(Consumer<String> listener) {
+        recoveryListeners.add(listener);
+    }
+
+    @Nullable
+    private String fallbackOf(String issuerId) {
+        final Issuer issuer = appProperties.issuers().get(issuerId);
+        return issuer != null ? issuer.fallbackIssuer() : null;
+    }
+
+    private void onTransition(String issuerId, CircuitBreaker.StateTransition transition) {
+        if (transition.getToState() == State.OPEN) {
+            log.warn("Circuit of issuer={} opened, so its requests fail fast for {}",
+                issuerId, appProperties.issuerResilience().openDuration()
+            );
+        } else {
+            log.info("Circuit of issuer={} transitioned from {} to {}",
+                issuerId, transition.getFromState(), transition.getToState()
+            );
+        }
+        Counter.builder("kita.issuer.circuit.transitions")
+            .description("Transitions of the issuer's circuit breaker")
+            .tag("issuer", issuanceObservations.issuerTag(issuerId))
+            .tag("from", stateTag(transition.getFromState()))
+            .tag("to", stateTag(transition.getToState()))
+            .register(meterRegistry)
+            .increment();
+
+        if (transition == CircuitBreaker.StateTransition.HALF_OPEN_TO_CLOSED) {
+            recoveryListeners.forEach(listener -> listener.accept(issuerId));
+        }
+    }
+
+    /**
+     * @return true if the failure indicates the issuer is unreachable or failing, rather than a problem with the
+     * request itself
+     */
+    private static boolean isOutage(Throwable throwable) {
+        if (throwable instanceof AcmeProblemException problemException) {
+            return problemException.getClientException().getStatusCode().is5xxServerError();
+        } else if (throwable instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        } else {
+            return throwable instanceof WebClientRequestException || throwable instanceof TimeoutException;
+        }
+    }
+
+    private static String stateTag(State state) {
+        return state.name().toLowerCase(Locale.ROOT);
+    }
+}
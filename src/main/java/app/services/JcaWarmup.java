@@ -0,0 +1,52 @@
+package app.services;
+
+import app.model.Identifier;
+import java.security.KeyPair;
+import java.security.Security;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+/**
+ * Registers the BouncyCastle provider and exercises the JCA services used by issuance and renewal checks on a
+ * background thread. The provider registration, provider lookups and class loading then overlap with the startup
+ * of the application context rather than delaying it or the first issuance.
+ * <p>
+ * kita looks up all of its algorithms from the default providers, so nothing depends on the registration having
+ * completed.
+ */
+@Slf4j
+public final class JcaWarmup {
+
+    private JcaWarmup() {
+    }
+
+    public static Thread startInBackground() {
+        return Thread.ofPlatform()
+            .name("kita-jca-warmup")
+            .daemon()
+            .start(JcaWarmup::warmup);
+    }
+
+    static void warmup() {
+        final long start = System.nanoTime();
+        try {
+            Security.addProvider(new BouncyCastleProvider());
+
+            CertificateFactory.getInstance("X.509");
+            final KeyPair keyPair = CertificateProcessingService.generateCertKeyPair();
+            CertificateProcessingService.encodeCsr(
+                CertificateProcessingService.buildCsr(List.of(Identifier.dns("warmup.invalid")), keyPair)
+            );
+            CertificateProcessingService.contentHash("");
+
+            log.debug("Warmed up JCA services in {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (CertificateException | RuntimeException e) {
+            // the services are looked up again when used, which will report the problem in context
+            log.warn("Failed to warm up JCA services", e);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package app.services;
+
+import app.config.AppProperties;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Shares pending challenges across replicas through a ConfigMap per token that every replica watches. Each
+ * replica keeps a local cache of the key authorizations, so the response path stays in memory. The replica that
+ * serves the issuer's request records itself in an annotation, which routes the completion back to the owner.
+ * <p>
+ * The owner deletes the ConfigMap once the challenge is removed or expires. ConfigMaps older than the challenge TTL,
+ * such as those of a replica that restarted mid-challenge, are deleted by whichever replica observes them.
+ */
+@Slf4j
+public class KubernetesChallengeStore implements ChallengeStore, SmartLifecycle {
+
+    static final String TOKEN_KEY = "token";
+    static final String KEY_AUTHORIZATION_KEY = "keyAuthorization";
+
+    private final KubernetesClient k8s;
+    private final KubernetesMetrics kubernetesMetrics;
+    private final String replicaId;
+    private final Duration ttl;
+    private final SharedIndexInformer<ConfigMap> informer;
+    private final PendingChallenges localCache;
+    private final Set<String/*token*/> ownedChallenges = ConcurrentHashMap.newKeySet();
+    private final Set<String/*token*/> servedNotified = ConcurrentHashMap.newKeySet();
+
+    public KubernetesChallengeStore(KubernetesClient k8s, String replicaId, AppProperties appProperties,
+        KubernetesMetrics kubernetesMetrics
+    ) {
+        this.k8s = k8s;
+        this.kubernetesMetrics = kubernetesMetrics;
+        this.replicaId = replicaId;
+        log.info("Sharing challenges across replicas as replicaId={}", replicaId);
+        ttl = appProperties.challengeResponder().ttl();
+        localCache = new PendingChallenges(ttl, appProperties.challengeResponder().maxEntries(), this::expired);
+
+        informer = k8s.configMaps()
+            .withLabel(Metadata.CHALLENGE_LABEL)
+            .runnableInformer(0);
+        informer.addEventHandler(new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(ConfigMap configMap) {
+                observed(configMap);
+            }
+
+            @Override
+            public void onUpdate(ConfigMap oldConfigMap, ConfigMap configMap) {
+                observed(configMap);
+            }
+
+            @Override
+            public void onDelete(ConfigMap configMap, boolean deletedFinalStateUnknown) {
+                final Map<String, String> data = configMap.getData();
+                if (data != null && data.get(TOKEN_KEY) != null) {
+                    localCache.remove(data.get(TOKEN_KEY));
+                }
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        informer.run();
+    }
+
+    @Override
+    public void stop() {
+        informer.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return informer.isRunning();
+    }
+
+    @Override
+    public int getPhase() {
+        return AcmeDirectoryService.PHASE;
+    }
+
+    @Override
+    public CompletableFuture<String> put(String token, String keyAuthorization) {
+        ownedChallenges.add(token);
+        final CompletableFuture<String> challengeCompleted = localCache.put(token, keyAuthorization)
+            .challengeCompleted();
+
+        log.debug("Sharing challenge for token={} via configMap={}", token, configMapName(token));
+        final ConfigMap configMap = new ConfigMapBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withName(configMapName(token))
+                .withLabels(Map.of(Metadata.CHALLENGE_LABEL, "true"))
+                .withAnnotations(Map.of(Metadata.OWNER_ANNOTATION, replicaId))
+                .build()
+            )
+            .withData(Map.of(
+                TOKEN_KEY, token,
+                KEY_AUTHORIZATION_KEY, keyAuthorization
+            ))
+            .build();
+        kubernetesMetrics.record(KubernetesMetrics.VERB_APPLY, KubernetesMetrics.RESOURCE_CONFIG_MAPS, () ->
+            k8s.configMaps()
+                .resource(configMap)
+                .serverSideApply()
+        );
+
+        return challengeCompleted;
+    }
+
+    @Nullable
+    @Override
+    public byte[] responseBody(String token) {
+        return localCache.responseBody(token);
+    }
+
+    @Override
+    public void markServed(String token) {
+        if (ownedChallenges.contains(token)) {
+            localCache.complete(token);
+            return;
+        }
+
+        // the issuer validates from several vantage points, so only notify the owner once
+        if (servedNotified.add(token)) {
+            Mono.fromRunnable(() ->
+                    kubernetesMetrics.record(KubernetesMetrics.VERB_PATCH, KubernetesMetrics.RESOURCE_CONFIG_MAPS, () ->
+                        k8s.configMaps()
+                            .withName(configMapName(token))
+                            .edit(configMap -> new ConfigMapBuilder(configMap)
+                                .editMetadata()
+                                .addToAnnotations(Metadata.SERVED_BY_ANNOTATION, replicaId)
+                                .endMetadata()
+                                .build()
+                            )
+                    )
+                )
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, throwable -> {
+                    log.warn("Failed to notify owner of challenge for token={}", token, throwable);
+                    servedNotified.remove(token);
+                });
+        }
+    }
+
+    @Override
+    public void remove(String token) {
+        localCache.remove(token);
+        servedNotified.remove(token);
+        if (ownedChallenges.remove(token)) {
+            kubernetesMetrics.record(KubernetesMetrics.VERB_DELETE, KubernetesMetrics.RESOURCE_CONFIG_MAPS, () ->
+                k8s.configMaps()
+                    .withName(configMapName(token))
+                    .delete()
+            );
+        }
+    }
+
+    @Override
+    public String replicaId() {
+        return replicaId;
+    }
+
+    /**
+     * @return true if it's this replica or the replica owns a challenge ConfigMap that hasn't outlived the TTL
+     */
+    @Override
+    public boolean isReplicaActive(String replicaId) {
+        return this.replicaId.equals(replicaId)
+            || informer.getStore().list().stream()
+            .anyMatch(configMap -> {
+                final Map<String, String> annotations = configMap.getMetadata().getAnnotations();
+                return annotations != null && replicaId.equals(annotations.get(Metadata.OWNER_ANNOTATION))
+                    && !isStale(configMap);
+            });
+    }
+
+    /**
+     * Called from the local cache, possibly on the response path, so the delete happens in the background
+     */
+    private void expired(String token) {
+        servedNotified.remove(token);
+        final String configMapName = configMapName(token);
+        if (ownedChallenges.remove(token)) {
+            deleteInBackground(configMapName);
+        } else {
+            // the owner may have gone away, in which case nothing else would delete it
+            final ConfigMap observed = informer.getStore().getByKey(k8s.getNamespace() + "/" + configMapName);
+            if (observed != null && isStale(observed)) {
+                deleteInBackground(configMapName);
+            }
+        }
+    }
+
+    private void deleteInBackground(String configMapName) {
+        Mono.fromRunnable(() ->
+                kubernetesMetrics.record(KubernetesMetrics.VERB_DELETE, KubernetesMetrics.RESOURCE_CONFIG_MAPS, () ->
+                    k8s.configMaps()
+                        .withName(configMapName)
+                        .delete()
+                )
+            )
+            .subscribeOn(Schedulers.boundedElastic())
+            .subscribe(null, throwable ->
+                log.warn("Failed to delete expired challenge configMap={}", configMapName, throwable)
+            );
+    }
+
+    private void observed(ConfigMap configMap) {
+        final Map<String, String> data = configMap.getData();
+        if (data == null || data.get(TOKEN_KEY) == null || data.get(KEY_AUTHORIZATION_KEY) == null) {
+            return;
+        }
+        final String token = data.get(TOKEN_KEY);
+        if (!ownedChallenges.contains(token) && isStale(configMap)) {
+            log.debug("Deleting challenge configMap={} that outlived its TTL", configMap.getMetadata().getName());
+            deleteInBackground(configMap.getMetadata().getName());
+            return;
+        }
+        localCache.putIfAbsent(token, data.get(KEY_AUTHORIZATION_KEY));
+
+        final Map<String, String> annotations = configMap.getMetadata().getAnnotations();
+        final String servedBy = annotations != null ? annotations.get(Metadata.SERVED_BY_ANNOTATION) : null;
+        if (servedBy != null) {
+            if (ownedChallenges.contains(token) && localCache.complete(token)) {
+                log.debug("Challenge for token={} was served by replicaId={}", token, servedBy);
+            }
+        }
+    }
+
+    private boolean isStale(ConfigMap configMap) {
+        final String created = configMap.getMetadata().getCreationTimestamp();
+        if (created == null) {
+            return false;
+        }
+        try {
+            return Instant.parse(created).plus(ttl).isBefore(Instant.now());
+        } catch (DateTimeParseException e) {
+            log.debug("Unable to parse creationTimestamp={} of configMap={}", created, configMap.getMetadata().getName());
+            return false;
+        }
+    }
+
+    static String configMapName(String token) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(token.getBytes(StandardCharsets.UTF_8));
+            // tokens may contain characters that are not valid in resource names
+            return "kita-challenge-" + HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to find SHA-256 digest", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        informer.close();
+        localCache.close();
+    }
+}
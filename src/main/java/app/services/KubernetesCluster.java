@@ -0,0 +1,32 @@
+package app.services;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * A cluster whose labelled ingresses are served, along with the client of its API server. Each one has its own
+ * watches, solver resources, and TLS secrets, whereas the ACME accounts, nonces, and issuance scheduling are shared.
+ *
+ * @param name   identifies the cluster in logs and, when clusters are configured, in the {@code cluster} tag
+ * @param client of the cluster's API server
+ * @param tags   added to the meters of the cluster's services, which is none when only kita's own cluster is served
+ */
+public record KubernetesCluster(
+    String name,
+    KubernetesClient client,
+    Tags tags
+) {
+
+    public static final String LOCAL = "local";
+
+    /**
+     * @return kita's own cluster, served when no clusters are configured
+     */
+    public static KubernetesCluster local(KubernetesClient client) {
+        return new KubernetesCluster(LOCAL, client, Tags.empty());
+    }
+
+    public static KubernetesCluster named(String name, KubernetesClient client) {
+        return new KubernetesCluster(name, client, Tags.of("cluster", name));
+    }
+}
@@ -0,0 +1,56 @@
+package app.services;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Observes the Kubernetes API requests made outside of informers and watches, tagged by verb and resource type.
+ * The requests are blocking, so the parent observation is the one restored into the calling thread by Reactor's
+ * automatic context propagation.
+ */
+@Component
+public class KubernetesMetrics {
+
+    public static final String VERB_GET = "get";
+    public static final String VERB_LIST = "list";
+    public static final String VERB_APPLY = "apply";
+    public static final String VERB_PATCH = "patch";
+    public static final String VERB_UPDATE = "update";
+    public static final String VERB_DELETE = "delete";
+
+    public static final String RESOURCE_SECRETS = "secrets";
+    public static final String RESOURCE_INGRESSES = "ingresses";
+    public static final String RESOURCE_CONFIG_MAPS = "configmaps";
+
+    private final ObservationRegistry observationRegistry;
+
+    public KubernetesMetrics(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    public <T> T record(String verb, String resource, Supplier<T> request) {
+        final Observation observation = Observation.createNotStarted("kita.kubernetes.requests", observationRegistry)
+            .contextualName("k8s " + verb + " " + resource)
+            .lowCardinalityKeyValue("verb", verb)
+            .lowCardinalityKeyValue("resource", resource)
+            .start();
+        String status = "success";
+        try (Observation.Scope ignored = observation.openScope()) {
+            return request.get();
+        } catch (KubernetesClientException e) {
+            status = e.getCode() > 0 ? String.valueOf(e.getCode()) : "error";
+            observation.error(e);
+            throw e;
+        } catch (RuntimeException e) {
+            status = "error";
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("status", status)
+                .stop();
+        }
+    }
+}
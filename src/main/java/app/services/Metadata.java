@@ -4,11 +4,55 @@ public class Metadata {
     public static final String NAMESPACE = "acme.itzg.github.io";
 
     public static final String ROLE_LABEL = NAMESPACE + "/role";
+    /**
+     * Marks a long-lived solver ingress that routes all challenge paths of its hosts
+     */
+    public static final String PERSISTENT_SOLVER_LABEL = NAMESPACE + "/persistent-solver";
 
     public static final String HOST_ANNOTATION = NAMESPACE + "/host";
 
+    /**
+     * Marks the ConfigMaps that share pending challenges across replicas
+     */
+    public static final String CHALLENGE_LABEL = NAMESPACE + "/challenge";
+    /**
+     * The replica that created a challenge ConfigMap or last applied a solver ingress
+     */
+    public static final String OWNER_ANNOTATION = NAMESPACE + "/owner";
+    public static final String SERVED_BY_ANNOTATION = NAMESPACE + "/served-by";
+
     public static final String ISSUER_LABEL = NAMESPACE + "/issuer";
     public static final String FOR_INGRESS_LABEL = NAMESPACE + "/for-ingress";
+    /**
+     * SHA-256 of the certificate chain stored in a TLS secret, which identifies writes that would change nothing
+     * and watch events that only echo metadata changes
+     */
+    public static final String CONTENT_HASH_ANNOTATION = NAMESPACE + "/content-hash";
+    /**
+     * Validity of the certificate stored in a TLS secret, recorded at issuance so that renewal checks can skip
+     * parsing the certificate. Instants are ISO-8601.
+     */
+    public static final String NOT_BEFORE_ANNOTATION = NAMESPACE + "/not-before";
+    public static final String NOT_AFTER_ANNOTATION = NAMESPACE + "/not-after";
+    public static final String RENEW_AT_ANNOTATION = NAMESPACE + "/renew-at";
+    public static final String KEY_ALGORITHM_ANNOTATION = NAMESPACE + "/key-algorithm";
+    public static final String SERIAL_ANNOTATION = NAMESPACE + "/serial";
+    public static final String RENEWAL_INFO_ID_ANNOTATION = NAMESPACE + "/renewal-info-id";
+
+    /**
+     * The consecutive failed issuances of a TLS secret as JSON, which restores their backoff after a restart
+     */
+    public static final String ISSUANCE_FAILURE_ANNOTATION = NAMESPACE + "/issuance-failure";
+    /**
+     * The {@link #ISSUANCE_FAILURE_ANNOTATION} of the ingress's TLS secrets that don't exist yet, as a JSON object
+     * keyed by secret name
+     */
+    public static final String ISSUANCE_FAILURES_ANNOTATION = NAMESPACE + "/issuance-failures";
+
+    /**
+     * The server-side apply field manager of the TLS secrets, which owns only the fields kita sets
+     */
+    public static final String FIELD_MANAGER = "kita";
 
     public static final String SOLVER_SERVICE_PORT_NAME = "http";
 
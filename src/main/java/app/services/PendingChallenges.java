@@ -0,0 +1,159 @@
+package app.services;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Concurrent map of pending challenges holding the response bodies already encoded. Entries expire after the
+ * configured TTL, so a pipeline that never reaches its cleanup doesn't leak its entry, and the number of entries
+ * is capped by evicting the soonest to expire. The owner of the map is told about expired entries so that it can
+ * release whatever else it holds for them.
+ */
+@Slf4j
+final class PendingChallenges implements Closeable {
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Map<String/*token*/, Entry> entries = new ConcurrentHashMap<>();
+    private final Consumer<String/*token*/> onExpired;
+    private final Disposable sweeper;
+
+    PendingChallenges(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, token -> {
+        });
+    }
+
+    /**
+     * @param onExpired called with the token of each expired or evicted entry, which may be on the response path
+     *                  and so must not block
+     */
+    PendingChallenges(Duration ttl, int maxEntries, Consumer<String> onExpired) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.onExpired = onExpired;
+        final long sweepMillis = Math.max(1000, Math.min(ttl.toMillis(), Duration.ofMinutes(1).toMillis()));
+        sweeper = Schedulers.single().schedulePeriodically(this::evictExpired,
+            sweepMillis, sweepMillis, TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Adds or replaces the challenge of the token
+     */
+    Entry put(String token, String keyAuthorization) {
+        if (entries.size() >= maxEntries && !entries.containsKey(token)) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                evictOldest();
+            }
+        }
+        final Entry entry = new Entry(
+            keyAuthorization.getBytes(StandardCharsets.US_ASCII),
+            new CompletableFuture<>(),
+            System.nanoTime() + ttl.toNanos()
+        );
+        final Entry previous = entries.put(token, entry);
+        if (previous != null) {
+            previous.challengeCompleted().cancel(false);
+        }
+        return entry;
+    }
+
+    /**
+     * Adds the challenge of the token only if it isn't already present, such as one observed from another replica
+     */
+    void putIfAbsent(String token, String keyAuthorization) {
+        if (!entries.containsKey(token)) {
+            put(token, keyAuthorization);
+        }
+    }
+
+    /**
+     * @return the encoded key authorization or null if the token is not known or has expired
+     */
+    @Nullable
+    byte[] responseBody(String token) {
+        final Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            expire(token, entry);
+            return null;
+        }
+        return entry.responseBody();
+    }
+
+    /**
+     * @return true if the token was present and its completion had not already been signalled
+     */
+    boolean complete(String token) {
+        final Entry entry = entries.get(token);
+        return entry != null && entry.challengeCompleted().complete(token);
+    }
+
+    void remove(String token) {
+        entries.remove(token);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void evictExpired() {
+        final long now = System.nanoTime();
+        entries.forEach((token, entry) -> {
+            if (entry.isExpired(now)) {
+                expire(token, entry);
+            }
+        });
+    }
+
+    private void evictOldest() {
+        entries.entrySet().stream()
+            .min(Comparator.comparingLong(e -> e.getValue().expiresAt()))
+            .ifPresent(oldest -> {
+                log.warn("Evicting challenge for token={} since {} challenges are pending", oldest.getKey(), maxEntries);
+                expire(oldest.getKey(), oldest.getValue());
+            });
+    }
+
+    private void expire(String token, Entry entry) {
+        if (entries.remove(token, entry)) {
+            log.debug("Expired challenge for token={}", token);
+            entry.challengeCompleted().completeExceptionally(
+                new IllegalStateException("Challenge for token " + token + " expired before being served"));
+            onExpired.accept(token);
+        }
+    }
+
+    @Override
+    public void close() {
+        sweeper.dispose();
+    }
+
+    /**
+     * @param expiresAt in terms of {@link System#nanoTime()}
+     */
+    record Entry(
+        byte[] responseBody,
+        CompletableFuture<String> challengeCompleted,
+        long expiresAt
+    ) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
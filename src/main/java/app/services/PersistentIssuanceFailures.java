@@ -0,0 +1,234 @@
+package app.services;
+
+import app.services.IssuanceTracker.IssuanceFailure;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Records the consecutive failed issuances of each TLS secret, as held by {@link IssuanceTracker}, in the
+ * {@value Metadata#ISSUANCE_FAILURE_ANNOTATION} annotation of the secret, so that their backoff is restored after a
+ * restart rather than retried immediately. A secret that doesn't exist yet has its failures recorded in the
+ * {@value Metadata#ISSUANCE_FAILURES_ANNOTATION} annotation of its ingress instead.
+ */
+@Slf4j
+public class PersistentIssuanceFailures {
+
+    private static final TypeReference<Map<String, RecordedFailure>> INGRESS_FAILURES = new TypeReference<>() {
+    };
+
+    private final KubernetesCluster cluster;
+    private final KubernetesClient k8s;
+    private final IssuanceTracker issuanceTracker;
+    private final KubernetesMetrics kubernetesMetrics;
+    private final ObjectMapper objectMapper;
+
+    public PersistentIssuanceFailures(KubernetesCluster cluster,
+        IssuanceTracker issuanceTracker,
+        KubernetesMetrics kubernetesMetrics,
+        ObjectMapper objectMapper
+    ) {
+        this.cluster = cluster;
+        this.k8s = cluster.client();
+        this.issuanceTracker = issuanceTracker;
+        this.kubernetesMetrics = kubernetesMetrics;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param tlsSecret the secret as retrieved for the reconcile, or null if it doesn't exist
+     * @return the failures held for the secret, which are restored from its annotations after a restart
+     */
+    @Nullable
+    public IssuanceFailure failureOf(Ingress ingress, String secretName, @Nullable Secret tlsSecret) {
+        final IssuanceFailure held = issuanceTracker.failureOf(cluster.name(), secretName);
+        if (held != null) {
+            return held;
+        }
+
+        final RecordedFailure recorded = tlsSecret != null ?
+            secretFailure(tlsSecret) : ingressFailures(ingress).get(secretName);
+        if (recorded == null) {
+            return null;
+        }
+        log.info("Restored {} failed issuances of secret={} which are retried at {}",
+            recorded.attempts(), secretName, recorded.retryAt()
+        );
+        return issuanceTracker.restore(recorded.toFailure(cluster.name(), secretName));
+    }
+
+    /**
+     * Records the failures held for the secret after a failed issuance, in the background since the failure is
+     * already being reported
+     */
+    public void save(Ingress ingress, String secretName) {
+        final IssuanceFailure failure = issuanceTracker.failureOf(cluster.name(), secretName);
+        if (failure == null) {
+            // such as an issuance rejected by the issuer's circuit breaker, which isn't counted
+            return;
+        }
+        final RecordedFailure recorded = RecordedFailure.of(failure);
+
+        Mono.fromRunnable(() -> {
+                if (!editSecretFailure(secretName, toJson(recorded))) {
+                    editIngressFailures(ingress.getMetadata().getName(), failures -> failures.put(secretName, recorded));
+                }
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .subscribe(null, throwable ->
+                log.warn("Failed to record failed issuance of secret={}", secretName, throwable)
+            );
+    }
+
+    /**
+     * Removes the recorded failures of the secret after its issuance succeeded
+     */
+    public void clear(Ingress ingress, String secretName) {
+        Mono.fromRunnable(() -> {
+                editSecretFailure(secretName, null);
+                if (ingressFailures(ingress).containsKey(secretName)) {
+                    editIngressFailures(ingress.getMetadata().getName(), failures -> failures.remove(secretName));
+                }
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .subscribe(null, throwable ->
+                log.warn("Failed to remove recorded failures of secret={}", secretName, throwable)
+            );
+    }
+
+    /**
+     * @param value the JSON to set, or null to remove the annotation
+     * @return false if the secret doesn't exist
+     */
+    private boolean editSecretFailure(String secretName, @Nullable String value) {
+        try {
+            kubernetesMetrics.record(KubernetesMetrics.VERB_PATCH, KubernetesMetrics.RESOURCE_SECRETS, () ->
+                k8s.secrets()
+                    .withName(secretName)
+                    .edit(secret -> {
+                        final SecretBuilder builder = new SecretBuilder(secret);
+                        if (value != null) {
+                            builder.editMetadata().addToAnnotations(Metadata.ISSUANCE_FAILURE_ANNOTATION, value)
+                                .endMetadata();
+                        } else {
+                            builder.editMetadata().removeFromAnnotations(Metadata.ISSUANCE_FAILURE_ANNOTATION)
+                                .endMetadata();
+                        }
+                        return builder.build();
+                    })
+            );
+            return true;
+        } catch (KubernetesClientException e) {
+            if (e.getCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Synchronized since the annotation holds the failures of all the ingress's secrets
+     */
+    private synchronized void editIngressFailures(String ingressName, Consumer<Map<String, RecordedFailure>> change) {
+        kubernetesMetrics.record(KubernetesMetrics.VERB_PATCH, KubernetesMetrics.RESOURCE_INGRESSES, () ->
+            k8s.network().v1().ingresses()
+                .withName(ingressName)
+                .edit(ingress -> {
+                    final Map<String, RecordedFailure> failures = new HashMap<>(ingressFailures(ingress));
+                    change.accept(failures);
+                    final IngressBuilder builder = new IngressBuilder(ingress);
+                    if (failures.isEmpty()) {
+                        builder.editMetadata().removeFromAnnotations(Metadata.ISSUANCE_FAILURES_ANNOTATION)
+                            .endMetadata();
+                    } else {
+                        builder.editMetadata().addToAnnotations(Metadata.ISSUANCE_FAILURES_ANNOTATION, toJson(failures))
+                            .endMetadata();
+                    }
+                    return builder.build();
+                })
+        );
+    }
+
+    @Nullable
+    private RecordedFailure secretFailure(Secret tlsSecret) {
+        final Map<String, String> annotations = tlsSecret.getMetadata().getAnnotations();
+        final String value = annotations != null ? annotations.get(Metadata.ISSUANCE_FAILURE_ANNOTATION) : null;
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(value, RecordedFailure.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unparsable issuance failure of secret={}", tlsSecret.getMetadata().getName(), e);
+            return null;
+        }
+    }
+
+    private Map<String, RecordedFailure> ingressFailures(Ingress ingress) {
+        final Map<String, String> annotations = ingress.getMetadata().getAnnotations();
+        final String value = annotations != null ? annotations.get(Metadata.ISSUANCE_FAILURES_ANNOTATION) : null;
+        if (value == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(value, INGRESS_FAILURES);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unparsable issuance failures of ingress={}", ingress.getMetadata().getName(), e);
+            return Map.of();
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * What is kept of an {@link IssuanceFailure} across restarts, which leaves out the error message since the
+     * issuance history isn't kept either
+     *
+     * @param retryAfter the issuer's Retry-After of a rateLimited problem
+     */
+    public record RecordedFailure(
+        String issuer,
+        int attempts,
+        String phase,
+        String problem,
+        @Nullable Duration retryAfter,
+        Instant lastFailedAt,
+        Instant retryAt
+    ) {
+
+        static RecordedFailure of(IssuanceFailure failure) {
+            return new RecordedFailure(failure.issuer(), failure.attempts(), failure.phase(), failure.problem(),
+                failure.retryAfter(), failure.lastFailedAt(), failure.retryAt()
+            );
+        }
+
+        IssuanceFailure toFailure(String cluster, String secretName) {
+            return new IssuanceFailure(cluster, secretName, issuer, attempts, phase, problem, null, retryAfter,
+                lastFailedAt, retryAt
+            );
+        }
+    }
+}
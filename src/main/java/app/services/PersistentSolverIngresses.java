@@ -0,0 +1,263 @@
+package app.services;
+
+import app.config.AppProperties;
+import app.config.AppProperties.SolverMode;
+import app.controllers.AcmeChallengeController;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.HTTPIngressPathBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.HTTPIngressRuleValueBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressBackendBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressRule;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressRuleBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressServiceBackendBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressSpecBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressTLS;
+import io.fabric8.kubernetes.api.model.networking.v1.ServiceBackendPort;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Maintains a long-lived solver ingress per ingress class that routes the challenge path prefix of every
+ * application host, so that solving a challenge only needs an entry in {@link AcmeChallengeController}.
+ * Host changes are coalesced and applied incrementally as application ingresses come and go.
+ */
+@Slf4j
+public class PersistentSolverIngresses {
+
+    private static final String DEFAULT_CLASS_KEY = "default";
+
+    private final KubernetesClient k8s;
+    private final SolverInformers solverInformers;
+    private final AppProperties appProperties;
+    private final KubernetesMetrics kubernetesMetrics;
+    private final ChallengeStore challengeStore;
+    private final Map<String/*app ingress name*/, RegisteredHosts> registrations = new ConcurrentHashMap<>();
+    private final Map<String/*class key*/, Set<String>> onDemandHosts = new ConcurrentHashMap<>();
+    private final Map<String/*class key*/, Ingress> appliedIngresses = new ConcurrentHashMap<>();
+    private final Map<String/*class key*/, Mono<Ingress>> pendingApplies = new ConcurrentHashMap<>();
+
+    public PersistentSolverIngresses(KubernetesCluster cluster, SolverInformers solverInformers,
+        AppProperties appProperties,
+        KubernetesMetrics kubernetesMetrics,
+        ChallengeStore challengeStore
+    ) {
+        this.k8s = cluster.client();
+        this.solverInformers = solverInformers;
+        this.appProperties = appProperties;
+        this.kubernetesMetrics = kubernetesMetrics;
+        this.challengeStore = challengeStore;
+    }
+
+    public static boolean isPersistent(Ingress ingress) {
+        final Map<String, String> labels = ingress.getMetadata().getLabels();
+        return labels != null && Objects.equals(labels.get(Metadata.PERSISTENT_SOLVER_LABEL), "true");
+    }
+
+    /**
+     * Tracks the TLS hosts of an application ingress and schedules an update of its class's solver ingress
+     * if they changed.
+     */
+    public void register(Ingress appIngress) {
+        if (appProperties.solverMode() != SolverMode.PERSISTENT) {
+            return;
+        }
+
+        final String ingressClassName = appIngress.getSpec().getIngressClassName();
+        final Set<String> hosts = appIngress.getSpec().getTls() == null ? Set.of()
+            : appIngress.getSpec().getTls().stream()
+                .map(IngressTLS::getHosts)
+                .filter(Objects::nonNull)
+                .flatMap(tlsHosts -> tlsHosts.stream()
+                    // wildcards can't be solved via HTTP-01
+                    .filter(host -> !host.startsWith("*.")))
+                .collect(Collectors.toSet());
+
+        final RegisteredHosts registered = new RegisteredHosts(ingressClassName, hosts);
+        final RegisteredHosts previous = registrations.put(appIngress.getMetadata().getName(), registered);
+        if (!registered.equals(previous)) {
+            scheduleApply(ingressClassName);
+            if (previous != null && !Objects.equals(classKey(previous.ingressClassName()), classKey(ingressClassName))) {
+                scheduleApply(previous.ingressClassName());
+            }
+        }
+    }
+
+    public void unregister(Ingress appIngress) {
+        if (appProperties.solverMode() != SolverMode.PERSISTENT) {
+            return;
+        }
+
+        final RegisteredHosts previous = registrations.remove(appIngress.getMetadata().getName());
+        if (previous != null) {
+            scheduleApply(previous.ingressClassName());
+        }
+    }
+
+    /**
+     * @return the persistent solver ingress of the class once it routes the given host
+     */
+    public Mono<Ingress> awaitHost(@Nullable String ingressClassName, String host) {
+        final String key = classKey(ingressClassName);
+        final Ingress current = appliedIngress(ingressClassName);
+        if (current != null && hostsOf(current).contains(host)) {
+            return Mono.just(current);
+        }
+
+        // such as pre-authorization of a host whose application ingress hasn't been observed yet
+        onDemandHosts.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(host);
+        return scheduleApply(ingressClassName)
+            .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                "Persistent solver ingress for class " + key + " was not applied")));
+    }
+
+    private Mono<Ingress> scheduleApply(@Nullable String ingressClassName) {
+        final String key = classKey(ingressClassName);
+        return pendingApplies.computeIfAbsent(key, k -> {
+            final Mono<Ingress> pending = Mono.delay(appProperties.persistentSolver().applyDelay())
+                .then(solverInformers.solverService())
+                .publishOn(Schedulers.boundedElastic())
+                .mapNotNull(service -> {
+                    // changes after this point schedule another apply since the hosts are captured now
+                    pendingApplies.remove(k);
+                    return apply(ingressClassName, service);
+                })
+                .flatMap(ingress -> appProperties.selfCheck().enabled() ?
+                    Mono.just(ingress) : solverInformers.whenIngressReady(ingress)
+                )
+                .cache();
+            pending.subscribe(null, throwable ->
+                log.warn("Failed to apply persistent solver ingress for class={}", k, throwable)
+            );
+            return pending;
+        });
+    }
+
+    @Nullable
+    private Ingress apply(@Nullable String ingressClassName, io.fabric8.kubernetes.api.model.Service service) {
+        final String key = classKey(ingressClassName);
+        final Set<String> desiredHosts = new TreeSet<>(onDemandHosts.getOrDefault(key, Set.of()));
+        registrations.values().stream()
+            .filter(registered -> Objects.equals(classKey(registered.ingressClassName()), key))
+            .forEach(registered -> desiredHosts.addAll(registered.hosts()));
+
+        final String ingressName = SolverService.buildIngressName(service.getMetadata().getName(), "class-" + key);
+        final Ingress current = appliedIngress(ingressClassName);
+        if (current != null && hostsOf(current).equals(desiredHosts)) {
+            return current;
+        }
+
+        if (desiredHosts.isEmpty()) {
+            if (current != null) {
+                log.info("Deleting persistent solver ingress={} since no hosts remain", ingressName);
+                kubernetesMetrics.record(KubernetesMetrics.VERB_DELETE, KubernetesMetrics.RESOURCE_INGRESSES, () ->
+                    k8s.network().v1().ingresses()
+                        .resource(current)
+                        .delete()
+                );
+                appliedIngresses.remove(key);
+            }
+            return null;
+        }
+
+        log.info("Applying persistent solver ingress={} for class={} with {} hosts", ingressName, key, desiredHosts.size());
+        final ServiceBackendPort servicePort = SolverService.portForIngressFromService(service);
+        final Ingress desired = new IngressBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withName(ingressName)
+                .withLabels(Map.of(
+                    Metadata.ROLE_LABEL, appProperties.solverRole(),
+                    Metadata.PERSISTENT_SOLVER_LABEL, "true"
+                ))
+                // shared by the replicas, so this only keeps the sweepers of those with another solver mode away
+                // while the last one to apply it is solving challenges
+                .withAnnotations(Map.of(Metadata.OWNER_ANNOTATION, challengeStore.replicaId()))
+                .build()
+            )
+            .withSpec(new IngressSpecBuilder()
+                .withIngressClassName(ingressClassName)
+                .withRules(desiredHosts.stream()
+                    .map(host -> new IngressRuleBuilder()
+                        .withHost(host)
+                        .withHttp(new HTTPIngressRuleValueBuilder()
+                            .withPaths(new HTTPIngressPathBuilder()
+                                .withPathType("Prefix")
+                                .withPath(AcmeChallengeController.BASE_CHALLENGE_PATH + "/")
+                                .withBackend(new IngressBackendBuilder()
+                                    .withService(new IngressServiceBackendBuilder()
+                                        .withName(service.getMetadata().getName())
+                                        .withPort(servicePort)
+                                        .build()
+                                    )
+                                    .build()
+                                )
+                                .build()
+                            )
+                            .build()
+                        )
+                        .build()
+                    )
+                    .toList()
+                )
+                .build()
+            )
+            .build();
+        final Ingress applied = kubernetesMetrics.record(KubernetesMetrics.VERB_APPLY,
+            KubernetesMetrics.RESOURCE_INGRESSES, () ->
+                k8s.network().v1().ingresses()
+                    .resource(desired)
+                    .serverSideApply()
+        );
+        appliedIngresses.put(key, applied);
+        return applied;
+    }
+
+    /**
+     * @return the last applied ingress of the class, which is initially seeded from the informer cache
+     */
+    @Nullable
+    private Ingress appliedIngress(@Nullable String ingressClassName) {
+        final String key = classKey(ingressClassName);
+        final Ingress applied = appliedIngresses.get(key);
+        if (applied != null) {
+            return applied;
+        }
+        return solverInformers.solverIngresses().stream()
+            .filter(PersistentSolverIngresses::isPersistent)
+            .filter(ingress -> Objects.equals(classKey(ingress.getSpec().getIngressClassName()), key))
+            .findFirst()
+            .map(ingress -> {
+                appliedIngresses.putIfAbsent(key, ingress);
+                return ingress;
+            })
+            .orElse(null);
+    }
+
+    private static Set<String> hostsOf(Ingress ingress) {
+        return ingress.getSpec().getRules().stream()
+            .map(IngressRule::getHost)
+            .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static String classKey(@Nullable String ingressClassName) {
+        return ingressClassName != null ? ingressClassName : DEFAULT_CLASS_KEY;
+    }
+
+    private record RegisteredHosts(
+        @Nullable
+        String ingressClassName,
+        Set<String> hosts
+    ) {
+
+    }
+}
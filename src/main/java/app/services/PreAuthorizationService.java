@@ -0,0 +1,131 @@
+package app.services;
+
+import app.messages.AuthzResponse;
+import app.messages.NewAuthzRequest;
+import app.model.Identifier;
+import app.services.AuthorizationService.Authorization;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import java.net.URI;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Authorizes hosts ahead of their renewal, so that the challenge round trip is off of the renewal's critical path.
+ * Pre-authorizations take the same concurrent slots of the {@link IssuanceScheduler} as issuances, after them.
+ *
+ * @see <a href="https://datatracker.ietf.org/doc/html/rfc8555#section-7.4.1">RFC 8555 Sec 7.4.1 Pre-authorization</a>
+ */
+@Slf4j
+public class PreAuthorizationService {
+
+    private final AcmeDirectoryService directoryService;
+    private final AcmeRequestService requestService;
+    private final AuthorizationService authorizationService;
+    private final CertificateProcessingService certificateProcessingService;
+    private final IssuanceScheduler issuanceScheduler;
+    private final Map<String/*issuerId/host*/, Instant> validUntil = new ConcurrentHashMap<>();
+    private final Set<String/*issuerId/host*/> inFlight = Collections.synchronizedSet(new HashSet<>());
+
+    public PreAuthorizationService(AcmeDirectoryService directoryService,
+        AcmeRequestService requestService,
+        AuthorizationService authorizationService,
+        CertificateProcessingService certificateProcessingService,
+        IssuanceScheduler issuanceScheduler
+    ) {
+        this.directoryService = directoryService;
+        this.requestService = requestService;
+        this.authorizationService = authorizationService;
+        this.certificateProcessingService = certificateProcessingService;
+        this.issuanceScheduler = issuanceScheduler;
+    }
+
+    /**
+     * @param neededUntil hosts with a tracked authorization that remains valid beyond this time are skipped
+     */
+    public Mono<Void> preAuthorize(String issuerId, Ingress ingress, List<String> hosts, Instant neededUntil) {
+        final List<String> needed = hosts.stream()
+            .filter(host -> !isAuthorized(issuerId, host, neededUntil))
+            .filter(host -> inFlight.add(key(issuerId, host)))
+            .toList();
+        if (needed.isEmpty()) {
+            log.debug("Hosts={} are already authorized or being authorized with issuer={}", hosts, issuerId);
+            return Mono.empty();
+        }
+
+        return issuanceScheduler.schedulePreAuthorization(issuerId, needed, () -> {
+                log.info("Pre-authorizing hosts={} with issuer={} ahead of renewal at {}", needed, issuerId,
+                    neededUntil
+                );
+                return authorize(issuerId, ingress, needed)
+                    .doOnNext(authz -> track(issuerId, authz))
+                    .then();
+            })
+            // also when cancelled while still waiting for a slot
+            .doFinally(signalType -> needed.forEach(host -> inFlight.remove(key(issuerId, host))));
+    }
+
+    /**
+     * @return true if a tracked authorization for the host remains valid beyond the given time
+     */
+    public boolean isAuthorized(String issuerId, String host, Instant neededUntil) {
+        final Instant expires = validUntil.get(key(issuerId, host));
+        return expires != null && expires.isAfter(neededUntil);
+    }
+
+    private Flux<AuthzResponse> authorize(String issuerId, Ingress ingress, List<String> hosts) {
+        final URI newAuthzUrl = directoryService.directoryFor(issuerId).newAuthz();
+        return newAuthzUrl != null ?
+            Flux.fromIterable(hosts)
+                .flatMap(host -> newAuthorization(issuerId, newAuthzUrl, host))
+                .collectList()
+                .flatMapMany(created -> authorizationService.processLoadedAuthorizations(issuerId, created, ingress))
+            // Such as Let's Encrypt, which doesn't offer newAuthz; however, the valid authorizations of an
+            // order that is never finalized are still reused by the renewal's order.
+            : certificateProcessingService.authorizeHosts(issuerId, ingress, hosts);
+    }
+
+    private Mono<Authorization> newAuthorization(String issuerId, URI newAuthzUrl, String host) {
+        return requestService.requestEntity(issuerId, newAuthzUrl,
+                NewAuthzRequest.builder()
+                    .identifier(Identifier.dns(host))
+                    .build(),
+                AuthzResponse.class
+            )
+            .flatMap(entity -> {
+                final URI authzUri = entity.getHeaders().getLocation();
+                final AuthzResponse authz = entity.getBody();
+                if (authzUri == null || authz == null) {
+                    return Mono.error(new IllegalStateException("New authorization response for host " + host
+                        + " was missing location or body"));
+                }
+                return Mono.just(new Authorization(authzUri, authz));
+            });
+    }
+
+    private void track(String issuerId, AuthzResponse authz) {
+        final String host = authz.identifier().value();
+        if (Objects.equals(authz.status(), AuthorizationService.STATUS_VALID) && authz.expires() != null) {
+            log.debug("Host={} is pre-authorized with issuer={} until {}", host, issuerId, authz.expires());
+            validUntil.put(key(issuerId, host), authz.expires());
+        } else {
+            log.warn("Pre-authorization of host={} with issuer={} ended with status={}", host, issuerId, authz.status());
+            validUntil.remove(key(issuerId, host));
+        }
+
+        final Instant now = Instant.now();
+        validUntil.values().removeIf(expires -> expires.isBefore(now));
+    }
+
+    private static String key(String issuerId, String host) {
+        return issuerId + "/" + host;
+    }
+}
@@ -0,0 +1,82 @@
+package app.services;
+
+import app.config.AppProperties;
+import app.config.AppProperties.SelfCheck;
+import app.controllers.AcmeChallengeController;
+import app.services.SolverService.SolverChallenge;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.retry.Retry;
+
+/**
+ * Confirms that a challenge is served through the ingress before asking the ACME server to validate it, which
+ * avoids failed validations that count against the issuer's rate limits.
+ */
+@Service
+@Slf4j
+public class SelfCheckService {
+
+    private final SelfCheck config;
+    private final WebClient webClient;
+
+    public SelfCheckService(WebClient.Builder webClientBuilder, AppProperties appProperties) {
+        this.config = appProperties.selfCheck();
+        webClient = webClientBuilder.clone()
+            .clientConnector(new ReactorClientHttpConnector(
+                HttpClient.create()
+                    // same as the ACME server's validation requests
+                    .followRedirect(true)
+                    .responseTimeout(config.requestTimeout())
+            ))
+            .build();
+    }
+
+    /**
+     * @return completes when the challenge's key authorization is served for its host, or immediately when
+     * self-checks are disabled
+     */
+    public Mono<Void> verify(SolverChallenge challenge) {
+        if (!config.enabled()) {
+            return Mono.empty();
+        }
+
+        final String url = "http://" + challenge.host()
+            + AcmeChallengeController.BASE_CHALLENGE_PATH + "/" + challenge.token();
+
+        return webClient.get()
+            .uri(url)
+            .header(AcmeChallengeController.SELF_CHECK_HEADER, "true")
+            .retrieve()
+            .bodyToMono(String.class)
+            .defaultIfEmpty("")
+            .flatMap(body -> Objects.equals(body.trim(), challenge.keyAuthorization()) ?
+                Mono.<Void>empty()
+                : Mono.error(new SelfCheckFailed("Unexpected content from " + url))
+            )
+            .doOnError(throwable -> log.debug("Self-check of url={} not passing yet: {}", url, throwable.getMessage()))
+            .retryWhen(Retry.backoff(config.maxAttempts(), config.initialBackoff())
+                .maxBackoff(config.maxBackoff())
+                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) ->
+                    new SelfCheckFailed("Self-check of " + url + " did not pass after "
+                        + retrySignal.totalRetries() + " retries", retrySignal.failure())
+                )
+            )
+            .doOnSuccess(unused -> log.debug("Self-check of url={} passed", url));
+    }
+
+    public static class SelfCheckFailed extends RuntimeException {
+
+        public SelfCheckFailed(String message) {
+            super(message);
+        }
+
+        public SelfCheckFailed(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package app.services;
+
+import app.config.AppProperties;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressLoadBalancerIngress;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import reactor.core.publisher.Mono;
+
+/**
+ * Long-lived informers over the solver service and solver-role ingresses, so that the number of watches stays
+ * constant no matter how many challenges are in progress. They are run when the application context starts.
+ */
+@Slf4j
+public class SolverInformers implements SmartLifecycle, Closeable {
+
+    private final SharedIndexInformer<Service> serviceInformer;
+    private final SharedIndexInformer<Ingress> ingressInformer;
+    private final Map<String/*ingress key*/, CompletableFuture<Ingress>> pendingReadiness = new ConcurrentHashMap<>();
+    private volatile CompletableFuture<Service> serviceAvailable = new CompletableFuture<>();
+
+    public SolverInformers(KubernetesCluster cluster, AppProperties appProperties) {
+        final KubernetesClient k8s = cluster.client();
+        log.debug("Setting up informers for solver resources with label {}={}",
+            Metadata.ROLE_LABEL, appProperties.solverRole()
+        );
+
+        serviceInformer = k8s.services()
+            .withLabel(Metadata.ROLE_LABEL, appProperties.solverRole())
+            .runnableInformer(0);
+        serviceInformer.addEventHandler(new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(Service service) {
+                log.debug("Located solver service named={}", service.getMetadata().getName());
+                serviceAvailable.complete(service);
+            }
+
+            @Override
+            public void onUpdate(Service oldService, Service service) {
+                serviceAvailable.complete(service);
+            }
+
+            @Override
+            public void onDelete(Service service, boolean deletedFinalStateUnknown) {
+                log.warn("Solver service named={} was deleted", service.getMetadata().getName());
+                serviceAvailable = new CompletableFuture<>();
+            }
+        });
+
+        ingressInformer = k8s.network().v1().ingresses()
+            .withLabel(Metadata.ROLE_LABEL, appProperties.solverRole())
+            .runnableInformer(0);
+        ingressInformer.addEventHandler(new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(Ingress ingress) {
+                checkReadiness(ingress);
+            }
+
+            @Override
+            public void onUpdate(Ingress oldIngress, Ingress ingress) {
+                checkReadiness(ingress);
+            }
+
+            @Override
+            public void onDelete(Ingress ingress, boolean deletedFinalStateUnknown) {
+                final CompletableFuture<Ingress> pending = pendingReadiness.remove(Cache.metaNamespaceKeyFunc(ingress));
+                if (pending != null) {
+                    pending.completeExceptionally(new IllegalStateException(
+                        "Solver ingress " + ingress.getMetadata().getName() + " was deleted before becoming ready"));
+                }
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        // waits for the initial list of each, like inform
+        serviceInformer.run();
+        ingressInformer.run();
+    }
+
+    @Override
+    public void stop() {
+        close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return serviceInformer.isRunning();
+    }
+
+    @Override
+    public int getPhase() {
+        return AcmeDirectoryService.PHASE;
+    }
+
+    /**
+     * @return the solver service from the cache, or waits for one to be created
+     */
+    public Mono<Service> solverService() {
+        final List<Service> services = serviceInformer.getStore().list();
+        if (!services.isEmpty()) {
+            return Mono.just(services.get(0));
+        }
+        log.debug("Waiting for solver service to be created");
+        return Mono.fromFuture(serviceAvailable, true);
+    }
+
+    /**
+     * @return the solver-role ingresses currently known to the informer
+     */
+    public List<Ingress> solverIngresses() {
+        return ingressInformer.getStore().list();
+    }
+
+    public Mono<Ingress> whenIngressReady(Ingress ingress) {
+        final String key = Cache.metaNamespaceKeyFunc(ingress);
+        final CompletableFuture<Ingress> ready = pendingReadiness.computeIfAbsent(key, k -> new CompletableFuture<>());
+
+        // the informer may have already observed the ready state prior to registration
+        final Ingress current = ingressInformer.getStore().getByKey(key);
+        if (current != null) {
+            checkReadiness(current);
+        }
+
+        return Mono.fromFuture(ready, true)
+            .doFinally(signalType -> pendingReadiness.remove(key, ready));
+    }
+
+    private void checkReadiness(Ingress ingress) {
+        final List<IngressLoadBalancerIngress> lbIngresses = ingress.getStatus() != null
+            && ingress.getStatus().getLoadBalancer() != null ?
+            ingress.getStatus().getLoadBalancer().getIngress() : null;
+        log.trace("Observed solver ingress={} with lbIngresses={}", ingress.getMetadata().getName(), lbIngresses);
+        if (lbIngresses != null && !lbIngresses.isEmpty()) {
+            final CompletableFuture<Ingress> pending = pendingReadiness.remove(Cache.metaNamespaceKeyFunc(ingress));
+            if (pending != null) {
+                log.debug("Solver ingress={} is ready", ingress.getMetadata().getName());
+                pending.complete(ingress);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        serviceInformer.close();
+        ingressInformer.close();
+    }
+}
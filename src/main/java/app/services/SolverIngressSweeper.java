@@ -0,0 +1,179 @@
+package app.services;
+
+import app.config.AppProperties;
+import app.config.AppProperties.SolverGc;
+import app.config.AppProperties.SolverMode;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Deletes solver ingresses that no challenge in progress owns, such as those left behind when kita was stopped in
+ * the middle of a challenge. Sweeps run once the solver informers have started and then periodically.
+ * <p>
+ * An ingress owned by another replica, as recorded in its {@link Metadata#OWNER_ANNOTATION}, is only deleted once
+ * the {@link ChallengeStore} no longer knows of challenges in progress by that replica.
+ */
+@Slf4j
+public class SolverIngressSweeper implements SmartLifecycle {
+
+    private final KubernetesClient k8s;
+    private final KubernetesMetrics kubernetesMetrics;
+    private final SolverInformers solverInformers;
+    private final SolverService solverService;
+    private final ChallengeStore challengeStore;
+    private final AppProperties appProperties;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicInteger lastOrphanCount = new AtomicInteger();
+    private final Counter sweepCounter;
+    private final Counter deletedCounter;
+    private final Counter failedCounter;
+    private final TaskScheduler taskScheduler;
+    @Nullable
+    private volatile ScheduledFuture<?> scheduledSweeps;
+
+    public SolverIngressSweeper(KubernetesCluster cluster,
+        TaskScheduler taskScheduler,
+        SolverInformers solverInformers,
+        SolverService solverService,
+        ChallengeStore challengeStore,
+        MeterRegistry meterRegistry,
+        KubernetesMetrics kubernetesMetrics,
+        AppProperties appProperties
+    ) {
+        this.k8s = cluster.client();
+        this.taskScheduler = taskScheduler;
+        this.kubernetesMetrics = kubernetesMetrics;
+        this.solverInformers = solverInformers;
+        this.solverService = solverService;
+        this.challengeStore = challengeStore;
+        this.appProperties = appProperties;
+
+        sweepCounter = Counter.builder("kita.solver.gc.sweeps")
+            .description("Sweeps for orphaned solver ingresses")
+            .tags(cluster.tags())
+            .register(meterRegistry);
+        deletedCounter = Counter.builder("kita.solver.gc.deleted")
+            .description("Orphaned solver ingresses that were deleted")
+            .tags(cluster.tags())
+            .register(meterRegistry);
+        failedCounter = Counter.builder("kita.solver.gc.failed")
+            .description("Orphaned solver ingresses that could not be deleted")
+            .tags(cluster.tags())
+            .register(meterRegistry);
+        meterRegistry.gauge("kita.solver.gc.orphans", cluster.tags(), lastOrphanCount);
+    }
+
+    @Override
+    public void start() {
+        final SolverGc config = appProperties.solverGc();
+        if (config.enabled()) {
+            scheduledSweeps = taskScheduler.scheduleWithFixedDelay(this::sweep, Instant.now(), config.interval());
+        }
+    }
+
+    @Override
+    public void stop() {
+        final ScheduledFuture<?> scheduled = scheduledSweeps;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduledSweeps = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduledSweeps != null;
+    }
+
+    void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            log.debug("Skipping sweep of solver ingresses since the previous one is still running");
+            return;
+        }
+
+        // reset here unless the deletions were subscribed, which reset it once done
+        boolean deleting = false;
+        try {
+            final SolverGc config = appProperties.solverGc();
+            final Instant cutoff = Instant.now().minus(config.minAge());
+            final List<Ingress> orphans = solverInformers.solverIngresses().stream()
+                .filter(ingress -> isOrphaned(ingress, cutoff))
+                .toList();
+            sweepCounter.increment();
+            lastOrphanCount.set(orphans.size());
+
+            if (orphans.isEmpty()) {
+                log.debug("Found no orphaned solver ingresses");
+                return;
+            }
+            log.info("Deleting {} orphaned solver ingresses", orphans.size());
+
+            Flux.fromIterable(orphans)
+                .buffer(config.batchSize())
+                .concatMap(batch -> Flux.fromIterable(batch)
+                        .flatMap(this::delete)
+                        .then(Mono.delay(config.batchInterval())),
+                    1
+                )
+                .doFinally(signalType -> sweeping.set(false))
+                .subscribe(null, throwable -> log.warn("Sweep of orphaned solver ingresses failed", throwable));
+            deleting = true;
+        } finally {
+            if (!deleting) {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    private boolean isOrphaned(Ingress ingress, Instant cutoff) {
+        if (PersistentSolverIngresses.isPersistent(ingress) && appProperties.solverMode() == SolverMode.PERSISTENT) {
+            return false;
+        }
+        final Map<String, String> annotations = ingress.getMetadata().getAnnotations();
+        final String owner = annotations != null ? annotations.get(Metadata.OWNER_ANNOTATION) : null;
+        if (owner == null || owner.equals(challengeStore.replicaId())) {
+            if (solverService.isActive(ingress)) {
+                return false;
+            }
+        }
+        else if (challengeStore.isReplicaActive(owner)) {
+            log.trace("Leaving solver ingress={} to its owner replicaId={}", ingress.getMetadata().getName(), owner);
+            return false;
+        }
+        final String creationTimestamp = ingress.getMetadata().getCreationTimestamp();
+        return creationTimestamp != null && Instant.parse(creationTimestamp).isBefore(cutoff);
+    }
+
+    private Mono<Void> delete(Ingress ingress) {
+        return Mono.<Void>fromRunnable(() ->
+                kubernetesMetrics.record(KubernetesMetrics.VERB_DELETE, KubernetesMetrics.RESOURCE_INGRESSES, () ->
+                    k8s.network().v1().ingresses().resource(ingress).delete()
+                )
+            )
+            .subscribeOn(Schedulers.boundedElastic())
+            .doOnSuccess(unused -> {
+                log.debug("Deleted orphaned solver ingress={}", ingress.getMetadata().getName());
+                deletedCounter.increment();
+            })
+            .onErrorResume(throwable -> {
+                log.warn("Failed to delete orphaned solver ingress={}", ingress.getMetadata().getName(), throwable);
+                failedCounter.increment();
+                return Mono.empty();
+            });
+    }
+}
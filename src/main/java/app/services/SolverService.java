@@ -1,80 +1,84 @@
 package app.services;
 
 import app.config.AppProperties;
+import app.config.AppProperties.SolverMode;
 import app.controllers.AcmeChallengeController;
 import app.controllers.AcmeChallengeController.PreparedChallenge;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.api.model.ServicePort;
 import io.fabric8.kubernetes.api.model.networking.v1.*;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.Watch;
-import io.fabric8.kubernetes.client.Watcher;
-import io.fabric8.kubernetes.client.WatcherException;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
-import reactor.core.publisher.Sinks.One;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
-@Service
 @Slf4j
 public class SolverService {
 
     private final KubernetesClient k8s;
     private final AcmeChallengeController acmeChallengeController;
+    private final SolverInformers solverInformers;
+    private final PersistentSolverIngresses persistentSolverIngresses;
     private final AppProperties appProperties;
+    private final IssuanceObservations issuanceObservations;
+    private final KubernetesMetrics kubernetesMetrics;
+    private final ChallengeStore challengeStore;
+    private final Set<String/*ingress name*/> activeSolverIngresses = ConcurrentHashMap.newKeySet();
 
-    public SolverService(KubernetesClient k8s, AcmeChallengeController acmeChallengeController,
-        AppProperties appProperties
+    public SolverService(KubernetesCluster cluster, AcmeChallengeController acmeChallengeController,
+        SolverInformers solverInformers,
+        PersistentSolverIngresses persistentSolverIngresses,
+        AppProperties appProperties,
+        IssuanceObservations issuanceObservations,
+        KubernetesMetrics kubernetesMetrics,
+        ChallengeStore challengeStore
     ) {
-        this.k8s = k8s;
+        this.k8s = cluster.client();
         this.acmeChallengeController = acmeChallengeController;
+        this.solverInformers = solverInformers;
+        this.persistentSolverIngresses = persistentSolverIngresses;
         this.appProperties = appProperties;
+        this.issuanceObservations = issuanceObservations;
+        this.kubernetesMetrics = kubernetesMetrics;
+        this.challengeStore = challengeStore;
     }
 
     Mono<io.fabric8.kubernetes.api.model.Service> solverService() {
-        final One<io.fabric8.kubernetes.api.model.Service> sink = Sinks.one();
-
-        log.debug("Locating solver service resource with label {}={} via watch",
-            Metadata.ROLE_LABEL, appProperties.solverRole()
-        );
-
-        //noinspection resource closed in mono below
-        final Watch watch = k8s.services()
-            .withLabel(Metadata.ROLE_LABEL, appProperties.solverRole())
-            .watch(new Watcher<>() {
-
-                @Override
-                public void eventReceived(Action action, io.fabric8.kubernetes.api.model.Service service) {
-                    if (action.equals(Action.ADDED) || action.equals(Action.MODIFIED)) {
-                        log.debug("Located solver service named={}", service.getMetadata().getName());
-                        sink.emitValue(service, (signalType, emitResult) -> {
-                            log.error("Failure when emitting service={}", service);
-                            return false;
-                        });
-                    }
-                }
-
-                @Override
-                public void onClose(WatcherException cause) {
-                    log.debug("Watch for solver service got closed", cause);
-                    sink.emitError(cause, (signalType, emitResult) -> false);
-                }
-            });
-
-        return sink.asMono()
-            .doOnTerminate(watch::close);
+        return solverInformers.solverService();
     }
 
     public Mono<IngressSetup> setupSolverIngress(String issuerId, String ingressClassName, String host, String token,
         String keyAuthorization
     ) {
+        return issuanceObservations.observePhase(IssuanceObservations.PHASE_SOLVER_READY, issuerId,
+            setupSolverIngressUntimed(issuerId, ingressClassName, host, token, keyAuthorization)
+        );
+    }
+
+    private Mono<IngressSetup> setupSolverIngressUntimed(String issuerId, String ingressClassName, String host,
+        String token, String keyAuthorization
+    ) {
+        if (appProperties.solverMode() == SolverMode.PERSISTENT) {
+            final PreparedChallenge preparedChallenge = acmeChallengeController.prepareForChallenge(token, keyAuthorization);
+            return persistentSolverIngresses.awaitHost(ingressClassName, host)
+                .map(persistentIngress -> IngressSetup.builder()
+                    .ingress(persistentIngress)
+                    .challengeCompleted(preparedChallenge.challengeCompleted())
+                    .build())
+                .doOnError(throwable -> acmeChallengeController.removeChallenge(token));
+        }
+
         return solverService()
             .flatMap(service -> {
                 final PreparedChallenge preparedChallenge = acmeChallengeController.prepareForChallenge(token, keyAuthorization);
@@ -97,83 +101,127 @@ public class SolverService {
     }
 
     private Mono<Ingress> emitWhenIngressReady(Ingress ingress) {
-        final One<Ingress> ingressReady = Sinks.one();
-
-        //noinspection resource closed during mono below
-        final Watch watch = k8s.network().v1().ingresses()
-            .withName(ingress.getMetadata().getName())
-            .watch(new Watcher<>() {
-                @Override
-                public void eventReceived(Action action, Ingress resource) {
-                    final List<IngressLoadBalancerIngress> lbIngresses = resource.getStatus().getLoadBalancer().getIngress();
-                    log.trace("Event on ingress is action={} lbIngresses={}", action, lbIngresses);
-                    if (lbIngresses != null && !lbIngresses.isEmpty()) {
-                        log.debug("Solver ingress={} is ready", resource.getMetadata().getName());
-                        ingressReady.emitValue(resource, (signalType, emitResult) -> false);
-                    }
-                }
+        if (appProperties.selfCheck().enabled()) {
+            // the self-check confirms routing, which also covers controllers that never report load balancer status
+            return Mono.just(ingress);
+        }
+        return solverInformers.whenIngressReady(ingress);
+    }
 
-                @Override
-                public void onClose(WatcherException cause) {
-                    log.debug("Watch of ingress readiness got closed", cause);
-                    ingressReady.emitError(cause, (signalType, emitResult) -> false);
+    /**
+     * Creates a single solver ingress that carries the challenge paths of all the given challenges, which is
+     * typically all the pending authorizations of an order.
+     */
+    public Mono<OrderIngressSetup> setupOrderSolverIngress(String issuerId, String ingressClassName,
+        List<SolverChallenge> challenges
+    ) {
+        return issuanceObservations.observePhase(IssuanceObservations.PHASE_SOLVER_READY, issuerId, solverService()
+            .flatMap(service -> {
+                final Map<String/*token*/, CompletableFuture<?>> challengesCompleted = new HashMap<>();
+                final Map<String/*host*/, List<String/*challengePath*/>> pathsByHost = new LinkedHashMap<>();
+                for (final SolverChallenge challenge : challenges) {
+                    final PreparedChallenge preparedChallenge = acmeChallengeController.prepareForChallenge(
+                        challenge.token(), challenge.keyAuthorization()
+                    );
+                    challengesCompleted.put(challenge.token(), preparedChallenge.challengeCompleted());
+                    pathsByHost.computeIfAbsent(challenge.host(), host -> new ArrayList<>())
+                        .add(preparedChallenge.challengePath());
                 }
-            });
 
-        return ingressReady.asMono()
-            .doOnTerminate(watch::close);
+                final SolverChallenge first = challenges.get(0);
+                final String ingressName = buildIngressName(service.getMetadata().getName(),
+                    first.host() + "-" + first.token().substring(0, Math.min(8, first.token().length()))
+                );
+
+                final Ingress ingress = createSolverIngress(issuerId, ingressClassName, ingressName, pathsByHost, service);
+                log.debug("Created ingress={} for solving challenges for hosts={}. Waiting for ingress to be ready...",
+                    ingressName, pathsByHost.keySet()
+                );
+
+                return emitWhenIngressReady(ingress)
+                    .map(readyIngress -> OrderIngressSetup.builder()
+                        .ingress(readyIngress)
+                        .challengesCompleted(challengesCompleted)
+                        .build())
+                    .doOnError(throwable -> removeSolverIngress(ingress, challengesCompleted.keySet()));
+            })
+        );
     }
 
     private Ingress createSolverIngress(
         String issuerId, String ingressClassName, String ingressName, String host,
         io.fabric8.kubernetes.api.model.Service service, PreparedChallenge preparedChallenge
+    ) {
+        return createSolverIngress(issuerId, ingressClassName, ingressName,
+            Map.of(host, List.of(preparedChallenge.challengePath())), service
+        );
+    }
+
+    private Ingress createSolverIngress(
+        String issuerId, String ingressClassName, String ingressName, Map<String, List<String>> pathsByHost,
+        io.fabric8.kubernetes.api.model.Service service
     ) {
         log.debug("Creating solver ingress={} with ingressClass={}", ingressName, ingressClassName);
-        return k8s.network().v1().ingresses()
-            .resource(
-                new IngressBuilder()
-                    .withMetadata(new ObjectMetaBuilder()
-                        .withName(ingressName)
-                        .withLabels(Map.of(
-                            Metadata.ROLE_LABEL, appProperties.solverRole(),
-                            Metadata.ISSUER_LABEL, issuerId
-                        ))
-                        .withAnnotations(Map.of(
-                            Metadata.HOST_ANNOTATION, host
-                        ))
-                        .build()
-                    )
-                    .withSpec(new IngressSpecBuilder()
-                        .withIngressClassName(ingressClassName)
-                        .withRules(
-                            new IngressRuleBuilder()
-                                .withHost(host)
-                                .withHttp(new HTTPIngressRuleValueBuilder()
-                                    .withPaths(
-                                        new HTTPIngressPathBuilder()
+        final ServiceBackendPort servicePort = portForIngressFromService(service);
+        final Ingress solverIngress = new IngressBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withName(ingressName)
+                .withLabels(Map.of(
+                    Metadata.ROLE_LABEL, appProperties.solverRole(),
+                    Metadata.ISSUER_LABEL, issuerId
+                ))
+                .withAnnotations(Map.of(
+                    Metadata.HOST_ANNOTATION, String.join(",", pathsByHost.keySet()),
+                    // so that the sweepers of other replicas leave it alone while this one is solving it
+                    Metadata.OWNER_ANNOTATION, challengeStore.replicaId()
+                ))
+                .build()
+            )
+            .withSpec(new IngressSpecBuilder()
+                .withIngressClassName(ingressClassName)
+                .withRules(
+                    pathsByHost.entrySet().stream()
+                        .map(entry -> new IngressRuleBuilder()
+                            .withHost(entry.getKey())
+                            .withHttp(new HTTPIngressRuleValueBuilder()
+                                .withPaths(
+                                    entry.getValue().stream()
+                                        .map(challengePath -> new HTTPIngressPathBuilder()
                                             .withPathType("Exact")
-                                            .withPath(preparedChallenge.challengePath())
+                                            .withPath(challengePath)
                                             .withBackend(new IngressBackendBuilder()
                                                 .withService(new IngressServiceBackendBuilder()
                                                     .withName(service.getMetadata().getName())
-                                                    .withPort(portForIngressFromService(service))
+                                                    .withPort(servicePort)
                                                     .build()
                                                 )
                                                 .build()
                                             )
                                             .build()
-                                    )
-                                    .build()
+                                        )
+                                        .toList()
                                 )
                                 .build()
+                            )
+                            .build()
                         )
-                        .build()
-                    )
-                    .build()
-            ).serverSideApply();
+                        .toList()
+                )
+                .build()
+            )
+            .build();
+        final Ingress applied = kubernetesMetrics.record(KubernetesMetrics.VERB_APPLY,
+            KubernetesMetrics.RESOURCE_INGRESSES, () ->
+                k8s.network().v1().ingresses()
+                    .resource(solverIngress)
+                    .serverSideApply()
+        );
+        // the sweeper's minimum age covers the ingress until it's marked active
+        activeSolverIngresses.add(ingressName);
+        return applied;
     }
 
-    private ServiceBackendPort portForIngressFromService(io.fabric8.kubernetes.api.model.Service service) {
+    static ServiceBackendPort portForIngressFromService(io.fabric8.kubernetes.api.model.Service service) {
         final String serviceName = service.getMetadata().getName();
         final List<ServicePort> ports = service.getSpec().getPorts();
 
@@ -196,7 +244,7 @@ public class SolverService {
         return portBuilder.build();
     }
 
-    private void setFromServicePort(ServiceBackendPortBuilder builder, ServicePort servicePort) {
+    private static void setFromServicePort(ServiceBackendPortBuilder builder, ServicePort servicePort) {
         if (servicePort.getName() != null) {
             builder.withName(servicePort.getName());
         } else {
@@ -204,7 +252,7 @@ public class SolverService {
         }
     }
 
-    private String buildIngressName(String serviceName, String host) {
+    static String buildIngressName(String serviceName, String host) {
         return limitValidK8sName(
             serviceName + "-solver-" +
                 host.replaceAll("[^A-Za-z0-9]+", "-").toLowerCase()
@@ -216,11 +264,33 @@ public class SolverService {
     }
 
     public void removeSolverIngress(Ingress ingress, String token) {
-        log.debug("Deleting solver ingress named={}", ingress.getMetadata().getName());
-        k8s.network().v1().ingresses()
-            .resource(ingress)
-            .delete();
-        acmeChallengeController.removeChallenge(token);
+        removeSolverIngress(ingress, List.of(token));
+    }
+
+    public void removeSolverIngress(Ingress ingress, Collection<String> tokens) {
+        if (PersistentSolverIngresses.isPersistent(ingress)) {
+            log.debug("Keeping persistent solver ingress named={}", ingress.getMetadata().getName());
+        } else {
+            log.debug("Deleting solver ingress named={}", ingress.getMetadata().getName());
+            try {
+                kubernetesMetrics.record(KubernetesMetrics.VERB_DELETE, KubernetesMetrics.RESOURCE_INGRESSES, () ->
+                    k8s.network().v1().ingresses()
+                        .resource(ingress)
+                        .delete()
+                );
+            } finally {
+                // a failed delete leaves the ingress to the sweeper
+                activeSolverIngresses.remove(ingress.getMetadata().getName());
+            }
+        }
+        tokens.forEach(acmeChallengeController::removeChallenge);
+    }
+
+    /**
+     * @return true if the solver ingress was created for a challenge that this replica is still processing
+     */
+    public boolean isActive(Ingress ingress) {
+        return activeSolverIngresses.contains(ingress.getMetadata().getName());
     }
 
     @Builder
@@ -230,4 +300,21 @@ public class SolverService {
     ) {
 
     }
+
+    @Builder
+    public record OrderIngressSetup(
+        Ingress ingress,
+        Map<String/*token*/, CompletableFuture<?>> challengesCompleted
+    ) {
+
+    }
+
+    @Builder
+    public record SolverChallenge(
+        String host,
+        String token,
+        String keyAuthorization
+    ) {
+
+    }
 }
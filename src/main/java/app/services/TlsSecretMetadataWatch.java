@@ -0,0 +1,184 @@
+package app.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher.Action;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+/**
+ * Watches TLS secrets as {@code PartialObjectMetadata}, so that the API server only sends their metadata rather
+ * than their certificate chains and keys. The fabric8 client has no typed support for that representation, so
+ * this streams the watch via its HTTP client, requesting the representation in the Accept header.
+ * <p>
+ * Like the full watch, the first connection and any reconnect after the resource version expired deliver an
+ * ADDED event for each existing secret. Other reconnects resume from the last observed resource version, which
+ * bookmarks keep current.
+ */
+@Slf4j
+class TlsSecretMetadataWatch implements Watch {
+
+    static final String TLS_SECRET_TYPE = "kubernetes.io/tls";
+
+    private static final String ACCEPT_PARTIAL_METADATA = "application/json;as=PartialObjectMetadata;g=meta.k8s.io;v=v1";
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(1);
+    private static final int WATCH_TIMEOUT_SECONDS = 300;
+
+    private final KubernetesClient k8s;
+    private final ObjectMapper objectMapper;
+    private final String labelSelector;
+    private final BiConsumer<Action, ObjectMeta> handler;
+    private final Thread thread;
+    private volatile boolean closed;
+    @Nullable
+    private volatile InputStream currentStream;
+    @Nullable
+    private String resourceVersion;
+
+    /**
+     * @param labelSelector such as the label key that secrets must have
+     * @param handler       invoked on the watch's thread for each event
+     */
+    TlsSecretMetadataWatch(KubernetesClient k8s, ObjectMapper objectMapper, String labelSelector,
+        BiConsumer<Action, ObjectMeta> handler
+    ) {
+        this.k8s = k8s;
+        this.objectMapper = objectMapper;
+        this.labelSelector = labelSelector;
+        this.handler = handler;
+
+        thread = Thread.ofPlatform()
+            .name("kita-tls-secret-metadata-watch")
+            .daemon()
+            .start(this::run);
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                watchOnce();
+            } catch (IOException | ExecutionException | RuntimeException e) {
+                if (!closed) {
+                    log.warn("TLS secret metadata watch failed, reconnecting: {}", e.getMessage());
+                    log.debug("Watch failure details", e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (!closed) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RECONNECT_DELAY.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void watchOnce() throws IOException, ExecutionException, InterruptedException {
+        final HttpClient httpClient = k8s.getHttpClient();
+        final HttpRequest request = httpClient.newHttpRequestBuilder()
+            .uri(watchUrl())
+            .header("Accept", ACCEPT_PARTIAL_METADATA)
+            .build();
+        log.debug("Starting TLS secret metadata watch from resourceVersion={}", resourceVersion);
+
+        final HttpResponse<InputStream> response = httpClient.sendAsync(request, InputStream.class).get();
+        if (!response.isSuccessful()) {
+            if (response.code() == HttpURLConnection.HTTP_GONE) {
+                resourceVersion = null;
+            }
+            try (InputStream body = response.body()) {
+                throw new IOException("Watch request failed with status " + response.code()
+                    + (body != null ? ": " + new String(body.readAllBytes(), StandardCharsets.UTF_8) : ""));
+            }
+        }
+
+        try (InputStream body = response.body();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            currentStream = body;
+            String line;
+            while (!closed && (line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    handleEvent(objectMapper.readTree(line));
+                }
+            }
+        } finally {
+            currentStream = null;
+        }
+    }
+
+    private void handleEvent(JsonNode event) throws IOException {
+        final String type = event.path("type").asText();
+        final JsonNode object = event.path("object");
+        switch (type) {
+            case "BOOKMARK" -> resourceVersion = object.path("metadata").path("resourceVersion").asText(resourceVersion);
+            case "ERROR" -> {
+                if (object.path("code").asInt() == HttpURLConnection.HTTP_GONE) {
+                    log.debug("Resource version {} of TLS secrets expired, starting over", resourceVersion);
+                    resourceVersion = null;
+                }
+                throw new IOException("Watch error: " + object.path("message").asText());
+            }
+            case "ADDED", "MODIFIED", "DELETED" -> {
+                final ObjectMeta metadata = objectMapper.treeToValue(object.path("metadata"), ObjectMeta.class);
+                resourceVersion = metadata.getResourceVersion();
+                try {
+                    handler.accept(Action.valueOf(type), metadata);
+                } catch (RuntimeException e) {
+                    log.error("Failed to handle {} of secret={}", type, metadata.getName(), e);
+                }
+            }
+            default -> log.debug("Ignoring watch event of type={}", type);
+        }
+    }
+
+    private String watchUrl() {
+        final String masterUrl = k8s.getConfiguration().getMasterUrl();
+        final StringBuilder url = new StringBuilder(masterUrl)
+            .append(masterUrl.endsWith("/") ? "" : "/")
+            .append("api/v1/namespaces/").append(k8s.getNamespace()).append("/secrets")
+            .append("?watch=true&allowWatchBookmarks=true")
+            .append("&timeoutSeconds=").append(WATCH_TIMEOUT_SECONDS)
+            .append("&labelSelector=").append(URLEncoder.encode(labelSelector, StandardCharsets.UTF_8))
+            .append("&fieldSelector=").append(URLEncoder.encode("type=" + TLS_SECRET_TYPE, StandardCharsets.UTF_8));
+        if (resourceVersion != null) {
+            url.append("&resourceVersion=").append(URLEncoder.encode(resourceVersion, StandardCharsets.UTF_8));
+        }
+        return url.toString();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        final InputStream stream = currentStream;
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                log.debug("Failed to close watch stream", e);
+            }
+        }
+        thread.interrupt();
+    }
+}
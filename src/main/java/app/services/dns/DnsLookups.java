@@ -0,0 +1,146 @@
+package app.services.dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.ExtendedResolver;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.NSRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Resolver;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.SimpleResolver;
+import org.xbill.DNS.TXTRecord;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking DNS queries used by the DNS-01 solver, which go through the system's recursive resolvers except
+ * when querying an authoritative nameserver directly.
+ */
+@Component
+@Slf4j
+public class DnsLookups {
+
+    private static final Duration AUTHORITATIVE_QUERY_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Resolver recursiveResolver;
+    private final Map<Name, Mono<List<InetAddress>>> nameserversByZone = new ConcurrentHashMap<>();
+
+    public DnsLookups() {
+        recursiveResolver = new ExtendedResolver();
+    }
+
+    public static Name toName(String fqdn) {
+        try {
+            return Name.fromString(fqdn.endsWith(".") ? fqdn : fqdn + ".");
+        } catch (TextParseException e) {
+            throw new IllegalArgumentException("Invalid DNS name: " + fqdn, e);
+        }
+    }
+
+    /**
+     * Locates the zone containing the name from the SOA record in the response to an SOA query, which is in the
+     * answer for a zone apex and otherwise in the authority section.
+     */
+    public Mono<Name> findZone(Name name) {
+        return query(recursiveResolver, name, Type.SOA)
+            .flatMap(response -> {
+                final Record soa = response.getSection(Section.ANSWER).stream()
+                    .filter(SOARecord.class::isInstance)
+                    .findFirst()
+                    .or(() -> response.getSection(Section.AUTHORITY).stream()
+                        .filter(SOARecord.class::isInstance)
+                        .findFirst()
+                    )
+                    .orElse(null);
+                if (soa != null) {
+                    return Mono.just(soa.getName());
+                }
+                if (name.labels() <= 1) {
+                    return Mono.error(new IllegalStateException("Unable to locate zone of " + name));
+                }
+                return findZone(new Name(name, 1));
+            });
+    }
+
+    /**
+     * @return the addresses of every authoritative nameserver of the zone, which are cached since they are
+     * consulted by each propagation check
+     */
+    public Mono<List<InetAddress>> authoritativeNameservers(Name zone) {
+        return nameserversByZone.computeIfAbsent(zone, z ->
+            query(recursiveResolver, z, Type.NS)
+                .flatMapMany(response -> Flux.fromIterable(response.getSection(Section.ANSWER)))
+                .ofType(NSRecord.class)
+                .flatMap(ns -> resolveAddresses(ns.getTarget()))
+                .collectList()
+                .flatMap(addresses -> addresses.isEmpty() ?
+                    Mono.error(new IllegalStateException("No nameservers found for zone " + z))
+                    : Mono.just(addresses))
+                .doOnNext(addresses -> log.debug("Authoritative nameservers of zone={} are {}", z, addresses))
+                .doOnError(throwable -> nameserversByZone.remove(z))
+                .cache(Duration.ofHours(1))
+        );
+    }
+
+    /**
+     * @return true if the nameserver currently serves the value in the TXT records of the name
+     */
+    public Mono<Boolean> hasTxtValue(InetAddress nameserver, Name name, String value) {
+        final SimpleResolver resolver = new SimpleResolver(nameserver);
+        resolver.setTimeout(AUTHORITATIVE_QUERY_TIMEOUT);
+        return query(resolver, name, Type.TXT)
+            .map(response -> response.getSection(Section.ANSWER).stream()
+                .filter(TXTRecord.class::isInstance)
+                .map(TXTRecord.class::cast)
+                .anyMatch(txt -> txt.getStrings().contains(value))
+            )
+            .doOnNext(found -> log.trace("Nameserver={} has value for name={}: {}", nameserver, name, found))
+            .onErrorResume(throwable -> {
+                log.debug("Failed to query nameserver={} for name={}", nameserver, name, throwable);
+                return Mono.just(false);
+            });
+    }
+
+    private static Mono<Message> query(Resolver resolver, Name name, int type) {
+        final Message query = Message.newQuery(Record.newRecord(name, type, DClass.IN));
+        if (resolver instanceof SimpleResolver) {
+            // ask the authoritative nameserver itself rather than having it recurse
+            query.getHeader().unsetFlag(Flags.RD);
+        }
+        return Mono.fromCompletionStage(() -> resolver.sendAsync(query))
+            .flatMap(response -> {
+                final int rcode = response.getRcode();
+                if (rcode != Rcode.NOERROR && rcode != Rcode.NXDOMAIN) {
+                    return Mono.error(new IllegalStateException(
+                        "DNS query of " + Type.string(type) + " " + name + " failed with " + Rcode.string(rcode)));
+                }
+                return Mono.just(response);
+            });
+    }
+
+    private static Flux<InetAddress> resolveAddresses(Name host) {
+        return Mono.fromCallable(() -> InetAddress.getAllByName(host.toString(true)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(addresses -> Flux.fromIterable(Arrays.asList(addresses)))
+            .onErrorResume(UnknownHostException.class, e -> {
+                log.warn("Unable to resolve nameserver={}", host);
+                return Flux.empty();
+            });
+    }
+}
@@ -0,0 +1,5 @@
+package app.services.dns;
+
+public class DnsNotPropagated extends Exception {
+
+}
@@ -0,0 +1,62 @@
+package app.services.dns;
+
+import app.config.Issuer;
+import java.net.InetAddress;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.xbill.DNS.Name;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Waits until every authoritative nameserver serves the TXT records, since the issuer may query any of them.
+ * All records and nameservers are checked in parallel on each round.
+ */
+@Component
+@Slf4j
+public class DnsPropagationChecker {
+
+    private final DnsLookups dnsLookups;
+
+    public DnsPropagationChecker(DnsLookups dnsLookups) {
+        this.dnsLookups = dnsLookups;
+    }
+
+    public Mono<Void> awaitPropagation(Issuer.Dns01 config, List<TxtRecord> records) {
+        return Flux.fromIterable(records)
+            .flatMap(record -> {
+                final Name name = DnsLookups.toName(record.fqdn());
+                return dnsLookups.findZone(name)
+                    .flatMap(dnsLookups::authoritativeNameservers)
+                    .map(nameservers -> new PendingCheck(name, record.value(), nameservers));
+            })
+            .collectList()
+            .flatMap(checks -> checkAll(checks)
+                .flatMap(propagated -> propagated ? Mono.just(true) : Mono.error(DnsNotPropagated::new))
+                .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, config.propagationPollInterval())
+                    .filter(DnsNotPropagated.class::isInstance)
+                )
+                .timeout(config.propagationTimeout())
+            )
+            .doOnSuccess(unused -> log.debug("TXT records {} have propagated", records))
+            .then();
+    }
+
+    private Mono<Boolean> checkAll(List<PendingCheck> checks) {
+        return Flux.fromIterable(checks)
+            .flatMap(check -> Flux.fromIterable(check.nameservers())
+                .flatMap(nameserver -> dnsLookups.hasTxtValue(nameserver, check.name(), check.value()))
+            )
+            .all(Boolean::booleanValue);
+    }
+
+    private record PendingCheck(
+        Name name,
+        String value,
+        List<InetAddress> nameservers
+    ) {
+
+    }
+}
@@ -0,0 +1,25 @@
+package app.services.dns;
+
+import app.config.Issuer;
+import java.util.List;
+import reactor.core.publisher.Mono;
+
+/**
+ * Publishes and removes the TXT records of DNS-01 challenges. Implementations are Spring beans selected by the
+ * {@link #name()} configured in the issuer's {@link Issuer.Dns01#provider()}.
+ */
+public interface DnsProvider {
+
+    String name();
+
+    /**
+     * Publishes all the given records, which are typically every pending authorization of an order, so that
+     * providers can apply them in as few updates as possible.
+     */
+    Mono<Void> present(Issuer.Dns01 config, List<TxtRecord> records);
+
+    /**
+     * Removes the given records, leaving any other values of the same names in place
+     */
+    Mono<Void> cleanUp(Issuer.Dns01 config, List<TxtRecord> records);
+}
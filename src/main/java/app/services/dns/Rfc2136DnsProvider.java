@@ -0,0 +1,133 @@
+package app.services.dns;
+
+import app.config.Issuer;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.SimpleResolver;
+import org.xbill.DNS.TSIG;
+import org.xbill.DNS.TXTRecord;
+import org.xbill.DNS.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Publishes TXT records via
+ * <a href="https://datatracker.ietf.org/doc/html/rfc2136">RFC 2136</a> dynamic updates, which are supported by
+ * BIND, Knot, PowerDNS, and others. All the records of a zone are sent in a single update message.
+ */
+@Component
+@Slf4j
+public class Rfc2136DnsProvider implements DnsProvider {
+
+    public static final String NAME = "rfc2136";
+
+    private final DnsLookups dnsLookups;
+
+    public Rfc2136DnsProvider(DnsLookups dnsLookups) {
+        this.dnsLookups = dnsLookups;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Mono<Void> present(Issuer.Dns01 config, List<TxtRecord> records) {
+        return update(config, records, "add",
+            (update, txtRecord) -> update.add(txtRecord)
+        );
+    }
+
+    @Override
+    public Mono<Void> cleanUp(Issuer.Dns01 config, List<TxtRecord> records) {
+        return update(config, records, "delete",
+            (update, txtRecord) -> update.delete(txtRecord)
+        );
+    }
+
+    private Mono<Void> update(Issuer.Dns01 config, List<TxtRecord> records, String operation,
+        BiConsumer<Update, TXTRecord> applier
+    ) {
+        final Issuer.Rfc2136 rfc2136 = config.rfc2136();
+        if (rfc2136 == null) {
+            return Mono.error(new IllegalStateException("Missing rfc2136 configuration for DNS provider " + NAME));
+        }
+
+        return Flux.fromIterable(records)
+            .flatMap(record -> zoneOf(rfc2136, record)
+                .map(zone -> Map.entry(zone, record))
+            )
+            .collect(Collectors.groupingBy(Map.Entry::getKey,
+                Collectors.mapping(Map.Entry::getValue, Collectors.toList())
+            ))
+            .flatMapMany(recordsByZone -> Flux.fromIterable(recordsByZone.entrySet()))
+            .flatMap(zoneRecords -> {
+                final Name zone = zoneRecords.getKey();
+                final Update update = new Update(zone);
+                for (final TxtRecord record : zoneRecords.getValue()) {
+                    applier.accept(update, new TXTRecord(
+                        DnsLookups.toName(record.fqdn()), DClass.IN, config.recordTtl().toSeconds(), record.value()
+                    ));
+                }
+                log.debug("Sending update to {} {} TXT records in zone={}", operation, zoneRecords.getValue().size(),
+                    zone
+                );
+                return send(rfc2136, update, zone);
+            })
+            .then();
+    }
+
+    private Mono<Name> zoneOf(Issuer.Rfc2136 rfc2136, TxtRecord record) {
+        if (rfc2136.zone() != null) {
+            return Mono.just(DnsLookups.toName(rfc2136.zone()));
+        }
+        return dnsLookups.findZone(DnsLookups.toName(record.fqdn()));
+    }
+
+    private Mono<Void> send(Issuer.Rfc2136 rfc2136, Update update, Name zone) {
+        final SimpleResolver resolver;
+        try {
+            resolver = buildResolver(rfc2136);
+        } catch (UnknownHostException e) {
+            return Mono.error(new IllegalStateException("Unable to resolve RFC 2136 server " + rfc2136.server(), e));
+        }
+
+        return Mono.fromCompletionStage(() -> resolver.sendAsync(update))
+            .flatMap(response -> {
+                final int rcode = response.getRcode();
+                if (rcode != Rcode.NOERROR) {
+                    return Mono.error(new IllegalStateException(
+                        "Update of zone " + zone + " was rejected with " + Rcode.string(rcode)));
+                }
+                return Mono.empty();
+            });
+    }
+
+    private static SimpleResolver buildResolver(Issuer.Rfc2136 rfc2136) throws UnknownHostException {
+        final String server = rfc2136.server();
+        final int portSeparator = server.lastIndexOf(':');
+        // a bare IPv6 address has several colons, so a port is only recognized with a single colon
+        final boolean hasPort = portSeparator > 0 && server.indexOf(':') == portSeparator;
+
+        final SimpleResolver resolver = new SimpleResolver(hasPort ? server.substring(0, portSeparator) : server);
+        if (hasPort) {
+            resolver.setPort(Integer.parseInt(server.substring(portSeparator + 1)));
+        }
+        resolver.setTimeout(rfc2136.timeout());
+        // updates can exceed the UDP size when batching many records
+        resolver.setTCP(true);
+        if (rfc2136.tsigKeyName() != null && rfc2136.tsigSecret() != null) {
+            resolver.setTSIGKey(new TSIG(rfc2136.tsigAlgorithm(), rfc2136.tsigKeyName(), rfc2136.tsigSecret()));
+        }
+        return resolver;
+    }
+}
@@ -0,0 +1,12 @@
+package app.services.dns;
+
+/**
+ * @param fqdn  the record name, such as _acme-challenge.example.com
+ * @param value the digest of the key authorization
+ */
+public record TxtRecord(
+    String fqdn,
+    String value
+) {
+
+}
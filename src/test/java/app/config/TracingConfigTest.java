@@ -0,0 +1,51 @@
+package app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.tracing.otlp.OtlpTracingProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+class TracingConfigTest {
+
+    @Test
+    void exportsNothingWithoutAnEndpoint() {
+        final SpanExporter exporter = new TracingConfig().otlpSpanExporter(properties(Map.of()));
+
+        assertThat(exporter)
+            .isNotInstanceOf(OtlpHttpSpanExporter.class)
+            .isNotInstanceOf(OtlpGrpcSpanExporter.class);
+    }
+
+    @Test
+    void exportsToTheEndpointSetAtRuntime() {
+        final SpanExporter exporter = new TracingConfig().otlpSpanExporter(properties(Map.of(
+            "management.otlp.tracing.endpoint", "http://localhost:4318/v1/traces"
+        )));
+
+        assertThat(exporter).isInstanceOf(OtlpHttpSpanExporter.class);
+        assertThat(exporter.toString()).contains("endpoint=http://localhost:4318/v1/traces");
+        exporter.shutdown();
+    }
+
+    @Test
+    void exportsViaGrpcWhenSelected() {
+        final SpanExporter exporter = new TracingConfig().otlpSpanExporter(properties(Map.of(
+            "management.otlp.tracing.endpoint", "http://localhost:4317",
+            "management.otlp.tracing.transport", "grpc"
+        )));
+
+        assertThat(exporter).isInstanceOf(OtlpGrpcSpanExporter.class);
+        exporter.shutdown();
+    }
+
+    private static OtlpTracingProperties properties(Map<String, String> properties) {
+        return new Binder(new MapConfigurationPropertySource(properties))
+            .bindOrCreate("management.otlp.tracing", OtlpTracingProperties.class);
+    }
+}
@@ -0,0 +1,136 @@
+package app.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.services.InMemoryChallengeStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Simulates an issuer validating from several vantage points at once while probes scan the well-known path.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class AcmeChallengeControllerBenchmark {
+
+    private static final int TOKENS = 100;
+    private static final int CONCURRENCY = 256;
+    private static final int WARMUP_REQUESTS = 20_000;
+    private static final int MEASURED_REQUESTS = 200_000;
+    /**
+     * One in this many requests is for an unknown token
+     */
+    private static final int PROBE_RATIO = 10;
+
+    private InMemoryChallengeStore challengeStore;
+    private LoopResources serverLoops;
+    private DisposableServer server;
+    private HttpClient client;
+    private ConnectionProvider connectionProvider;
+
+    @BeforeEach
+    void setUp() {
+        challengeStore = new InMemoryChallengeStore(Duration.ofMinutes(30), 10_000, "benchmark");
+        final AcmeChallengeController controller = new AcmeChallengeController(challengeStore);
+        for (int i = 0; i < TOKENS; i++) {
+            controller.prepareForChallenge(token(i), token(i) + ".thumbprint-of-the-account-key-abcdefghijkl");
+        }
+
+        serverLoops = LoopResources.create("bench-server", 2, true);
+        server = HttpServer.create()
+            .port(0)
+            .runOn(serverLoops)
+            .handle(new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(controller.routes())))
+            .bindNow();
+
+        connectionProvider = ConnectionProvider.create("bench-client", CONCURRENCY);
+        client = HttpClient.create(connectionProvider)
+            .baseUrl("http://localhost:" + server.port());
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.disposeLater().block();
+        server.disposeNow();
+        serverLoops.disposeLater().block();
+        challengeStore.close();
+    }
+
+    @Test
+    void servesChallengesUnderLoad() {
+        run(WARMUP_REQUESTS);
+
+        final long start = System.nanoTime();
+        final Result result = run(MEASURED_REQUESTS);
+        final long elapsed = System.nanoTime() - start;
+
+        final long[] latencies = result.latencies();
+        Arrays.sort(latencies);
+        final double rps = MEASURED_REQUESTS / (elapsed / 1e9);
+        System.out.printf("requests=%d concurrency=%d rps=%.0f p50=%.3fms p99=%.3fms max=%.3fms%n",
+            MEASURED_REQUESTS, CONCURRENCY, rps,
+            percentile(latencies, 50), percentile(latencies, 99), latencies[latencies.length - 1] / 1e6
+        );
+
+        assertThat(result.unexpected().get()).isZero();
+    }
+
+    private Result run(int requests) {
+        final AtomicInteger unexpected = new AtomicInteger();
+        final List<Long> latencies = Flux.range(0, requests)
+            .flatMap(i -> {
+                final boolean probe = i % PROBE_RATIO == 0;
+                final int expectedStatus = probe ? 404 : 200;
+                final String token = probe ? "unknown-" + i : token(i % TOKENS);
+                final long requestStart = System.nanoTime();
+                return client.get()
+                    .uri(AcmeChallengeController.BASE_CHALLENGE_PATH + "/" + token)
+                    .responseSingle((response, body) -> body.asByteArray()
+                        .defaultIfEmpty(new byte[0])
+                        .map(bytes -> {
+                            if (response.status().code() != expectedStatus) {
+                                unexpected.incrementAndGet();
+                            }
+                            return System.nanoTime() - requestStart;
+                        })
+                    )
+                    .onErrorResume(throwable -> {
+                        unexpected.incrementAndGet();
+                        return Mono.empty();
+                    });
+            }, CONCURRENCY)
+            .collect(() -> new ArrayList<Long>(requests), List::add)
+            .block();
+
+        return new Result(latencies.stream().mapToLong(Long::longValue).toArray(), unexpected);
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static String token(int i) {
+        return "token-" + i;
+    }
+
+    private record Result(long[] latencies, AtomicInteger unexpected) {
+
+    }
+}
@@ -0,0 +1,54 @@
+package app.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import app.controllers.CertificateStatusEndpoint.Page;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+class CertificateStatusEndpointTest {
+
+    private static final List<Integer> ITEMS = IntStream.range(0, 5).boxed().toList();
+
+    @Test
+    void pageHoldsItsSliceOfTheItems() {
+        assertThat(Page.of(ITEMS, 0, 2))
+            .isEqualTo(new Page<>(0, 2, 5, List.of(0, 1)));
+        assertThat(Page.of(ITEMS, 1, 2))
+            .isEqualTo(new Page<>(1, 2, 5, List.of(2, 3)));
+    }
+
+    @Test
+    void lastPageIsPartial() {
+        assertThat(Page.of(ITEMS, 2, 2))
+            .isEqualTo(new Page<>(2, 2, 5, List.of(4)));
+    }
+
+    @Test
+    void pageBeyondTheItemsIsEmpty() {
+        assertThat(Page.of(ITEMS, 3, 2).items()).isEmpty();
+        assertThat(Page.of(List.of(), 0, CertificateStatusEndpoint.DEFAULT_PAGE_SIZE))
+            .isEqualTo(new Page<>(0, CertificateStatusEndpoint.DEFAULT_PAGE_SIZE, 0, List.of()));
+    }
+
+    @Test
+    void pageFarBeyondTheItemsDoesNotOverflow() {
+        final Page<Integer> page = Page.of(ITEMS, Integer.MAX_VALUE, CertificateStatusEndpoint.MAX_PAGE_SIZE);
+
+        assertThat(page.items()).isEmpty();
+        assertThat(page.total()).isEqualTo(5);
+    }
+
+    @Test
+    void invalidPagesAreRejected() {
+        assertThatThrownBy(() -> Page.of(ITEMS, -1, 2))
+            .isInstanceOf(InvalidEndpointRequestException.class);
+        assertThatThrownBy(() -> Page.of(ITEMS, 0, 0))
+            .isInstanceOf(InvalidEndpointRequestException.class);
+        assertThatThrownBy(() -> Page.of(ITEMS, 0, CertificateStatusEndpoint.MAX_PAGE_SIZE + 1))
+            .isInstanceOf(InvalidEndpointRequestException.class);
+    }
+}
@@ -64,4 +64,22 @@ class OrderRequestTest {
                 }
                 """, JSONCompareMode.STRICT);
     }
-}
\ No newline at end of file
+
+    @Test
+    void serializeWithReplaces() throws IOException {
+        final OrderRequest request = OrderRequest.builder()
+            .identifiers(List.of(
+                Identifier.dns("example.com")
+            ))
+            .replaces("aYhba4dGQEHhs3uEe6CuLN4ByNQ.AIdlQyE")
+            .build();
+
+        assertThat(json.write(request))
+            .isEqualToJson("""
+                {
+                    "identifiers": [{"type":"dns","value":"example.com"}],
+                    "replaces": "aYhba4dGQEHhs3uEe6CuLN4ByNQ.AIdlQyE"
+                }
+                """, JSONCompareMode.STRICT);
+    }
+}
@@ -0,0 +1,172 @@
+package app.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import app.config.AppProperties;
+import app.model.AcmeDirectory;
+import app.services.AcmeRenewalInfoService.RenewalTime;
+import java.math.BigInteger;
+import java.net.URI;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Map;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+class AcmeRenewalInfoServiceTest {
+
+    private static final String ISSUER_ID = "test";
+    private static final String CERT_ID = "aYhba4dGQEHhs3uEe6CuLN4ByNQ.AIdlQyE";
+
+    private final AppProperties appProperties = new Binder(new MapConfigurationPropertySource(Map.of(
+        "kita.issuers." + ISSUER_ID + ".directory-url", "https://acme.example.com/directory"
+    ))).bindOrCreate("kita", AppProperties.class);
+
+    @Test
+    void certIdentifierMatchesTheRfcExample() throws Exception {
+        // https://datatracker.ietf.org/doc/html/rfc9773#section-4.1
+        final X509Certificate cert = certificate(
+            HexFormat.ofDelimiter(":").parseHex("69:88:5B:6B:87:46:40:41:E1:B3:7B:84:7B:A0:AE:2C:DE:01:C8:D4"),
+            new BigInteger("87654321", 16)
+        );
+
+        assertThat(AcmeRenewalInfoService.certIdentifier(cert)).isEqualTo(CERT_ID);
+    }
+
+    @Test
+    void certIdentifierRequiresAnAuthorityKeyIdentifier() throws Exception {
+        final X509Certificate cert = certificate(null, BigInteger.ONE);
+
+        assertThatThrownBy(() -> AcmeRenewalInfoService.certIdentifier(cert))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void retryAfterIsParsedFromSecondsOrDate() {
+        assertThat(AcmeRenewalInfoService.parseRetryAfter("21600")).isEqualTo(Duration.ofHours(6));
+        assertThat(AcmeRenewalInfoService.parseRetryAfter(" 60 ")).isEqualTo(Duration.ofMinutes(1));
+        final String inTwoHours = DateTimeFormatter.RFC_1123_DATE_TIME
+            .format(Instant.now().plus(Duration.ofHours(2)).atOffset(ZoneOffset.UTC));
+        assertThat(AcmeRenewalInfoService.parseRetryAfter(inTwoHours))
+            .isBetween(Duration.ofHours(2).minusSeconds(5), Duration.ofHours(2));
+        assertThat(AcmeRenewalInfoService.parseRetryAfter("soon")).isNull();
+        assertThat(AcmeRenewalInfoService.parseRetryAfter(" ")).isNull();
+        assertThat(AcmeRenewalInfoService.parseRetryAfter(null)).isNull();
+    }
+
+    @Test
+    void renewalIsDueImmediatelyWhenTheWindowHasPassed() {
+        final Instant now = Instant.now();
+        final Instant start = now.minus(2, ChronoUnit.DAYS);
+        final Instant end = now.minus(1, ChronoUnit.DAYS);
+
+        final RenewalTime renewalTime = renewalTime(start, end, null);
+
+        assertThat(renewalTime.renewAt()).isBetween(start, end).isBefore(now);
+    }
+
+    @Test
+    void renewalIsWithinTheCurrentWindow() {
+        final Instant now = Instant.now();
+        final Instant start = now.minus(1, ChronoUnit.DAYS);
+        final Instant end = now.plus(1, ChronoUnit.DAYS);
+
+        final RenewalTime renewalTime = renewalTime(start, end, "3600");
+
+        assertThat(renewalTime.renewAt()).isBetween(start, end);
+        assertThat(renewalTime.nextPoll())
+            .isBetween(now.plus(Duration.ofHours(1)), Instant.now().plus(Duration.ofHours(1)));
+    }
+
+    @Test
+    void renewalIsWithinAFutureWindow() {
+        final Instant now = Instant.now();
+        final Instant start = now.plus(30, ChronoUnit.DAYS);
+        final Instant end = now.plus(32, ChronoUnit.DAYS);
+
+        final RenewalTime renewalTime = renewalTime(start, end, "60000000");
+
+        assertThat(renewalTime.renewAt()).isBetween(start, end);
+        // the issuer's Retry-After is capped at the maximum poll interval
+        assertThat(renewalTime.nextPoll())
+            .isBetween(now.plus(Duration.ofDays(1)), Instant.now().plus(Duration.ofDays(1)));
+    }
+
+    /**
+     * @param retryAfter the issuer's Retry-After header, if any
+     */
+    private RenewalTime renewalTime(Instant start, Instant end, String retryAfter) {
+        final WebClient.Builder webClientBuilder = WebClient.builder()
+            .exchangeFunction(request -> {
+                assertThat(request.url())
+                    .isEqualTo(URI.create("https://acme.example.com/renewal-info/" + CERT_ID));
+                final ClientResponse.Builder response = ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("""
+                        {"suggestedWindow": {"start": "%s", "end": "%s"}}
+                        """.formatted(start, end));
+                if (retryAfter != null) {
+                    response.header(HttpHeaders.RETRY_AFTER, retryAfter);
+                }
+                return Mono.just(response.build());
+            });
+        final AcmeDirectoryService directoryService = new AcmeDirectoryService(webClientBuilder, appProperties) {
+            @Override
+            public AcmeDirectory directoryFor(String issuerId) {
+                return new AcmeDirectory(null, null, null, null,
+                    URI.create("https://acme.example.com/renewal-info/")
+                );
+            }
+        };
+
+        final RenewalTime renewalTime = new AcmeRenewalInfoService(webClientBuilder, directoryService, appProperties)
+            .renewalTime(ISSUER_ID, CERT_ID)
+            .block();
+        assertThat(renewalTime).isNotNull();
+        return renewalTime;
+    }
+
+    /**
+     * @param authorityKeyId the key identifier of the authority key identifier extension, which is left out if null
+     */
+    private static X509Certificate certificate(byte[] authorityKeyId, BigInteger serial) throws Exception {
+        final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(256);
+        final KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        final Instant now = Instant.now();
+        final X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
+            new X500Name("CN=issuer.example.com"), serial,
+            Date.from(now), Date.from(now.plus(90, ChronoUnit.DAYS)),
+            new X500Name("CN=app.example.com"), keyPair.getPublic()
+        );
+        if (authorityKeyId != null) {
+            builder.addExtension(Extension.authorityKeyIdentifier, false, new AuthorityKeyIdentifier(authorityKeyId));
+        }
+        return new JcaX509CertificateConverter().getCertificate(
+            builder.build(new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate()))
+        );
+    }
+}
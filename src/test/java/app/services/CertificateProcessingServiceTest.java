@@ -0,0 +1,113 @@
+package app.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.config.AppProperties;
+import app.messages.OrderRequest;
+import app.messages.OrderResponse;
+import app.model.AcmeDirectory;
+import app.model.Identifier;
+import app.model.Problem;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class CertificateProcessingServiceTest {
+
+    private static final String ISSUER_ID = "test";
+    private static final String CERT_ID = "aYhba4dGQEHhs3uEe6CuLN4ByNQ.AIdlQyE";
+    private static final List<Identifier> IDENTIFIERS = List.of(Identifier.dns("app.example.com"));
+    private static final OrderResponse ORDER = new OrderResponse("pending", null, null, null, IDENTIFIERS,
+        List.of(), URI.create("https://acme.example.com/finalize/1")
+    );
+
+    private final AppProperties appProperties = new Binder(new MapConfigurationPropertySource(Map.of(
+        "kita.issuers." + ISSUER_ID + ".directory-url", "https://acme.example.com/directory"
+    ))).bindOrCreate("kita", AppProperties.class);
+    private final List<OrderRequest> orderRequests = new CopyOnWriteArrayList<>();
+
+    @Test
+    void rejectedReplacementIsRetriedAsANewOrder() {
+        final CertificateProcessingService service = certificateProcessingService(orderRequest ->
+            orderRequest.replaces() != null ?
+                Mono.error(problem("urn:ietf:params:acme:error:alreadyReplaced"))
+                : Mono.just(ORDER)
+        );
+
+        StepVerifier.create(service.createOrder(ISSUER_ID, IDENTIFIERS, CERT_ID))
+            .expectNext(ORDER)
+            .verifyComplete();
+        assertThat(orderRequests)
+            .extracting(OrderRequest::replaces)
+            .containsExactly(CERT_ID, null);
+    }
+
+    @Test
+    void rateLimitedReplacementIsNotRetried() {
+        final CertificateProcessingService service = certificateProcessingService(orderRequest ->
+            Mono.error(problem(AcmeProblemException.RATE_LIMITED))
+        );
+
+        StepVerifier.create(service.createOrder(ISSUER_ID, IDENTIFIERS, CERT_ID))
+            .expectErrorMatches(throwable -> throwable instanceof AcmeProblemException e && e.isRateLimited())
+            .verify();
+        assertThat(orderRequests).hasSize(1);
+    }
+
+    @Test
+    void rejectedNewOrderIsNotRetried() {
+        final CertificateProcessingService service = certificateProcessingService(orderRequest ->
+            Mono.error(problem("urn:ietf:params:acme:error:rejectedIdentifier"))
+        );
+
+        StepVerifier.create(service.createOrder(ISSUER_ID, IDENTIFIERS, null))
+            .expectError(AcmeProblemException.class)
+            .verify();
+        assertThat(orderRequests).hasSize(1);
+    }
+
+    /**
+     * @param issuer responds to each new order request, which is also recorded in {@link #orderRequests}
+     */
+    private CertificateProcessingService certificateProcessingService(
+        Function<OrderRequest, Mono<OrderResponse>> issuer
+    ) {
+        final AcmeDirectoryService directoryService = new AcmeDirectoryService(WebClient.builder(), appProperties) {
+            @Override
+            public AcmeDirectory directoryFor(String issuerId) {
+                return new AcmeDirectory(null, null, URI.create("https://acme.example.com/new-order"), null, null);
+            }
+        };
+        final AcmeRequestService requestService = new AcmeRequestService(null, null) {
+            @Override
+            public <T> Mono<T> request(String issuerId, URI requestUrl, Object payload, Class<T> responseClass) {
+                assertThat(requestUrl).isEqualTo(URI.create("https://acme.example.com/new-order"));
+                orderRequests.add((OrderRequest) payload);
+                return issuer.apply((OrderRequest) payload).cast(responseClass);
+            }
+        };
+        // only the collaborators of ordering are needed
+        return new CertificateProcessingService(KubernetesCluster.local(null), appProperties, directoryService,
+            requestService, null, null, null
+        );
+    }
+
+    private static AcmeProblemException problem(String type) {
+        return new AcmeProblemException(new Problem(type, "rejected", List.of()),
+            WebClientResponseException.create(403, "Forbidden", HttpHeaders.EMPTY, new byte[0],
+                StandardCharsets.UTF_8
+            )
+        );
+    }
+}
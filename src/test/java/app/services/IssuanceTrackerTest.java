@@ -0,0 +1,133 @@
+package app.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.config.AppProperties;
+import app.model.Problem;
+import app.services.IssuanceTracker.CompletedIssuance;
+import app.services.IssuanceTracker.IssuanceFailure;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+class IssuanceTrackerTest {
+
+    private static final String CLUSTER = "default";
+    private static final String ISSUER_ID = "test";
+    private static final String SECRET = "app-tls";
+
+    private final IssuanceTracker issuanceTracker = new IssuanceTracker(new Binder(new MapConfigurationPropertySource(
+        Map.of(
+            "kita.issuance-backoff.initial-delay", "10m",
+            "kita.issuance-backoff.max-delay", "1h"
+        )
+    )).bindOrCreate("kita", AppProperties.class));
+
+    @Test
+    void successClearsTheFailures() {
+        fail(new IllegalStateException("failed"));
+        assertThat(issuanceTracker.failureOf(CLUSTER, SECRET)).isNotNull();
+
+        issue(Mono.just("issued"));
+
+        assertThat(issuanceTracker.failureOf(CLUSTER, SECRET)).isNull();
+        assertThat(issuanceTracker.inFlight()).isEmpty();
+        assertThat(issuanceTracker.history())
+            .extracting(CompletedIssuance::outcome)
+            .containsExactly(IssuanceObservations.OUTCOME_SUCCESS, IssuanceObservations.OUTCOME_FAILURE);
+    }
+
+    @Test
+    void failuresAreCountedAndBackedOff() {
+        fail(new IllegalStateException("first"));
+        issue(issuanceTracker.inPhase("order", Mono.error(new IllegalStateException("second"))));
+
+        final IssuanceFailure failure = issuanceTracker.failureOf(CLUSTER, SECRET);
+        assertThat(failure).isNotNull();
+        assertThat(failure.attempts()).isEqualTo(2);
+        assertThat(failure.phase()).isEqualTo("order");
+        assertThat(failure.error()).isEqualTo("second");
+        assertThat(failure.retryAfter()).isNull();
+        assertThat(failure.retryAt()).isEqualTo(failure.lastFailedAt().plus(Duration.ofMinutes(20)));
+        assertThat(failure.isBackingOff(failure.lastFailedAt())).isTrue();
+        assertThat(issuanceTracker.failures()).containsExactly(failure);
+    }
+
+    @Test
+    void rateLimitedFailuresWaitForTheRetryAfter() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "7200");
+        fail(new AcmeProblemException(
+            new Problem(AcmeProblemException.RATE_LIMITED, "too many certificates", List.of()),
+            WebClientResponseException.create(429, "Too Many Requests", headers, new byte[0], StandardCharsets.UTF_8)
+        ));
+
+        final IssuanceFailure failure = issuanceTracker.failureOf(CLUSTER, SECRET);
+        assertThat(failure).isNotNull();
+        assertThat(failure.problem()).isEqualTo("rateLimited");
+        assertThat(failure.retryAfter()).isEqualTo(Duration.ofHours(2));
+        assertThat(failure.retryAt()).isEqualTo(failure.lastFailedAt().plus(Duration.ofHours(2)));
+    }
+
+    @Test
+    void cancelledIssuanceNeitherSucceedsNorFails() {
+        fail(new IllegalStateException("failed"));
+        final IssuanceFailure failure = issuanceTracker.failureOf(CLUSTER, SECRET);
+
+        final Disposable issuance = issuanceTracker.track(CLUSTER, ISSUER_ID, SECRET, Mono.never()).subscribe();
+        assertThat(issuanceTracker.inFlight()).hasSize(1);
+        issuance.dispose();
+
+        assertThat(issuanceTracker.inFlight()).isEmpty();
+        assertThat(issuanceTracker.failureOf(CLUSTER, SECRET)).isEqualTo(failure);
+        assertThat(issuanceTracker.history().getFirst().outcome())
+            .isEqualTo(IssuanceObservations.OUTCOME_CANCELLED);
+    }
+
+    @Test
+    void bulkheadRejectionsAreRetriedSoonWithoutCountingAsAttempts() {
+        fail(new IllegalStateException("failed"));
+        fail(BulkheadFullException.createBulkheadFullException(Bulkhead.ofDefaults(ISSUER_ID)));
+
+        final IssuanceFailure failure = issuanceTracker.failureOf(CLUSTER, SECRET);
+        assertThat(failure).isNotNull();
+        assertThat(failure.attempts()).isEqualTo(1);
+        assertThat(failure.retryAt()).isEqualTo(failure.lastFailedAt().plus(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void delayDoublesWithEachAttemptUpToTheMaximum() {
+        assertThat(issuanceTracker.delayAfter(1, null)).isEqualTo(Duration.ofMinutes(10));
+        assertThat(issuanceTracker.delayAfter(2, null)).isEqualTo(Duration.ofMinutes(20));
+        assertThat(issuanceTracker.delayAfter(3, null)).isEqualTo(Duration.ofMinutes(40));
+        assertThat(issuanceTracker.delayAfter(4, null)).isEqualTo(Duration.ofHours(1));
+        assertThat(issuanceTracker.delayAfter(Integer.MAX_VALUE, null)).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    void longerRetryAfterOverridesTheDelay() {
+        assertThat(issuanceTracker.delayAfter(1, Duration.ofHours(3))).isEqualTo(Duration.ofHours(3));
+        assertThat(issuanceTracker.delayAfter(1, Duration.ofMinutes(1))).isEqualTo(Duration.ofMinutes(10));
+        assertThat(issuanceTracker.delayAfter(4, Duration.ofMinutes(30))).isEqualTo(Duration.ofHours(1));
+    }
+
+    private void fail(Throwable throwable) {
+        issue(Mono.error(throwable));
+    }
+
+    private void issue(Mono<?> issuance) {
+        issuanceTracker.track(CLUSTER, ISSUER_ID, SECRET, issuance)
+            .onErrorResume(throwable -> Mono.empty())
+            .block();
+    }
+}
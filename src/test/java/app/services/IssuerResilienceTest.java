@@ -0,0 +1,63 @@
+package app.services;
+
+import app.config.AppProperties;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class IssuerResilienceTest {
+
+    private static final String ISSUER_ID = "test";
+
+    @Test
+    void waitsForARequestInProgressToComplete() {
+        final IssuerResilience issuerResilience = issuerResilience("2s");
+        issuerResilience.decorate(ISSUER_ID, Mono.delay(Duration.ofMillis(300)).thenReturn("first"))
+            .subscribe();
+
+        StepVerifier.create(issuerResilience.decorate(ISSUER_ID, Mono.fromCallable(() -> "second")))
+            .expectNext("second")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void failsOnceTheWaitIsOver() {
+        final IssuerResilience issuerResilience = issuerResilience("300ms");
+        final Disposable inProgress = issuerResilience.decorate(ISSUER_ID, Mono.never()).subscribe();
+
+        try {
+            StepVerifier.create(issuerResilience.decorate(ISSUER_ID, Mono.fromCallable(() -> "second")))
+                .expectError(BulkheadFullException.class)
+                .verify(Duration.ofSeconds(5));
+        } finally {
+            inProgress.dispose();
+        }
+    }
+
+    /**
+     * @return guarding an issuer that allows only one request at a time
+     */
+    private static IssuerResilience issuerResilience(String maxWait) {
+        final AppProperties appProperties = new Binder(new MapConfigurationPropertySource(Map.of(
+            "kita.issuers." + ISSUER_ID + ".directory-url", "https://acme.example.com/directory",
+            "kita.issuer-resilience.max-concurrent-calls", "1",
+            "kita.issuer-resilience.max-wait", maxWait
+        ))).bindOrCreate("kita", AppProperties.class);
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new IssuerResilience(appProperties,
+            new IssuanceObservations(ObservationRegistry.NOOP, meterRegistry, appProperties,
+                new IssuanceTracker(appProperties)
+            ),
+            meterRegistry
+        );
+    }
+}
@@ -0,0 +1,39 @@
+package app.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+class PendingChallengesTest {
+
+    @Test
+    void expiredEntriesAreReportedToTheOwner() throws InterruptedException {
+        final List<String> expired = new CopyOnWriteArrayList<>();
+        try (PendingChallenges challenges = new PendingChallenges(Duration.ofMillis(50), 10, expired::add)) {
+            challenges.put("abandoned", "abandoned.key");
+            challenges.put("removed", "removed.key");
+            challenges.remove("removed");
+
+            Thread.sleep(100);
+            challenges.evictExpired();
+
+            assertThat(challenges.size()).isZero();
+            assertThat(expired).containsExactly("abandoned");
+        }
+    }
+
+    @Test
+    void evictedEntriesAreReportedToTheOwner() {
+        final List<String> expired = new CopyOnWriteArrayList<>();
+        try (PendingChallenges challenges = new PendingChallenges(Duration.ofMinutes(5), 1, expired::add)) {
+            challenges.put("first", "first.key");
+            challenges.put("second", "second.key");
+
+            assertThat(challenges.responseBody("second")).isNotNull();
+            assertThat(expired).containsExactly("first");
+        }
+    }
+}
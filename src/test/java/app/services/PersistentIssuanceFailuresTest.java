@@ -0,0 +1,184 @@
+package app.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.config.AppProperties;
+import app.model.Problem;
+import app.services.IssuanceTracker.IssuanceFailure;
+import app.services.PersistentIssuanceFailures.RecordedFailure;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.jdkhttp.JdkHttpClientFactory;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.fabric8.mockwebserver.MockWebServer;
+import io.micrometer.observation.ObservationRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+class PersistentIssuanceFailuresTest {
+
+    private static final String SECRET = "app-tls";
+
+    private final KubernetesMockServer server = new KubernetesMockServer(new Context(), new MockWebServer(),
+        new HashMap<>(), new KubernetesCrudDispatcher(), false
+    );
+    private KubernetesClient client;
+
+    private final AppProperties appProperties = new Binder(new MapConfigurationPropertySource(Map.of()))
+        .bindOrCreate("kita", AppProperties.class);
+    // configured as by Spring Boot
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+            SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS
+        )
+        .build();
+
+    @BeforeEach
+    void setUp() {
+        server.init();
+        // explicitly chosen since fabric8 otherwise picks one of the factories on the classpath at random
+        client = server.createClient(new JdkHttpClientFactory());
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    void recordedFailureRoundTripsAsJson() throws Exception {
+        final RecordedFailure recorded = new RecordedFailure("test", 3, "validate", "rateLimited",
+            Duration.ofHours(2), Instant.parse("2026-01-02T03:04:05Z"), Instant.parse("2026-01-02T05:04:05Z")
+        );
+
+        final String json = objectMapper.writeValueAsString(recorded);
+
+        assertThat(json).contains("\"lastFailedAt\":\"2026-01-02T03:04:05Z\"");
+        assertThat(objectMapper.readValue(json, RecordedFailure.class)).isEqualTo(recorded);
+    }
+
+    @Test
+    void failureIsRestoredFromTheSecretAfterRestart() throws InterruptedException {
+        final Ingress ingress = create(ingress());
+        create(new SecretBuilder()
+            .withNewMetadata().withName(SECRET).endMetadata()
+            .build());
+        final IssuanceFailure failure = failAndSave(ingress);
+
+        final Secret secret = await(() -> {
+            final Secret current = client.secrets().withName(SECRET).get();
+            return annotated(current, Metadata.ISSUANCE_FAILURE_ANNOTATION) ? current : null;
+        });
+
+        assertRestored(persistentIssuanceFailures(new IssuanceTracker(appProperties))
+            .failureOf(ingress, SECRET, secret), failure);
+    }
+
+    @Test
+    void failureIsRestoredFromTheIngressWhileTheSecretIsMissing() throws InterruptedException {
+        final Ingress ingress = create(ingress());
+        final IssuanceFailure failure = failAndSave(ingress);
+
+        final Ingress annotatedIngress = await(() -> {
+            final Ingress current = client.network().v1().ingresses().withName(ingress.getMetadata().getName()).get();
+            return annotated(current, Metadata.ISSUANCE_FAILURES_ANNOTATION) ? current : null;
+        });
+
+        assertRestored(persistentIssuanceFailures(new IssuanceTracker(appProperties))
+            .failureOf(annotatedIngress, SECRET, null), failure);
+    }
+
+    /**
+     * @return the failure held for the secret, which is also being saved in the background
+     */
+    private IssuanceFailure failAndSave(Ingress ingress) {
+        final IssuanceTracker issuanceTracker = new IssuanceTracker(appProperties);
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "7200");
+        issuanceTracker.track(KubernetesCluster.LOCAL, "test", SECRET,
+                issuanceTracker.inPhase("validate", Mono.error(new AcmeProblemException(
+                    new Problem(AcmeProblemException.RATE_LIMITED, "too many certificates", List.of()),
+                    WebClientResponseException.create(429, "Too Many Requests", headers, new byte[0],
+                        StandardCharsets.UTF_8
+                    )
+                )))
+            )
+            .onErrorResume(throwable -> Mono.empty())
+            .block();
+
+        persistentIssuanceFailures(issuanceTracker).save(ingress, SECRET);
+        return issuanceTracker.failureOf(KubernetesCluster.LOCAL, SECRET);
+    }
+
+    private static void assertRestored(IssuanceFailure restored, IssuanceFailure failure) {
+        assertThat(restored).isNotNull();
+        // the error message isn't recorded
+        assertThat(restored).usingRecursiveComparison()
+            .ignoringFields("error")
+            .isEqualTo(failure);
+    }
+
+    private PersistentIssuanceFailures persistentIssuanceFailures(IssuanceTracker issuanceTracker) {
+        return new PersistentIssuanceFailures(KubernetesCluster.local(client), issuanceTracker,
+            new KubernetesMetrics(ObservationRegistry.NOOP), objectMapper
+        );
+    }
+
+    private static Ingress ingress() {
+        return new IngressBuilder()
+            .withNewMetadata()
+            .withName("app")
+            .addToLabels(Metadata.ISSUER_LABEL, "test")
+            .endMetadata()
+            .withNewSpec()
+            .addNewTl()
+            .withHosts("app.example.com")
+            .withSecretName(SECRET)
+            .endTl()
+            .endSpec()
+            .build();
+    }
+
+    private <T extends HasMetadata> T create(T resource) {
+        return client.resource(resource).create();
+    }
+
+    private static boolean annotated(HasMetadata resource, String annotation) {
+        return resource != null && resource.getMetadata().getAnnotations() != null
+            && resource.getMetadata().getAnnotations().containsKey(annotation);
+    }
+
+    private static <T> T await(Supplier<T> condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        T value;
+        while ((value = condition.get()) == null && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertThat(value).as("awaited resource").isNotNull();
+        return value;
+    }
+}
@@ -0,0 +1,183 @@
+package app.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.config.AppProperties;
+import app.controllers.AcmeChallengeController;
+import app.simulation.ServerSideApplyDispatcher;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.jdkhttp.JdkHttpClientFactory;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.fabric8.mockwebserver.MockWebServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+
+/**
+ * Runs two replicas that share challenges through the Kubernetes challenge store, each with its own sweeper of
+ * orphaned solver ingresses.
+ */
+class SolverIngressSweeperTest {
+
+    private static final String SOLVER_ROLE = "solver";
+    private static final String ISSUER_ID = "test";
+    private static final String HOST = "app.example.com";
+
+    private final KubernetesMockServer server = new KubernetesMockServer(new Context(), new MockWebServer(),
+        new HashMap<>(), new ServerSideApplyDispatcher(), false
+    );
+    private KubernetesClient client;
+    private final AppProperties appProperties = new Binder(new MapConfigurationPropertySource(Map.of(
+        "kita.issuers." + ISSUER_ID + ".directory-url", "https://acme.example.com/directory",
+        "kita.solver-role", SOLVER_ROLE,
+        // skips waiting for the load balancer status, which nothing sets here
+        "kita.self-check.enabled", "true",
+        "kita.solver-gc.min-age", "0s",
+        "kita.solver-gc.batch-interval", "0s"
+    ))).bindOrCreate("kita", AppProperties.class);
+    private final List<Replica> replicas = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        server.init();
+        // explicitly chosen since fabric8 otherwise picks one of the factories on the classpath at random
+        client = server.createClient(new JdkHttpClientFactory());
+        client.services().resource(new ServiceBuilder()
+                .withNewMetadata()
+                .withName("kita-solver")
+                .addToLabels(Metadata.ROLE_LABEL, SOLVER_ROLE)
+                .endMetadata()
+                .withNewSpec()
+                .addNewPort().withName(Metadata.SOLVER_SERVICE_PORT_NAME).withPort(8080).endPort()
+                .endSpec()
+                .build())
+            .create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicas.forEach(Replica::close);
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    void solverIngressOfAnotherReplicaIsKeptWhileItSolvesChallenges() throws InterruptedException {
+        final Replica first = replica("first");
+        final Replica second = replica("second");
+
+        final Ingress ingress = first.setupSolverIngress();
+        await(() -> second.knowsOf(ingress) && second.challengeStore().isReplicaActive("first"));
+
+        second.sweeper().sweep();
+        first.sweeper().sweep();
+
+        assertThat(second.orphans()).isZero();
+        assertThat(first.orphans()).isZero();
+        assertThat(client.network().v1().ingresses().withName(ingress.getMetadata().getName()).get()).isNotNull();
+    }
+
+    @Test
+    void solverIngressOfAReplicaThatIsGoneIsSwept() throws InterruptedException {
+        final Replica first = replica("first");
+        final Replica second = replica("second");
+
+        final Ingress ingress = first.setupSolverIngress();
+        await(() -> second.knowsOf(ingress) && second.challengeStore().isReplicaActive("first"));
+        // stopped mid-challenge, after which its challenge outlives the TTL and is deleted
+        first.close();
+        client.configMaps().withLabel(Metadata.CHALLENGE_LABEL).delete();
+        await(() -> !second.challengeStore().isReplicaActive("first"));
+
+        second.sweeper().sweep();
+
+        assertThat(second.orphans()).isEqualTo(1);
+        await(() -> client.network().v1().ingresses().withName(ingress.getMetadata().getName()).get() == null);
+    }
+
+    private Replica replica(String replicaId) {
+        final KubernetesCluster cluster = KubernetesCluster.local(client);
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final KubernetesMetrics kubernetesMetrics = new KubernetesMetrics(ObservationRegistry.NOOP);
+        final KubernetesChallengeStore challengeStore = new KubernetesChallengeStore(client, replicaId, appProperties,
+            kubernetesMetrics
+        );
+        final SolverInformers solverInformers = new SolverInformers(cluster, appProperties);
+        final SolverService solverService = new SolverService(cluster, new AcmeChallengeController(challengeStore),
+            solverInformers,
+            new PersistentSolverIngresses(cluster, solverInformers, appProperties, kubernetesMetrics, challengeStore),
+            appProperties,
+            new IssuanceObservations(ObservationRegistry.NOOP, meterRegistry, appProperties,
+                new IssuanceTracker(appProperties)
+            ),
+            kubernetesMetrics,
+            challengeStore
+        );
+        final Replica replica = new Replica(replicaId, challengeStore, solverInformers, solverService,
+            new SolverIngressSweeper(cluster, new SimpleAsyncTaskScheduler(), solverInformers, solverService,
+                challengeStore, meterRegistry, kubernetesMetrics, appProperties
+            ),
+            meterRegistry
+        );
+        challengeStore.start();
+        solverInformers.start();
+        replicas.add(replica);
+        return replica;
+    }
+
+    private record Replica(
+        String replicaId,
+        KubernetesChallengeStore challengeStore,
+        SolverInformers solverInformers,
+        SolverService solverService,
+        SolverIngressSweeper sweeper,
+        SimpleMeterRegistry meterRegistry
+    ) {
+
+        Ingress setupSolverIngress() {
+            final SolverService.IngressSetup setup = solverService.setupSolverIngress(ISSUER_ID, null, HOST,
+                "token-" + replicaId, "token-" + replicaId + ".thumbprint"
+            ).block();
+            assertThat(setup).isNotNull();
+            assertThat(setup.ingress().getMetadata().getAnnotations())
+                .containsEntry(Metadata.OWNER_ANNOTATION, replicaId);
+            return setup.ingress();
+        }
+
+        boolean knowsOf(Ingress ingress) {
+            return solverInformers.solverIngresses().stream()
+                .anyMatch(known -> known.getMetadata().getName().equals(ingress.getMetadata().getName()));
+        }
+
+        double orphans() {
+            return meterRegistry.get("kita.solver.gc.orphans").gauge().value();
+        }
+
+        void close() {
+            solverInformers.close();
+            challengeStore.close();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertThat(condition.getAsBoolean()).as("awaited condition").isTrue();
+    }
+}
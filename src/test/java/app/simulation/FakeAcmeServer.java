@@ -0,0 +1,521 @@
+package app.simulation;
+
+import app.controllers.AcmeChallengeController;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWK;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * An in-process ACME CA implementing just enough of
+ * <a href="https://datatracker.ietf.org/doc/html/rfc8555">RFC 8555</a> for kita's issuance: directory, nonces,
+ * accounts, orders, authorizations, HTTP-01 challenges, finalize, and certificate download.
+ * <p>
+ * Signatures and nonces are not verified, but HTTP-01 challenges are validated by fetching the key authorization
+ * from kita's challenge responder, standing in for the route through the ingress controller. Each request can be
+ * delayed and can fail with an injected ACME problem.
+ */
+@Slf4j
+class FakeAcmeServer implements AutoCloseable {
+
+    static final String NONCE_HEADER = "Replay-Nonce";
+    static final String PROBLEM_PREFIX = "urn:ietf:params:acme:error:";
+
+    private static final String PEM_CHAIN = "application/pem-certificate-chain";
+    private static final String PROBLEM_JSON = "application/problem+json";
+
+    private final Settings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LoopResources loopResources;
+    private final DisposableServer server;
+    private final HttpClient validationClient;
+    private final KeyPair caKeyPair;
+    private final X509CertificateHolder caCertificate;
+    private final String caCertificatePem;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String/*kid*/, String/*thumbprint*/> accounts = new ConcurrentHashMap<>();
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+    private final Map<String, Authz> authorizations = new ConcurrentHashMap<>();
+    private final Map<String/*challenge id, same as authz*/, Authz> challenges = new ConcurrentHashMap<>();
+    private final Map<String, String/*PEM chain*/> certificates = new ConcurrentHashMap<>();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+    private final AtomicInteger failedValidations = new AtomicInteger();
+    private final AtomicInteger issuedCertificates = new AtomicInteger();
+
+    private volatile Supplier<String> challengeBaseUrl = () -> {
+        throw new IllegalStateException("challengeBaseUrl not set");
+    };
+
+    /**
+     * @param latency         added to every response
+     * @param latencyJitter   random amount up to this added to the latency
+     * @param validationDelay time between a challenge being requested and the CA fetching it
+     * @param errorRate       fraction of requests, other than directory, nonce, and account ones, that fail with the
+     *                        errorType
+     * @param errorType       the ACME problem type without its URN prefix, such as "serverInternal" or "rateLimited"
+     * @param validity        lifetime of the issued certificates
+     */
+    @Builder
+    record Settings(
+        Duration latency,
+        Duration latencyJitter,
+        Duration validationDelay,
+        double errorRate,
+        String errorType,
+        Duration validity
+    ) {
+
+    }
+
+    FakeAcmeServer(Settings settings) throws GeneralSecurityException, OperatorCreationException, IOException {
+        this.settings = settings;
+
+        final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        caKeyPair = keyPairGenerator.generateKeyPair();
+        final X500Name caName = new X500Name("CN=Fake ACME CA");
+        final Instant now = Instant.now();
+        caCertificate = new JcaX509v3CertificateBuilder(caName, BigInteger.ONE,
+            Date.from(now.minus(Duration.ofDays(1))), Date.from(now.plus(Duration.ofDays(3650))),
+            caName, caKeyPair.getPublic()
+        )
+            .build(signer());
+        caCertificatePem = pem(caCertificate);
+
+        loopResources = LoopResources.create("fake-acme", 2, true);
+        validationClient = HttpClient.create()
+            .runOn(loopResources)
+            .responseTimeout(Duration.ofSeconds(10));
+        server = HttpServer.create()
+            .port(0)
+            .runOn(loopResources)
+            .route(routes -> routes
+                .get("/directory", (request, response) -> respond(response, false, () -> json(response, 200, directory())))
+                .head("/new-nonce", (request, response) -> respond(response, false, () -> response.status(200).send()))
+                .post("/new-account", (request, response) -> handle(request, response, false, this::newAccount))
+                .post("/new-order", (request, response) -> handle(request, response, true, this::newOrder))
+                .post("/order/{id}", (request, response) -> handle(request, response, true, this::getOrder))
+                .post("/authz/{id}", (request, response) -> handle(request, response, true, this::getAuthz))
+                .post("/chall/{id}", (request, response) -> handle(request, response, true, this::respondToChallenge))
+                .post("/finalize/{id}", (request, response) -> handle(request, response, true, this::finalizeOrder))
+                .post("/cert/{id}", (request, response) -> handle(request, response, true, this::downloadCertificate))
+            )
+            .bindNow();
+    }
+
+    /**
+     * @param challengeBaseUrl supplies the base URL of kita's challenge responder, which is only known once kita
+     *                         has started and after this server's directory URL was given to it
+     */
+    void challengeBaseUrl(Supplier<String> challengeBaseUrl) {
+        this.challengeBaseUrl = challengeBaseUrl;
+    }
+
+    String directoryUrl() {
+        return baseUrl() + "/directory";
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    int accounts() {
+        return accounts.size();
+    }
+
+    int injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    int failedValidations() {
+        return failedValidations.get();
+    }
+
+    int issuedCertificates() {
+        return issuedCertificates.get();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+        loopResources.disposeLater().block();
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.port();
+    }
+
+    private Map<String, Object> directory() {
+        return Map.of(
+            "newNonce", baseUrl() + "/new-nonce",
+            "newAccount", baseUrl() + "/new-account",
+            "newOrder", baseUrl() + "/new-order"
+        );
+    }
+
+    private interface Handler {
+
+        Mono<Void> handle(HttpServerRequest request, HttpServerResponse response, JwsRequest jws);
+    }
+
+    private record JwsRequest(
+        Map<String, Object> header,
+        String payload
+    ) {
+
+        String kid() {
+            return (String) header.get("kid");
+        }
+    }
+
+    private Mono<Void> handle(HttpServerRequest request, HttpServerResponse response, boolean faultable,
+        Handler handler
+    ) {
+        return request.receive().aggregate().asString(StandardCharsets.UTF_8)
+            .flatMap(body -> respond(response, faultable, () -> {
+                final JwsRequest jws;
+                try {
+                    jws = parseJws(body);
+                } catch (IOException e) {
+                    return problem(response, 400, "malformed", e.getMessage());
+                }
+                return handler.handle(request, response, jws);
+            }));
+    }
+
+    private Mono<Void> respond(HttpServerResponse response, boolean faultable, Supplier<Mono<Void>> handler) {
+        requests.incrementAndGet();
+        final long jitterMillis = settings.latencyJitter().toMillis();
+        final Duration delay = settings.latency().plusMillis(
+            jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0
+        );
+        response.header(NONCE_HEADER, Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        return Mono.delay(delay)
+            .then(Mono.defer(() -> {
+                if (faultable && ThreadLocalRandom.current().nextDouble() < settings.errorRate()) {
+                    injectedErrors.incrementAndGet();
+                    if (settings.errorType().equals("rateLimited")) {
+                        response.header("Retry-After", "1");
+                        return problem(response, 429, settings.errorType(), "Injected fault");
+                    }
+                    return problem(response, 500, settings.errorType(), "Injected fault");
+                }
+                return handler.get();
+            }));
+    }
+
+    private Mono<Void> newAccount(HttpServerRequest request, HttpServerResponse response, JwsRequest jws) {
+        final String thumbprint;
+        try {
+            @SuppressWarnings("unchecked") final JWK jwk = JWK.parse((Map<String, Object>) jws.header().get("jwk"));
+            thumbprint = jwk.computeThumbprint().toString();
+        } catch (ParseException | JOSEException | ClassCastException e) {
+            return problem(response, 400, "badPublicKey", String.valueOf(e.getMessage()));
+        }
+        final String kid = baseUrl() + "/acct/" + ids.incrementAndGet();
+        accounts.put(kid, thumbprint);
+        response.header("Location", kid);
+        return json(response, 201, Map.of("status", "valid", "contact", List.of()));
+    }
+
+    private Mono<Void> newOrder(HttpServerRequest request, HttpServerResponse response, JwsRequest jws) {
+        if (!accounts.containsKey(jws.kid())) {
+            return problem(response, 400, "accountDoesNotExist", "Unknown account " + jws.kid());
+        }
+        final List<Map<String, String>> identifiers;
+        try {
+            identifiers = objectMapper.<Map<String, List<Map<String, String>>>>readValue(jws.payload(),
+                new TypeReference<>() {}
+            ).get("identifiers");
+        } catch (IOException e) {
+            return problem(response, 400, "malformed", e.getMessage());
+        }
+
+        final Order order = new Order(String.valueOf(ids.incrementAndGet()),
+            identifiers.stream()
+                .map(identifier -> {
+                    final Authz authz = new Authz(String.valueOf(ids.incrementAndGet()), jws.kid(),
+                        identifier.get("value"), randomToken()
+                    );
+                    authorizations.put(authz.id, authz);
+                    challenges.put(authz.id, authz);
+                    return authz;
+                })
+                .toList()
+        );
+        orders.put(order.id, order);
+        response.header("Location", baseUrl() + "/order/" + order.id);
+        return json(response, 201, orderJson(order));
+    }
+
+    private Mono<Void> getOrder(HttpServerRequest request, HttpServerResponse response, JwsRequest jws) {
+        final Order order = orders.get(request.param("id"));
+        return order != null ? json(response, 200, orderJson(order))
+            : problem(response, 404, "malformed", "No such order");
+    }
+
+    private Mono<Void> getAuthz(HttpServerRequest request, HttpServerResponse response, JwsRequest jws) {
+        final Authz authz = authorizations.get(request.param("id"));
+        return authz != null ? json(response, 200, authzJson(authz))
+            : problem(response, 404, "malformed", "No such authorization");
+    }
+
+    private Mono<Void> respondToChallenge(HttpServerRequest request, HttpServerResponse response, JwsRequest jws) {
+        final Authz authz = challenges.get(request.param("id"));
+        if (authz == null) {
+            return problem(response, 404, "malformed", "No such challenge");
+        }
+        if (authz.challengeStatus.compareAndSet("pending", "processing")) {
+            Mono.delay(settings.validationDelay())
+                .then(validate(authz))
+                .subscribe(valid -> {
+                    authz.challengeStatus.set(valid ? "valid" : "invalid");
+                    authz.status.set(valid ? "valid" : "invalid");
+                    if (!valid) {
+                        failedValidations.incrementAndGet();
+                    }
+                });
+        }
+        return json(response, 200, challengeJson(authz));
+    }
+
+    private Mono<Boolean> validate(Authz authz) {
+        final String expected = authz.token + "." + accounts.get(authz.accountKid);
+        return validationClient
+            .get()
+            .uri(challengeBaseUrl.get() + AcmeChallengeController.BASE_CHALLENGE_PATH + "/" + authz.token)
+            .responseSingle((validationResponse, body) -> validationResponse.status().code() == 200 ?
+                body.asString(StandardCharsets.UTF_8) : Mono.just("")
+            )
+            .map(body -> body.trim().equals(expected))
+            .defaultIfEmpty(false)
+            .onErrorResume(throwable -> {
+                log.debug("Validation of host={} failed", authz.host, throwable);
+                return Mono.just(false);
+            });
+    }
+
+    private Mono<Void> finalizeOrder(HttpServerRequest request, HttpServerResponse response, JwsRequest jws) {
+        final Order order = orders.get(request.param("id"));
+        if (order == null) {
+            return problem(response, 404, "malformed", "No such order");
+        }
+        if (!order.authorizations.stream().allMatch(authz -> authz.status.get().equals("valid"))) {
+            return problem(response, 403, "orderNotReady", "Authorizations are not all valid");
+        }
+
+        try {
+            final Map<String, String> payload = objectMapper.readValue(jws.payload(), new TypeReference<>() {});
+            final PKCS10CertificationRequest csr = new PKCS10CertificationRequest(
+                Base64.getUrlDecoder().decode(payload.get("csr"))
+            );
+            certificates.put(order.id, pem(issue(csr)) + caCertificatePem);
+        } catch (IOException | OperatorCreationException | IllegalArgumentException e) {
+            return problem(response, 400, "badCSR", String.valueOf(e.getMessage()));
+        }
+        order.status.set("valid");
+        issuedCertificates.incrementAndGet();
+        return json(response, 200, orderJson(order));
+    }
+
+    private Mono<Void> downloadCertificate(HttpServerRequest request, HttpServerResponse response, JwsRequest jws) {
+        final String chain = certificates.get(request.param("id"));
+        if (chain == null) {
+            return problem(response, 404, "malformed", "No such certificate");
+        }
+        return response.status(200)
+            .header("Content-Type", PEM_CHAIN)
+            .sendString(Mono.just(chain))
+            .then();
+    }
+
+    private X509CertificateHolder issue(PKCS10CertificationRequest csr) throws IOException, OperatorCreationException {
+        final Instant now = Instant.now();
+        final X509v3CertificateBuilder builder = new X509v3CertificateBuilder(caCertificate.getSubject(),
+            BigInteger.valueOf(ids.incrementAndGet()),
+            Date.from(now), Date.from(now.plus(settings.validity()).minusSeconds(1)),
+            csr.getSubject(), csr.getSubjectPublicKeyInfo()
+        );
+        for (var attribute : csr.getAttributes(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest)) {
+            final Extensions extensions = Extensions.getInstance(attribute.getAttrValues().getObjectAt(0));
+            final Extension san = extensions.getExtension(Extension.subjectAlternativeName);
+            if (san != null) {
+                builder.addExtension(san);
+            }
+        }
+        return builder.build(signer());
+    }
+
+    private ContentSigner signer() throws OperatorCreationException {
+        return new JcaContentSignerBuilder("SHA256withECDSA").build(caKeyPair.getPrivate());
+    }
+
+    private static String pem(X509CertificateHolder certificate) throws IOException {
+        final StringWriter writer = new StringWriter();
+        try (PemWriter pemWriter = new PemWriter(writer)) {
+            pemWriter.writeObject(new PemObject("CERTIFICATE", certificate.getEncoded()));
+        }
+        return writer.toString();
+    }
+
+    private JwsRequest parseJws(String body) throws IOException {
+        final Map<String, String> jws = objectMapper.readValue(body, new TypeReference<>() {});
+        final Base64.Decoder decoder = Base64.getUrlDecoder();
+        final Map<String, Object> header = objectMapper.readValue(
+            decoder.decode(jws.get("protected")), new TypeReference<>() {}
+        );
+        final String payload = new String(decoder.decode(jws.getOrDefault("payload", "")), StandardCharsets.UTF_8);
+        return new JwsRequest(header, payload);
+    }
+
+    private Mono<Void> json(HttpServerResponse response, int status, Object body) {
+        try {
+            return response.status(status)
+                .header("Content-Type", "application/json")
+                .sendByteArray(Mono.just(objectMapper.writeValueAsBytes(body)))
+                .then();
+        } catch (IOException e) {
+            return Mono.error(e);
+        }
+    }
+
+    private Mono<Void> problem(HttpServerResponse response, int status, String type, String detail) {
+        try {
+            return response.status(status)
+                .header("Content-Type", PROBLEM_JSON)
+                .sendByteArray(Mono.just(objectMapper.writeValueAsBytes(Map.of(
+                    "type", PROBLEM_PREFIX + type,
+                    "detail", detail,
+                    "status", status
+                ))))
+                .then();
+        } catch (IOException e) {
+            return Mono.error(e);
+        }
+    }
+
+    private Map<String, Object> orderJson(Order order) {
+        final Map<String, Object> json = new LinkedHashMap<>();
+        json.put("status", order.status());
+        json.put("expires", Instant.now().plus(Duration.ofDays(7)).toString());
+        json.put("identifiers", order.authorizations.stream()
+            .map(authz -> Map.of("type", "dns", "value", authz.host))
+            .toList());
+        json.put("authorizations", order.authorizations.stream()
+            .map(authz -> baseUrl() + "/authz/" + authz.id)
+            .toList());
+        json.put("finalize", baseUrl() + "/finalize/" + order.id);
+        if (certificates.containsKey(order.id)) {
+            json.put("certificate", baseUrl() + "/cert/" + order.id);
+        }
+        return json;
+    }
+
+    private Map<String, Object> authzJson(Authz authz) {
+        return Map.of(
+            "status", authz.status.get(),
+            "expires", Instant.now().plus(Duration.ofDays(7)).toString(),
+            "identifier", Map.of("type", "dns", "value", authz.host),
+            "challenges", List.of(challengeJson(authz))
+        );
+    }
+
+    private Map<String, Object> challengeJson(Authz authz) {
+        return Map.of(
+            "type", "http-01",
+            "url", baseUrl() + "/chall/" + authz.id,
+            "token", authz.token,
+            "status", authz.challengeStatus.get()
+        );
+    }
+
+    private static String randomToken() {
+        final byte[] bytes = new byte[16];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static class Order {
+
+        final String id;
+        final List<Authz> authorizations;
+        final AtomicReference<String> status = new AtomicReference<>("pending");
+
+        Order(String id, List<Authz> authorizations) {
+            this.id = id;
+            this.authorizations = authorizations;
+        }
+
+        String status() {
+            if (status.get().equals("pending")
+                && authorizations.stream().allMatch(authz -> authz.status.get().equals("valid"))) {
+                return "ready";
+            }
+            return status.get();
+        }
+    }
+
+    private static class Authz {
+
+        final String id;
+        final String accountKid;
+        final String host;
+        final String token;
+        final AtomicReference<String> status = new AtomicReference<>("pending");
+        final AtomicReference<String> challengeStatus = new AtomicReference<>("pending");
+
+        Authz(String id, String accountKid, String host, String token) {
+            this.id = id;
+            this.accountKid = accountKid;
+            this.host = host;
+            this.token = token;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package app.simulation;
+
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Stands in for an ingress controller by reporting a load balancer address on each newly observed ingress after a
+ * delay, which is what kita waits for before requesting validation of a challenge.
+ */
+@Slf4j
+class FakeIngressController implements AutoCloseable {
+
+    private final KubernetesClient k8s;
+    private final SharedIndexInformer<Ingress> informer;
+    private final AtomicInteger statusUpdates = new AtomicInteger();
+
+    /**
+     * @param k8s        a client that is distinguished from kita's, so that its requests can be excluded
+     * @param labelKey   only ingresses with this label are reconciled
+     * @param readyDelay how long the controller takes to route a new ingress
+     */
+    FakeIngressController(KubernetesClient k8s, String labelKey, Duration readyDelay) {
+        this.k8s = k8s;
+        informer = k8s.network().v1().ingresses()
+            .withLabel(labelKey)
+            .inform(new ResourceEventHandler<>() {
+                @Override
+                public void onAdd(Ingress ingress) {
+                    Mono.delay(readyDelay)
+                        .subscribe(ignored -> markReady(ingress));
+                }
+
+                @Override
+                public void onUpdate(Ingress oldIngress, Ingress ingress) {
+                }
+
+                @Override
+                public void onDelete(Ingress ingress, boolean deletedFinalStateUnknown) {
+                }
+            });
+    }
+
+    int statusUpdates() {
+        return statusUpdates.get();
+    }
+
+    private void markReady(Ingress ingress) {
+        try {
+            k8s.network().v1().ingresses()
+                .inNamespace(ingress.getMetadata().getNamespace())
+                .withName(ingress.getMetadata().getName())
+                .editStatus(current -> new IngressBuilder(current)
+                    .withNewStatus()
+                    .withNewLoadBalancer()
+                    .addNewIngress()
+                    .withIp("10.0.0.1")
+                    .endIngress()
+                    .endLoadBalancer()
+                    .endStatus()
+                    .build()
+                );
+            statusUpdates.incrementAndGet();
+        } catch (KubernetesClientException e) {
+            // such as when kita already removed the solver ingress
+            log.debug("Unable to update status of ingress={}", ingress.getMetadata().getName(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        informer.close();
+    }
+}
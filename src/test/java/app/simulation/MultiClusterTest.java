@@ -0,0 +1,229 @@
+package app.simulation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.K8sIngressTlsAcmeApplication;
+import app.services.Metadata;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressBuilder;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.jdkhttp.JdkHttpClientFactory;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.fabric8.mockwebserver.MockWebServer;
+import io.fabric8.mockwebserver.ServerRequest;
+import io.fabric8.mockwebserver.ServerResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs a single kita against two fabric8 mock Kubernetes servers, configured as kubeconfig contexts, and a shared
+ * {@link FakeAcmeServer}. Each cluster has an ingress with the same TLS secret name, which must be issued into that
+ * cluster by way of its own solver service, while the ACME account is shared.
+ */
+class MultiClusterTest {
+
+    private static final String ISSUER_ID = "simulated";
+    private static final String SOLVER_ROLE = "solver";
+    private static final List<String> CLUSTERS = List.of("east", "west");
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, KubernetesMockServer> servers = new LinkedHashMap<>();
+    private final Map<String, KubernetesClient> clients = new LinkedHashMap<>();
+    private final List<FakeIngressController> ingressControllers = new ArrayList<>();
+    private final Map<String, String> previousSystemProperties = new HashMap<>();
+    private FakeAcmeServer fakeAcme;
+    private ConfigurableApplicationContext kita;
+
+    @BeforeAll
+    static void addSecurityProvider() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (String cluster : CLUSTERS) {
+            final Map<ServerRequest, Queue<ServerResponse>> responses = new HashMap<>();
+            final KubernetesMockServer server = new KubernetesMockServer(new Context(), new MockWebServer(),
+                responses, new ServerSideApplyDispatcher(), false
+            );
+            server.init();
+            servers.put(cluster, server);
+
+            // explicitly chosen since fabric8 otherwise picks one of the factories on the classpath at random
+            final KubernetesClient client = server.createClient(new JdkHttpClientFactory());
+            clients.put(cluster, client);
+            client.services()
+                .resource(new ServiceBuilder()
+                    .withNewMetadata()
+                    .withName("kita-solver")
+                    .addToLabels(Metadata.ROLE_LABEL, SOLVER_ROLE)
+                    .endMetadata()
+                    .withNewSpec()
+                    .addNewPort()
+                    .withName(Metadata.SOLVER_SERVICE_PORT_NAME)
+                    .withPort(8080)
+                    .endPort()
+                    .endSpec()
+                    .build())
+                .create();
+            ingressControllers.add(new FakeIngressController(client, Metadata.ROLE_LABEL, Duration.ofMillis(200)));
+        }
+
+        fakeAcme = new FakeAcmeServer(FakeAcmeServer.Settings.builder()
+            .latency(Duration.ZERO)
+            .latencyJitter(Duration.ZERO)
+            .validationDelay(Duration.ofMillis(100))
+            .errorRate(0)
+            .errorType("serverInternal")
+            .validity(Duration.ofDays(90))
+            .build());
+
+        setSystemProperty(Config.KUBERNETES_KUBECONFIG_FILE, writeKubeconfig().toString());
+        setSystemProperty(Config.KUBERNETES_AUTH_TRYSERVICEACCOUNT_SYSTEM_PROPERTY, "false");
+
+        final Map<String, Object> properties = new HashMap<>(Map.of(
+            "server.port", "0",
+            "kita.issuers." + ISSUER_ID + ".directory-url", fakeAcme.directoryUrl(),
+            "kita.issuers." + ISSUER_ID + ".emails", "multi-cluster@example.com",
+            "kita.issuers." + ISSUER_ID + ".terms-of-service-agreed", "true",
+            "kita.solver-role", SOLVER_ROLE,
+            "kita.auth-finalize.poll-delay", "250ms",
+            "kita.solver-gc.enabled", "false"
+        ));
+        CLUSTERS.forEach(cluster -> properties.put("kita.clusters." + cluster + ".context", cluster));
+        kita = new SpringApplicationBuilder(K8sIngressTlsAcmeApplication.class)
+            .properties(properties)
+            // overrides the issuer of the test configuration, which would otherwise fetch its directory from the
+            // internet
+            .run("--kita.issuers.letsencrypt-staging.directory-url=" + fakeAcme.directoryUrl());
+        final int kitaPort = ((WebServerApplicationContext) kita).getWebServer().getPort();
+        fakeAcme.challengeBaseUrl(() -> "http://localhost:" + kitaPort);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (kita != null) {
+            kita.close();
+        }
+        previousSystemProperties.forEach((key, value) -> {
+            if (value != null) {
+                System.setProperty(key, value);
+            } else {
+                System.clearProperty(key);
+            }
+        });
+        ingressControllers.forEach(FakeIngressController::close);
+        if (fakeAcme != null) {
+            fakeAcme.close();
+        }
+        clients.values().forEach(KubernetesClient::close);
+        servers.values().forEach(KubernetesMockServer::destroy);
+    }
+
+    @Test
+    void issuesIntoEachClusterWithSharedAccount() throws InterruptedException {
+        clients.forEach((cluster, client) -> client.network().v1().ingresses()
+            .resource(new IngressBuilder()
+                .withNewMetadata()
+                .withName("app")
+                .addToLabels(Metadata.ISSUER_LABEL, ISSUER_ID)
+                .endMetadata()
+                .withNewSpec()
+                .withIngressClassName("nginx")
+                .addNewTl()
+                .withHosts("app." + cluster + ".example.com")
+                .withSecretName("app-tls")
+                .endTl()
+                .endSpec()
+                .build())
+            .create());
+
+        final long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline && !clients.values().stream().allMatch(this::hasTlsSecret)) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+
+        clients.forEach((cluster, client) -> {
+            final Secret secret = client.secrets().withName("app-tls").get();
+            assertThat(secret).as("TLS secret in cluster %s", cluster).isNotNull();
+            assertThat(secret.getMetadata().getLabels())
+                .containsEntry(Metadata.ISSUER_LABEL, ISSUER_ID);
+            assertThat(secret.getMetadata().getAnnotations())
+                .containsEntry(Metadata.HOST_ANNOTATION, "app." + cluster + ".example.com");
+        });
+        assertThat(fakeAcme.issuedCertificates()).isEqualTo(CLUSTERS.size());
+        assertThat(fakeAcme.accounts()).isEqualTo(1);
+    }
+
+    private boolean hasTlsSecret(KubernetesClient client) {
+        return client.secrets().withName("app-tls").get() != null;
+    }
+
+    /**
+     * @return a kubeconfig with a context per mock server, the first of which is also kita's own cluster
+     */
+    private Path writeKubeconfig() throws IOException {
+        final StringBuilder clusters = new StringBuilder();
+        final StringBuilder contexts = new StringBuilder();
+        clients.forEach((cluster, client) -> {
+            clusters.append("""
+                - name: %s
+                  cluster:
+                    server: %s
+                """.formatted(cluster, client.getConfiguration().getMasterUrl()));
+            contexts.append("""
+                - name: %s
+                  context:
+                    cluster: %s
+                    user: test
+                    namespace: %s
+                """.formatted(cluster, cluster, client.getNamespace()));
+        });
+
+        final Path kubeconfig = tempDir.resolve("kubeconfig");
+        Files.writeString(kubeconfig, """
+            apiVersion: v1
+            kind: Config
+            current-context: %s
+            clusters:
+            %s
+            contexts:
+            %s
+            users:
+            - name: test
+              user:
+                token: test
+            """.formatted(CLUSTERS.getFirst(), clusters.toString().stripTrailing(), contexts.toString().stripTrailing()));
+        return kubeconfig;
+    }
+
+    private void setSystemProperty(String key, String value) {
+        previousSystemProperties.put(key, System.getProperty(key));
+        System.setProperty(key, value);
+    }
+}
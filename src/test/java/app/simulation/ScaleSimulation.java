@@ -0,0 +1,410 @@
+package app.simulation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.K8sIngressTlsAcmeApplication;
+import app.services.Metadata;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressBuilder;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.jdkhttp.JdkHttpClientFactory;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.fabric8.mockwebserver.MockWebServer;
+import io.fabric8.mockwebserver.http.RecordedRequest;
+import io.vertx.core.VertxOptions;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs kita against the fabric8 mock Kubernetes server and a {@link FakeAcmeServer}, creates a burst of labelled
+ * ingresses, and measures how long it takes until every TLS secret has been issued along with the peak heap,
+ * threads, and Kubernetes API requests made by kita along the way.
+ * <p>
+ * Run with {@code ./gradlew benchmark --tests '*ScaleSimulation'} and tune with {@code -Dsimulation.*} properties,
+ * such as {@code -Dsimulation.ingresses=2000 -Dsimulation.errorRate=0.01}. The process also hosts the mock servers,
+ * so heap and thread numbers are meant for comparing runs rather than as absolute figures. Threads and resident
+ * memory are also reported as the growth since just before kita started, which compares settings such as
+ * {@code -Dsimulation.kubernetesHttpClient=jdk} across runs. {@code -Dsimulation.kubernetesEventLoopThreads=unsized}
+ * sizes the Vert.x client's event loop as fabric8's default factory does, at twice the number of cores, as a
+ * baseline for kita's own sizing.
+ */
+@Tag("benchmark")
+class ScaleSimulation {
+
+    private static final String ISSUER_ID = "simulated";
+    private static final String SOLVER_ROLE = "solver";
+    private static final String HARNESS_USER_AGENT = "kita-scale-simulation";
+
+    private static final int INGRESSES = Integer.getInteger("simulation.ingresses", 500);
+    private static final int HOSTS_PER_INGRESS = Integer.getInteger("simulation.hostsPerIngress", 1);
+    private static final Duration TIMEOUT = duration("simulation.timeout", "10m");
+
+    private KubernetesMockServer server;
+    private KubernetesClient client;
+    private KubernetesClient harnessClient;
+    private FakeAcmeServer fakeAcme;
+    private FakeIngressController fakeIngressController;
+    private ConfigurableApplicationContext kita;
+    private final Map<String, String> previousSystemProperties = new HashMap<>();
+    private Set<Long> threadsBeforeKita;
+    private long residentBeforeKita;
+    private long residentAfterStart;
+    private Map<String, Integer> kitaThreadsAfterStart;
+
+    @BeforeAll
+    static void addSecurityProvider() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(),
+            new ServerSideApplyDispatcher(), true
+        );
+        server.init();
+        client = server.createClient(new HarnessHttpClientFactory());
+        harnessClient = new KubernetesClientBuilder()
+            .withConfig(new ConfigBuilder(client.getConfiguration())
+                .withUserAgent(HARNESS_USER_AGENT)
+                .build())
+            .withHttpClientFactory(new HarnessHttpClientFactory())
+            .build();
+
+        fakeAcme = new FakeAcmeServer(FakeAcmeServer.Settings.builder()
+            .latency(duration("simulation.acmeLatency", "50ms"))
+            .latencyJitter(duration("simulation.acmeLatencyJitter", "50ms"))
+            .validationDelay(duration("simulation.validationDelay", "100ms"))
+            .errorRate(Double.parseDouble(System.getProperty("simulation.errorRate", "0")))
+            .errorType(System.getProperty("simulation.errorType", "serverInternal"))
+            .validity(Duration.ofDays(90))
+            .build());
+        fakeIngressController = new FakeIngressController(harnessClient, Metadata.ROLE_LABEL,
+            duration("simulation.ingressReadyDelay", "200ms")
+        );
+
+        harnessClient.services()
+            .resource(new ServiceBuilder()
+                .withNewMetadata()
+                .withName("kita-solver")
+                .addToLabels(Metadata.ROLE_LABEL, SOLVER_ROLE)
+                .endMetadata()
+                .withNewSpec()
+                .addNewPort()
+                .withName(Metadata.SOLVER_SERVICE_PORT_NAME)
+                .withPort(8080)
+                .endPort()
+                .endSpec()
+                .build())
+            .create();
+
+        // kita builds its own client from the default configuration, which these point at the mock server
+        setSystemProperty(Config.KUBERNETES_MASTER_SYSTEM_PROPERTY, client.getConfiguration().getMasterUrl());
+        setSystemProperty(Config.KUBERNETES_NAMESPACE_SYSTEM_PROPERTY, client.getNamespace());
+        setSystemProperty(Config.KUBERNETES_TRUST_CERT_SYSTEM_PROPERTY, "true");
+        setSystemProperty(Config.KUBERNETES_DISABLE_HOSTNAME_VERIFICATION_SYSTEM_PROPERTY, "true");
+        setSystemProperty(Config.KUBERNETES_AUTH_TRYKUBECONFIG_SYSTEM_PROPERTY, "false");
+        setSystemProperty(Config.KUBERNETES_AUTH_TRYSERVICEACCOUNT_SYSTEM_PROPERTY, "false");
+
+        final Map<String, Object> properties = new HashMap<>(Map.of(
+            "server.port", "0",
+            "kita.issuers." + ISSUER_ID + ".directory-url", fakeAcme.directoryUrl(),
+            "kita.issuers." + ISSUER_ID + ".emails", "simulation@example.com",
+            "kita.issuers." + ISSUER_ID + ".terms-of-service-agreed", "true",
+            "kita.solver-role", SOLVER_ROLE,
+            "kita.auth-finalize.poll-delay", System.getProperty("simulation.pollDelay", "250ms"),
+            "kita.solver-gc.enabled", "false",
+            "logging.level.app", System.getProperty("simulation.logLevel", "warn")
+        ));
+        if (System.getProperty("simulation.kubernetesHttpClient") != null) {
+            properties.put("kita.kubernetes-http-client.type", System.getProperty("simulation.kubernetesHttpClient"));
+        }
+        if (System.getProperty("simulation.kubernetesEventLoopThreads") != null) {
+            properties.put("kita.kubernetes-http-client.event-loop-threads", kubernetesEventLoopThreads());
+        }
+
+        System.gc();
+        threadsBeforeKita = liveThreads().keySet();
+        residentBeforeKita = residentKib();
+        kita = new SpringApplicationBuilder(K8sIngressTlsAcmeApplication.class)
+            .properties(properties)
+            // overrides the issuer of the test configuration, which would otherwise fetch its directory from the
+            // internet
+            .run("--kita.issuers.letsencrypt-staging.directory-url=" + fakeAcme.directoryUrl());
+        System.gc();
+        residentAfterStart = residentKib();
+        kitaThreadsAfterStart = kitaThreads();
+        final int kitaPort = ((WebServerApplicationContext) kita).getWebServer().getPort();
+        fakeAcme.challengeBaseUrl(() -> "http://localhost:" + kitaPort);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (kita != null) {
+            kita.close();
+        }
+        previousSystemProperties.forEach((key, value) -> {
+            if (value != null) {
+                System.setProperty(key, value);
+            } else {
+                System.clearProperty(key);
+            }
+        });
+        fakeIngressController.close();
+        fakeAcme.close();
+        harnessClient.close();
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    void issuesCertificatesForAllIngresses() throws InterruptedException {
+        final Map<String/*secretName*/, Long/*nanos*/> issuedAt = new ConcurrentHashMap<>();
+        final SharedIndexInformer<Secret> secrets = harnessClient.secrets()
+            .withLabel(Metadata.ISSUER_LABEL)
+            .inform(new ResourceEventHandler<>() {
+                @Override
+                public void onAdd(Secret secret) {
+                    issuedAt.putIfAbsent(secret.getMetadata().getName(), System.nanoTime());
+                }
+
+                @Override
+                public void onUpdate(Secret oldSecret, Secret secret) {
+                }
+
+                @Override
+                public void onDelete(Secret secret, boolean deletedFinalStateUnknown) {
+                }
+            });
+
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        final long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        final int baselineThreads = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        drainRequests();
+        final int acmeRequestsBefore = fakeAcme.requests();
+
+        final long start = System.nanoTime();
+        IntStream.range(0, INGRESSES)
+            .parallel()
+            .forEach(this::createIngress);
+        final long created = System.nanoTime();
+
+        long peakHeap = baselineHeap;
+        long peakResident = residentAfterStart;
+        final long deadline = start + TIMEOUT.toNanos();
+        while (issuedAt.size() < INGRESSES && System.nanoTime() < deadline) {
+            peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+            peakResident = Math.max(peakResident, residentKib());
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        final Map<String, Integer> kitaThreadsAfterIssuance = kitaThreads();
+        final long end = System.nanoTime();
+        secrets.close();
+
+        final Map<String, Integer> kitaRequests = drainRequests();
+        final List<Long> latencies = new ArrayList<>(issuedAt.values().stream()
+            .map(at -> at - start)
+            .sorted()
+            .toList());
+
+        System.out.printf("Scale simulation of %d ingresses with %d host(s) each%n", INGRESSES, HOSTS_PER_INGRESS);
+        System.out.printf("  created ingresses in %d ms%n", TimeUnit.NANOSECONDS.toMillis(created - start));
+        System.out.printf("  issued %d/%d, time-to-all-certificates %d ms, per certificate p50=%d ms p99=%d ms%n",
+            issuedAt.size(), INGRESSES, TimeUnit.NANOSECONDS.toMillis(end - start),
+            millisAt(latencies, 0.5), millisAt(latencies, 0.99)
+        );
+        System.out.printf("  heap baseline=%d MiB peak=%d MiB%n", baselineHeap >> 20, peakHeap >> 20);
+        System.out.printf("  threads baseline=%d peak=%d%n", baselineThreads, threads.getPeakThreadCount());
+        System.out.printf("  kubernetes http client=%s event loop threads=%s%n",
+            System.getProperty("simulation.kubernetesHttpClient", "default"),
+            System.getProperty("simulation.kubernetesEventLoopThreads", "default")
+        );
+        System.out.printf("  threads started by kita after start=%d %s%n",
+            total(kitaThreadsAfterStart), kitaThreadsAfterStart
+        );
+        System.out.printf("  threads started by kita after issuance=%d %s%n",
+            total(kitaThreadsAfterIssuance), kitaThreadsAfterIssuance
+        );
+        System.out.printf("  resident memory growth since kita started, after start=%d MiB peak=%d MiB%n",
+            (residentAfterStart - residentBeforeKita) >> 10, (peakResident - residentBeforeKita) >> 10
+        );
+        System.out.printf("  kubernetes requests by kita=%d %s%n",
+            kitaRequests.values().stream().mapToInt(Integer::intValue).sum(), kitaRequests
+        );
+        System.out.printf("  acme requests=%d injected errors=%d failed validations=%d%n",
+            fakeAcme.requests() - acmeRequestsBefore, fakeAcme.injectedErrors(), fakeAcme.failedValidations()
+        );
+        System.out.printf("  solver ingresses routed by the fake ingress controller=%d%n",
+            fakeIngressController.statusUpdates()
+        );
+
+        if (fakeAcme.injectedErrors() == 0) {
+            assertThat(issuedAt).hasSize(INGRESSES);
+        }
+    }
+
+    private void createIngress(int index) {
+        final String name = "app-" + index;
+        harnessClient.network().v1().ingresses()
+            .resource(new IngressBuilder()
+                .withNewMetadata()
+                .withName(name)
+                .addToLabels(Metadata.ISSUER_LABEL, ISSUER_ID)
+                .endMetadata()
+                .withNewSpec()
+                .withIngressClassName("nginx")
+                .addNewTl()
+                .withHosts(IntStream.range(0, HOSTS_PER_INGRESS)
+                    .mapToObj(host -> "h" + host + "." + name + ".example.com")
+                    .toList())
+                .withSecretName(name + "-tls")
+                .endTl()
+                .endSpec()
+                .build())
+            .create();
+    }
+
+    /**
+     * @return the requests made by kita since the last call, counted by method and resource
+     */
+    private Map<String, Integer> drainRequests() throws InterruptedException {
+        final Map<String, Integer> counts = new TreeMap<>();
+        RecordedRequest request;
+        while ((request = server.takeRequest(10, TimeUnit.MILLISECONDS)) != null) {
+            if (HARNESS_USER_AGENT.equals(request.getHeader("User-Agent"))) {
+                continue;
+            }
+            counts.merge(request.getMethod() + " " + resourceOf(request.getPath()), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * @return such as "secrets" or "ingresses/status", with "?watch" appended for watches
+     */
+    private static String resourceOf(String path) {
+        final int queryStart = path.indexOf('?');
+        final String query = queryStart >= 0 ? path.substring(queryStart) : "";
+        final String[] segments = (queryStart >= 0 ? path.substring(0, queryStart) : path).split("/");
+        int resourceIndex = -1;
+        for (int i = 0; i < segments.length - 1; i++) {
+            if (segments[i].equals("namespaces")) {
+                resourceIndex = i + 2;
+            }
+        }
+        if (resourceIndex < 0 || resourceIndex >= segments.length) {
+            resourceIndex = segments.length - 1;
+        }
+        final String resource = segments[resourceIndex]
+            + (segments.length > resourceIndex + 2 ? "/" + segments[resourceIndex + 2] : "");
+        return query.contains("watch=true") ? resource + "?watch" : resource;
+    }
+
+    private static long millisAt(List<Long> sortedNanos, double quantile) {
+        if (sortedNanos.isEmpty()) {
+            return -1;
+        }
+        final int index = Math.min(sortedNanos.size() - 1, (int) Math.ceil(quantile * sortedNanos.size()) - 1);
+        return TimeUnit.NANOSECONDS.toMillis(sortedNanos.get(Math.max(0, index)));
+    }
+
+    private static Map<Long, String> liveThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .collect(Collectors.toMap(Thread::threadId, Thread::getName));
+    }
+
+    /**
+     * @return the live threads that weren't running before kita started, other than the harness's, counted by name
+     * with digits masked, such as "reactor-http-epoll-#"
+     */
+    private Map<String, Integer> kitaThreads() {
+        final Map<String, Integer> counts = new TreeMap<>();
+        liveThreads().forEach((id, name) -> {
+            if (!threadsBeforeKita.contains(id) && !name.startsWith(HarnessHttpClientFactory.class.getSimpleName())) {
+                counts.merge(name.replaceAll("\\d+", "#"), 1, Integer::sum);
+            }
+        });
+        return counts;
+    }
+
+    private static int total(Map<String, Integer> counts) {
+        return counts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * @return the resident set size of this process in KiB, or -1 where /proc isn't available
+     */
+    private static long residentKib() {
+        try {
+            return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(-1L);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private void setSystemProperty(String key, String value) {
+        previousSystemProperties.put(key, System.getProperty(key));
+        System.setProperty(key, value);
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+
+    /**
+     * @return the number given by {@code simulation.kubernetesEventLoopThreads} or, when that is {@code unsized},
+     * Vert.x's default that fabric8's default factory leaves in place
+     */
+    private static String kubernetesEventLoopThreads() {
+        final String threads = System.getProperty("simulation.kubernetesEventLoopThreads");
+        return threads.equals("unsized") ? String.valueOf(VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE) : threads;
+    }
+
+    /**
+     * The HTTP client of the harness's own Kubernetes clients, explicitly chosen since fabric8 otherwise picks one
+     * of the factories on the classpath at random. Its pool threads are named after this class, which sets them
+     * apart from the threads started by kita.
+     */
+    private static class HarnessHttpClientFactory extends JdkHttpClientFactory {
+
+    }
+}
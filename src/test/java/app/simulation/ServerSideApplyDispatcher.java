@@ -0,0 +1,37 @@
+package app.simulation;
+
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.mockwebserver.dsl.HttpMethod;
+import io.fabric8.mockwebserver.http.MockResponse;
+import io.fabric8.mockwebserver.http.RecordedRequest;
+
+/**
+ * The fabric8 CRUD dispatcher, except that a server-side apply of a resource that doesn't exist yet creates it, as
+ * the API server does, rather than responding with not found.
+ */
+public class ServerSideApplyDispatcher extends KubernetesCrudDispatcher {
+
+    @Override
+    public MockResponse handlePatch(RecordedRequest request) {
+        final String contentType = request.getHeader("Content-Type");
+        if (contentType != null
+            && contentType.startsWith(PatchType.SERVER_SIDE_APPLY.getContentType())
+            && findResource(getKey(request.getPath())) == null) {
+            return handleCreate(new RecordedRequest(request.getHttpVersion(), HttpMethod.POST,
+                collectionPath(request.getPath()), request.getHeaders(), request.getBody()
+            ));
+        }
+        return super.handlePatch(request);
+    }
+
+    /**
+     * @param path such as "/api/v1/namespaces/test/secrets/app-tls?fieldManager=fabric8"
+     * @return such as "/api/v1/namespaces/test/secrets"
+     */
+    private static String collectionPath(String path) {
+        final int queryStart = path.indexOf('?');
+        final String resourcePath = queryStart >= 0 ? path.substring(0, queryStart) : path;
+        return resourcePath.substring(0, resourcePath.lastIndexOf('/'));
+    }
+}